@@ -0,0 +1,221 @@
+package com.trustwallet.automation.base;
+
+import io.appium.java_client.service.local.AppiumDriverLocalService;
+import io.appium.java_client.service.local.AppiumServiceBuilder;
+import io.appium.java_client.service.local.flags.GeneralServerFlag;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Starts and stops one local Appium server per device so sessions on different devices never
+ * queue behind a single server process. Ports are allocated from appium.server.port.base upwards,
+ * skipping ports that are already taken. A background health check restarts servers that died.
+ * Enabled with appium.server.managed=true; otherwise appium.server.url is used as before.
+ */
+public class AppiumServerManager {
+    private static final Logger logger = LogManager.getLogger(AppiumServerManager.class);
+    private static final int MAX_PORT_PROBES = 100;
+    private static AppiumServerManager instance;
+
+    private final Map<String, AppiumDriverLocalService> servers = new ConcurrentHashMap<>();
+    private final Map<String, Integer> ports = new ConcurrentHashMap<>();
+    private final Map<String, Object> restartLocks = new ConcurrentHashMap<>();
+    private final AtomicInteger restarts = new AtomicInteger();
+    private final String host;
+    private final String basePath;
+    private final ScheduledExecutorService healthMonitor;
+
+    private AppiumServerManager() {
+        this.host = BaseDriver.getProperty("appium.server.host", "127.0.0.1");
+        this.basePath = BaseDriver.getProperty("appium.server.base.path", "/wd/hub");
+        this.healthMonitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "appium-server-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return true if the framework should run its own Appium servers
+     */
+    public static boolean isManaged() {
+        return Boolean.parseBoolean(BaseDriver.getProperty("appium.server.managed", "false"));
+    }
+
+    /**
+     * Get the server fleet, starting one server per pooled device in parallel on first use
+     * @return AppiumServerManager instance
+     */
+    public static synchronized AppiumServerManager getInstance() {
+        if (instance == null) {
+            AppiumServerManager manager = new AppiumServerManager();
+            manager.startAll(DevicePool.getInstance().getDevices());
+            Runtime.getRuntime().addShutdownHook(new Thread(manager::stopAll, "appium-server-shutdown"));
+            instance = manager;
+        }
+        return instance;
+    }
+
+    /**
+     * Stop the fleet if it was started
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.stopAll();
+            instance = null;
+        }
+    }
+
+    /**
+     * Get the URL of the server dedicated to a device, restarting it first if it is not healthy
+     * @param device Device the session will run on
+     * @return Server URL including the base path
+     */
+    public URL getServerUrl(Device device) {
+        return ensureRunning(device).getUrl();
+    }
+
+    /**
+     * Start servers for all devices in parallel and wait until every one answers its status check
+     */
+    private void startAll(List<Device> devices) {
+        allocatePorts(devices);
+        ExecutorService starters = Executors.newFixedThreadPool(devices.size());
+        try {
+            List<Future<?>> startups = new ArrayList<>();
+            for (Device device : devices) {
+                startups.add(starters.submit(() -> start(device)));
+            }
+            for (Future<?> startup : startups) {
+                startup.get();
+            }
+        } catch (Exception e) {
+            stopAll();
+            throw new RuntimeException("Failed to start Appium server fleet", e);
+        } finally {
+            starters.shutdown();
+        }
+
+        long interval = Long.parseLong(BaseDriver.getProperty("appium.server.health.interval", "15"));
+        healthMonitor.scheduleWithFixedDelay(() -> devices.forEach(this::checkHealth), interval, interval, TimeUnit.SECONDS);
+        logger.info("Started {} Appium server(s): {}", servers.size(), ports);
+    }
+
+    /**
+     * Assign each device the next free port at or above the configured base port
+     */
+    private void allocatePorts(List<Device> devices) {
+        int candidate = Integer.parseInt(BaseDriver.getProperty("appium.server.port.base", "4725"));
+        for (Device device : devices) {
+            int probes = 0;
+            while (!isPortFree(candidate)) {
+                if (++probes > MAX_PORT_PROBES) {
+                    throw new IllegalStateException("No free port found for Appium server of " + device);
+                }
+                candidate++;
+            }
+            ports.put(device.getUdid(), candidate++);
+        }
+    }
+
+    private boolean isPortFree(int port) {
+        try (ServerSocket socket = new ServerSocket(port, 1, InetAddress.getByName(host))) {
+            socket.setReuseAddress(true);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private AppiumDriverLocalService start(Device device) {
+        int port = ports.get(device.getUdid());
+        File logFile = new File("logs/appium-" + device.getUdid() + ".log");
+        logFile.getParentFile().mkdirs();
+
+        AppiumDriverLocalService service = AppiumDriverLocalService.buildService(new AppiumServiceBuilder()
+                .withIPAddress(host)
+                .usingPort(port)
+                .withArgument(GeneralServerFlag.BASEPATH, basePath)
+                .withArgument(GeneralServerFlag.SESSION_OVERRIDE)
+                .withLogFile(logFile));
+        service.start();
+        servers.put(device.getUdid(), service);
+        logger.info("Appium server for {} listening on {}", device, service.getUrl());
+        return service;
+    }
+
+    /**
+     * Scheduled health check of one device. Failures are logged rather than thrown, since an exception
+     * would cancel the schedule and leave every server unmonitored for the rest of the run
+     */
+    private void checkHealth(Device device) {
+        try {
+            ensureRunning(device);
+        } catch (Exception e) {
+            logger.error("Health check of the Appium server for {} failed: {}", device, e.getMessage());
+        }
+    }
+
+    /**
+     * Health check a device's server and restart it if it crashed
+     */
+    private AppiumDriverLocalService ensureRunning(Device device) {
+        AppiumDriverLocalService service = servers.get(device.getUdid());
+        if (service != null && service.isRunning()) {
+            return service;
+        }
+        synchronized (restartLocks.computeIfAbsent(device.getUdid(), udid -> new Object())) {
+            service = servers.get(device.getUdid());
+            if (service != null && service.isRunning()) {
+                return service;
+            }
+            logger.warn("Appium server for {} is not responding. Restarting it", device);
+            if (service != null) {
+                service.stop();
+            }
+            restarts.incrementAndGet();
+            return start(device);
+        }
+    }
+
+    /**
+     * Stop every server in the fleet
+     */
+    private void stopAll() {
+        healthMonitor.shutdownNow();
+        servers.forEach((udid, service) -> {
+            try {
+                service.stop();
+            } catch (Exception e) {
+                logger.warn("Failed to stop Appium server for {}: {}", udid, e.getMessage());
+            }
+        });
+        if (!servers.isEmpty()) {
+            logger.info("Stopped {} Appium server(s); {} restart(s) during the run", servers.size(), restarts.get());
+        }
+        servers.clear();
+    }
+
+    /**
+     * @return Number of times a crashed server was restarted
+     */
+    public int getRestartCount() {
+        return restarts.get();
+    }
+}
@@ -1,11 +1,14 @@
 package com.trustwallet.automation.base;
 
 import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.HasSettings;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.ios.IOSDriver;
 import org.openqa.selenium.remote.DesiredCapabilities;
 import java.net.URL;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -13,93 +16,251 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 public class BaseDriver {
-    private static AppiumDriver driver;
+    private static final ThreadLocal<AppiumDriver> driver = new ThreadLocal<>();
+    private static final ThreadLocal<Device> device = new ThreadLocal<>();
     private static final Logger logger = LogManager.getLogger(BaseDriver.class);
     private static Properties config;
 
+    static {
+        InstrumentedCommandExecutor.addListener(TransportMetrics.getInstance());
+        InstrumentedCommandExecutor.addListener(CommandLatencyRecorder.getInstance());
+        InstrumentedCommandExecutor.addListener(ElementCache.getInstance());
+    }
+
     /**
-     * Initialize the Appium driver based on platform type
+     * Initialize the Appium driver based on platform type.
+     * Leases a device from the pool and binds the new session to the calling thread.
      * @param platformName Android or iOS
      * @return AppiumDriver instance
      */
     public static AppiumDriver initializeDriver(String platformName) {
+        Device leasedDevice = DevicePool.getInstance().acquire();
+        try {
+            AppiumDriver appiumDriver = createDriver(platformName, leasedDevice);
+            driver.set(appiumDriver);
+            device.set(leasedDevice);
+            return appiumDriver;
+        } catch (RuntimeException e) {
+            DevicePool.getInstance().release(leasedDevice);
+            throw e;
+        }
+    }
+
+    /**
+     * Create a new Appium session on the given device without binding it to any thread
+     * @param platformName Android or iOS
+     * @param targetDevice Device the session should run on
+     * @return AppiumDriver instance
+     */
+    public static AppiumDriver createDriver(String platformName, Device targetDevice) {
         try {
-            loadConfig();
             DesiredCapabilities capabilities = new DesiredCapabilities();
-            
-            String appiumServerUrl = config.getProperty("appium.server.url", "http://127.0.0.1:4723/wd/hub");
-            
+            AppiumDriver appiumDriver;
+            CapabilityProfile capabilityProfile = CapabilityProfile.fromConfig(getProperty("capability.profile", "full"));
+            StartupProfile startupProfile = new StartupProfile(capabilityProfile.name(), targetDevice.getUdid());
+
+            URL appiumServerUrl = AppiumServerManager.isManaged()
+                    ? AppiumServerManager.getInstance().getServerUrl(targetDevice)
+                    : new URL(getProperty("appium.server.url", "http://127.0.0.1:4723/wd/hub"));
+
             capabilities.setCapability("platformName", platformName);
-            
+            capabilities.setCapability("eventTimings", true);
+            capabilityProfile.apply(capabilities, platformName);
+            boolean mjpeg = ScreenshotSources.isStreamEnabled() && targetDevice.getMjpegPort() > 0;
+            if (mjpeg) {
+                capabilities.setCapability("mjpegServerPort", targetDevice.getMjpegPort());
+            }
+
             if (platformName.equalsIgnoreCase("Android")) {
-                capabilities.setCapability("deviceName", config.getProperty("android.device.name"));
+                capabilities.setCapability("deviceName", targetDevice.getUdid());
+                capabilities.setCapability("udid", targetDevice.getUdid());
+                capabilities.setCapability("systemPort", targetDevice.getSystemPort());
                 capabilities.setCapability("automationName", "UiAutomator2");
-                capabilities.setCapability("appPackage", config.getProperty("android.app.package"));
-                capabilities.setCapability("appActivity", config.getProperty("android.app.activity"));
-                
-                if (Boolean.parseBoolean(config.getProperty("use.app.file", "false"))) {
-                    capabilities.setCapability("app", config.getProperty("android.app.path"));
+                capabilities.setCapability("appPackage", getProperty("android.app.package", null));
+                capabilities.setCapability("appActivity", getProperty("android.app.activity", null));
+
+                if (Boolean.parseBoolean(getProperty("use.app.file", "false"))) {
+                    capabilities.setCapability("app", getProperty("android.app.path", null));
                 }
-                
-                driver = new AndroidDriver(new URL(appiumServerUrl), capabilities);
+
+                long sessionStart = System.currentTimeMillis();
+                appiumDriver = new AndroidDriver(new InstrumentedCommandExecutor(HttpTransport.clientConfig(appiumServerUrl)), capabilities);
+                startupProfile.record(StartupProfile.SESSION_CREATE, System.currentTimeMillis() - sessionStart);
             } else if (platformName.equalsIgnoreCase("iOS")) {
-                capabilities.setCapability("deviceName", config.getProperty("ios.device.name"));
+                capabilities.setCapability("deviceName", getProperty("ios.device.name", null));
+                capabilities.setCapability("udid", targetDevice.getUdid());
+                capabilities.setCapability("wdaLocalPort", targetDevice.getSystemPort());
                 capabilities.setCapability("automationName", "XCUITest");
-                capabilities.setCapability("bundleId", config.getProperty("ios.bundle.id"));
-                
-                if (Boolean.parseBoolean(config.getProperty("use.app.file", "false"))) {
-                    capabilities.setCapability("app", config.getProperty("ios.app.path"));
+                capabilities.setCapability("bundleId", getProperty("ios.bundle.id", null));
+
+                if (Boolean.parseBoolean(getProperty("use.app.file", "false"))) {
+                    capabilities.setCapability("app", getProperty("ios.app.path", null));
                 }
-                
-                driver = new IOSDriver(new URL(appiumServerUrl), capabilities);
+
+                long sessionStart = System.currentTimeMillis();
+                appiumDriver = new IOSDriver(new InstrumentedCommandExecutor(HttpTransport.clientConfig(appiumServerUrl)), capabilities);
+                startupProfile.record(StartupProfile.SESSION_CREATE, System.currentTimeMillis() - sessionStart);
             } else {
                 throw new IllegalArgumentException("Invalid platform name: " + platformName);
             }
-            
-            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
-            logger.info("Driver initialized successfully for platform: " + platformName);
-            return driver;
-            
+
+            try {
+                startupProfile.addServerEvents(appiumDriver.getEvents());
+            } catch (Exception e) {
+                logger.debug("Server event timings unavailable: {}", e.getMessage());
+            }
+
+            if (mjpeg) {
+                startScreenStream(appiumDriver, appiumServerUrl, targetDevice);
+            }
+            if (DeviceLogs.isEnabled() && appiumDriver instanceof AndroidDriver) {
+                DeviceLogs.start(appiumDriver, targetDevice);
+            }
+
+            // Waiting is done by WaitEngine; an implicit wait would multiply with its polling
+            long waitStart = System.currentTimeMillis();
+            appiumDriver.manage().timeouts().implicitlyWait(Duration.ZERO);
+            startupProfile.record(StartupProfile.FIRST_IMPLICIT_WAIT, System.currentTimeMillis() - waitStart);
+            StartupProfiler.record(startupProfile);
+            logger.info("Driver initialized successfully for platform: {} on device {}", platformName, targetDevice);
+            return appiumDriver;
+
         } catch (Exception e) {
             logger.error("Failed to initialize driver", e);
             throw new RuntimeException("Failed to initialize driver", e);
         }
     }
-    
+
+    /**
+     * Tune the session's MJPEG server and attach a stream source reading it. The driver forwards the
+     * device's MJPEG port to the same port on the Appium server host.
+     */
+    private static void startScreenStream(AppiumDriver appiumDriver, URL appiumServerUrl, Device targetDevice) {
+        try {
+            Map<String, Object> settings = new HashMap<>();
+            settings.put("mjpegScalingFactor", Integer.parseInt(getProperty("mjpeg.scaling.factor", "50")));
+            settings.put("mjpegServerFramerate", Integer.parseInt(getProperty("mjpeg.framerate", "10")));
+            settings.put("mjpegServerScreenshotQuality", Integer.parseInt(getProperty("mjpeg.quality", "50")));
+            ((HasSettings) appiumDriver).setSettings(settings);
+        } catch (Exception e) {
+            logger.debug("MJPEG server settings not applied: {}", e.getMessage());
+        }
+        try {
+            URL streamUrl = new URL("http", appiumServerUrl.getHost(), targetDevice.getMjpegPort(), "/");
+            long maxFrameAge = Long.parseLong(getProperty("mjpeg.max.frame.age", "1000"));
+            ScreenshotSources.register(appiumDriver, new MjpegScreenshotSource(targetDevice.getUdid(),
+                    MjpegScreenshotSource.forUrl(streamUrl), maxFrameAge));
+            logger.info("Screen stream for {} at {}", targetDevice.getUdid(), streamUrl);
+        } catch (IOException e) {
+            logger.warn("Screen stream unavailable for {}, using screenshot commands: {}", targetDevice, e.getMessage());
+        }
+    }
+
+    /**
+     * Bind an existing session to the current thread
+     * @param appiumDriver Session to bind
+     * @param sessionDevice Device the session runs on
+     */
+    public static void bindSession(AppiumDriver appiumDriver, Device sessionDevice) {
+        driver.set(appiumDriver);
+        device.set(sessionDevice);
+    }
+
+    /**
+     * Detach the current thread's session without quitting it or releasing its device
+     */
+    public static void unbindSession() {
+        driver.remove();
+        device.remove();
+    }
+
     /**
-     * Get the current driver instance
+     * Get the driver instance bound to the current thread
      * @return AppiumDriver instance
      */
     public static AppiumDriver getDriver() {
-        if (driver == null) {
+        AppiumDriver current = driver.get();
+        if (current == null) {
             throw new IllegalStateException("Driver has not been initialized. Call initializeDriver() first.");
         }
-        return driver;
+        return current;
     }
-    
+
     /**
-     * Quit the driver instance
+     * Check whether the current thread holds a session
+     * @return true if a driver is bound to the current thread
+     */
+    public static boolean hasDriver() {
+        return driver.get() != null;
+    }
+
+    /**
+     * Get the device leased by the current thread
+     * @return Device instance, or null if the thread holds no session
+     */
+    public static Device getDevice() {
+        return device.get();
+    }
+
+    /**
+     * Quit the driver bound to the current thread and return its device to the pool
      */
     public static void quitDriver() {
-        if (driver != null) {
-            driver.quit();
-            driver = null;
-            logger.info("Driver quit successfully");
+        AppiumDriver current = driver.get();
+        Device leasedDevice = device.get();
+        driver.remove();
+        device.remove();
+        try {
+            if (current != null) {
+                ScreenshotSources.close(current);
+                DeviceLogs.close(current);
+                current.quit();
+                logger.info("Driver quit successfully");
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to quit driver cleanly: {}", e.getMessage());
+        } finally {
+            DevicePool.getInstance().release(leasedDevice);
         }
     }
-    
+
+    /**
+     * Read a configuration value. System properties (-Dkey=value) take precedence
+     * over config.properties so a single run can be tuned from the command line.
+     * @param key Property name
+     * @param defaultValue Value returned when the property is not set
+     * @return Property value
+     */
+    public static String getProperty(String key, String defaultValue) {
+        String override = System.getProperty(key);
+        if (override != null) {
+            return override;
+        }
+        return getConfig().getProperty(key, defaultValue);
+    }
+
+    /**
+     * Get the loaded configuration, reading config.properties on first use
+     * @return Properties instance
+     */
+    public static synchronized Properties getConfig() {
+        if (config == null) {
+            loadConfig();
+        }
+        return config;
+    }
+
     /**
      * Load configuration from properties file
      */
     private static void loadConfig() {
-        config = new Properties();
-        try {
-            FileInputStream fis = new FileInputStream("src/test/resources/config.properties");
-            config.load(fis);
-            fis.close();
+        Properties properties = new Properties();
+        try (FileInputStream fis = new FileInputStream("src/test/resources/config.properties")) {
+            properties.load(fis);
+            config = properties;
         } catch (IOException e) {
             logger.error("Failed to load config.properties", e);
             throw new RuntimeException("Failed to load config.properties", e);
         }
     }
-} 
\ No newline at end of file
+}
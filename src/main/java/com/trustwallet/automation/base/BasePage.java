@@ -4,19 +4,23 @@ import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.pagefactory.AppiumFieldDecorator;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.support.PageFactory;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.time.Duration;
 
+/**
+ * Common page object methods. All waiting goes through {@link WaitEngine}: sessions run with a
+ * zero implicit wait, so "is it there?" checks answer in one round trip and "wait for it" calls
+ * poll against a single deadline.
+ */
 public class BasePage {
     protected AppiumDriver driver;
-    protected WebDriverWait wait;
+    protected WaitEngine waits;
+    private boolean stepRecorded;
     private static final Logger logger = LogManager.getLogger(BasePage.class);
-    private static final int DEFAULT_WAIT_SECONDS = 15;
 
     /**
      * Constructor to initialize the page with AppiumDriver
@@ -24,9 +28,9 @@ public class BasePage {
      */
     public BasePage(AppiumDriver driver) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(DEFAULT_WAIT_SECONDS));
+        this.waits = new WaitEngine(driver);
         PageFactory.initElements(new AppiumFieldDecorator(driver), this);
-        logger.debug("BasePage initialized with driver: " + driver);
+        logger.debug("BasePage initialized with driver: {}", driver);
     }
 
     /**
@@ -35,7 +39,25 @@ public class BasePage {
      */
     protected void click(WebElement element) {
         waitForClickability(element).click();
-        logger.debug("Clicked on element: " + element);
+        logger.debug("Clicked on element: {}", element);
+    }
+
+    /**
+     * Click on an element as soon as it is clickable
+     * @param locator By locator of the element to click
+     */
+    protected void click(By locator) {
+        reached(waits.forClickability(locator, waits.getDefaultTimeout())).click();
+        logger.debug("Clicked on element: {}", locator);
+    }
+
+    /**
+     * Click an element already found clickable by {@link #waitForFirstClickable}, without waiting for it again
+     * @param match Element and the alternative locator that found it
+     */
+    protected void click(LocatorMatch match) {
+        match.getElement().click();
+        logger.debug("Clicked on element: {}", match.getLocator());
     }
 
     /**
@@ -46,7 +68,7 @@ public class BasePage {
     protected void sendKeys(WebElement element, String text) {
         waitForVisibility(element).clear();
         element.sendKeys(text);
-        logger.debug("Entered text '" + text + "' in element: " + element);
+        logger.debug("Entered text '{}' in element: {}", text, element);
     }
 
     /**
@@ -56,7 +78,7 @@ public class BasePage {
      */
     protected String getText(WebElement element) {
         String text = waitForVisibility(element).getText();
-        logger.debug("Got text '" + text + "' from element: " + element);
+        logger.debug("Got text '{}' from element: {}", text, element);
         return text;
     }
 
@@ -69,22 +91,22 @@ public class BasePage {
     protected boolean isElementDisplayed(WebElement element) {
         try {
             boolean isDisplayed = element.isDisplayed();
-            logger.debug("Element " + element + " is displayed: " + isDisplayed);
+            logger.debug("Element {} is displayed: {}", element, isDisplayed);
             return isDisplayed;
         } catch (Exception e) {
-            logger.debug("Element " + element + " is not displayed");
+            logger.debug("Element {} is not displayed", element);
             return false;
         }
     }
 
     /**
-     * Find element by locator
+     * Find element by locator, waiting for it to exist
      * @param locator By locator
      * @return WebElement
      */
     protected WebElement findElement(By locator) {
-        logger.debug("Finding element by locator: " + locator);
-        return driver.findElement(locator);
+        logger.debug("Finding element by locator: {}", locator);
+        return reached(waits.forPresence(locator, waits.getDefaultTimeout()));
     }
 
     /**
@@ -93,8 +115,8 @@ public class BasePage {
      * @return WebElement once it's visible
      */
     protected WebElement waitForVisibility(WebElement element) {
-        logger.debug("Waiting for element visibility: " + element);
-        return wait.until(ExpectedConditions.visibilityOf(element));
+        logger.debug("Waiting for element visibility: {}", element);
+        return reached(waits.forVisibility(element, waits.getDefaultTimeout()));
     }
 
     /**
@@ -113,9 +135,8 @@ public class BasePage {
      * @return WebElement once it's visible
      */
     protected WebElement waitForVisibility(WebElement element, int timeoutInSeconds) {
-        WebDriverWait customWait = new WebDriverWait(driver, Duration.ofSeconds(timeoutInSeconds));
-        logger.debug("Waiting for element visibility with timeout " + timeoutInSeconds + " seconds: " + element);
-        return customWait.until(ExpectedConditions.visibilityOf(element));
+        logger.debug("Waiting for element visibility with timeout {} seconds: {}", timeoutInSeconds, element);
+        return reached(waits.forVisibility(element, Duration.ofSeconds(timeoutInSeconds)));
     }
 
     /**
@@ -124,8 +145,8 @@ public class BasePage {
      * @return WebElement once it's clickable
      */
     protected WebElement waitForClickability(WebElement element) {
-        logger.debug("Waiting for element clickability: " + element);
-        return wait.until(ExpectedConditions.elementToBeClickable(element));
+        logger.debug("Waiting for element clickability: {}", element);
+        return reached(waits.forClickability(element, waits.getDefaultTimeout()));
     }
 
     /**
@@ -138,40 +159,150 @@ public class BasePage {
     }
 
     /**
-     * Check if element is present without waiting
+     * Check if element is present without waiting (one round trip)
      * @param locator By locator to find element
      * @return true if element is present, false otherwise
      */
     protected boolean isElementPresent(By locator) {
         try {
-            driver.findElement(locator);
-            return true;
+            return waits.isPresent(locator);
         } catch (Exception e) {
             return false;
         }
     }
 
     /**
-     * Find element if visible, returns null otherwise
+     * Find element if it is visible right now, without waiting
      * @param locator By locator to find element
      * @return WebElement if visible, null otherwise
      */
     protected WebElement findElementIfVisible(By locator) {
         try {
-            return waitForElementToBeVisible(locator);
+            WebElement element = waits.findNow(locator);
+            return element != null && element.isDisplayed() ? element : null;
         } catch (Exception e) {
             return null;
         }
     }
 
+    /**
+     * Find element if it becomes visible within the timeout
+     * @param locator By locator to find element
+     * @param timeout Maximum time to wait
+     * @return WebElement if visible, null otherwise
+     */
+    protected WebElement findElementIfVisible(By locator, Duration timeout) {
+        try {
+            return reached(waits.forVisibility(locator, timeout));
+        } catch (TimeoutException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Wait until any of the locators matches a displayed element
+     * @param timeout Maximum time to wait
+     * @param locators Alternatives, all probed on every poll
+     * @return true if one became visible, false otherwise
+     */
+    protected boolean waitForAnyVisible(Duration timeout, By... locators) {
+        try {
+            // Several alternatives cost one page source fetch per poll instead of one find each
+            return reached(waits.forAnyVisible(timeout, locators));
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Wait for the first of several alternative locators to find a clickable element, probing all of them
+     * in every polling cycle. Statistics are kept per group so later runs try the fastest alternative first.
+     * @param group Group name, unique within the page
+     * @param timeout Maximum time to wait
+     * @param alternatives Locators for the same element, in order of preference
+     * @return The element and which alternative found it
+     */
+    protected LocatorMatch waitForFirstClickable(String group, Duration timeout, By... alternatives) {
+        LocatorMatch match = reached(waits.forFirstClickable(groupKey(group), timeout, alternatives));
+        logger.debug("{} resolved by {}", group, match);
+        return match;
+    }
+
+    /**
+     * Wait with the default timeout for the first of several alternative locators to find a clickable element
+     * @see #waitForFirstClickable(String, Duration, By...)
+     */
+    protected LocatorMatch waitForFirstClickable(String group, By... alternatives) {
+        return waitForFirstClickable(group, waits.getDefaultTimeout(), alternatives);
+    }
+
+    /**
+     * Wait for the first of several alternative locators to find a visible element
+     * @param group Group name, unique within the page
+     * @param timeout Maximum time to wait
+     * @param alternatives Locators for the same element, in order of preference
+     * @return The element and which alternative found it
+     */
+    protected LocatorMatch waitForFirstVisible(String group, Duration timeout, By... alternatives) {
+        LocatorMatch match = reached(waits.forFirstVisible(groupKey(group), timeout, alternatives));
+        logger.debug("{} resolved by {}", group, match);
+        return match;
+    }
+
+    /**
+     * Record the page's step frame the first time one of its waits succeeds, i.e. once the page is on screen;
+     * at construction the previous screen is usually still showing
+     * @param found What the wait returned
+     * @return found, unchanged
+     */
+    private <T> T reached(T found) {
+        if (!stepRecorded && found != null) {
+            stepRecorded = true;
+            ScreenshotSources.recordStep(driver, getClass().getSimpleName());
+        }
+        return found;
+    }
+
+    private String groupKey(String group) {
+        return getClass().getSimpleName() + "." + group;
+    }
+
+    /**
+     * Fetch the UI hierarchy once so several locators or texts can be checked locally
+     * @return HierarchySnapshot of the current screen
+     */
+    protected HierarchySnapshot snapshot() {
+        return HierarchySnapshot.capture(driver);
+    }
+
+    /**
+     * Wait until nothing matching the locator is displayed; returns in one round trip if it is already gone
+     * @param locator By locator to find element
+     * @param timeout Maximum time to wait
+     * @return true if the element is gone, false if still displayed at the deadline
+     */
+    protected boolean waitForAbsence(By locator, Duration timeout) {
+        return waits.forAbsence(locator, timeout);
+    }
+
     /**
      * Wait for element to be visible (By locator version)
      * @param locator By locator to find element
      * @return WebElement once it's visible
      */
     protected WebElement waitForElementToBeVisible(By locator) {
-        logger.debug("Waiting for element visibility by locator: " + locator);
-        return wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+        return waitForElementToBeVisible(locator, waits.getDefaultTimeout());
+    }
+
+    /**
+     * Wait for element to be visible with custom timeout (By locator version)
+     * @param locator By locator to find element
+     * @param timeout Maximum time to wait
+     * @return WebElement once it's visible
+     */
+    protected WebElement waitForElementToBeVisible(By locator, Duration timeout) {
+        logger.debug("Waiting for element visibility by locator: {}", locator);
+        return reached(waits.forVisibility(locator, timeout));
     }
 
     /**
@@ -180,7 +311,17 @@ public class BasePage {
      * @return WebElement once it's clickable
      */
     protected WebElement waitForElementToBeClickable(By locator) {
-        logger.debug("Waiting for element clickability by locator: " + locator);
-        return wait.until(ExpectedConditions.elementToBeClickable(locator));
+        return waitForElementToBeClickable(locator, waits.getDefaultTimeout());
+    }
+
+    /**
+     * Wait for element to be clickable with custom timeout (By locator version)
+     * @param locator By locator to find element
+     * @param timeout Maximum time to wait
+     * @return WebElement once it's clickable
+     */
+    protected WebElement waitForElementToBeClickable(By locator, Duration timeout) {
+        logger.debug("Waiting for element clickability by locator: {}", locator);
+        return reached(waits.forClickability(locator, timeout));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.trustwallet.automation.base;
+
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+/**
+ * Named sets of startup capabilities, selected per run with capability.profile.
+ * FULL keeps Appium's defaults. FAST skips work that only needs doing once per device:
+ * reinstalling the UiAutomator2 server, device initialization, window animations and
+ * reinstalling an app that is already at the same version.
+ * FAST expects the device to have had at least one FULL session since it was wiped.
+ */
+public enum CapabilityProfile {
+    FULL,
+    FAST;
+
+    /**
+     * Parse the configured profile, defaulting to FULL
+     * @param value Value from config.properties
+     * @return CapabilityProfile
+     */
+    public static CapabilityProfile fromConfig(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return FULL;
+        }
+        return CapabilityProfile.valueOf(value.trim().toUpperCase());
+    }
+
+    /**
+     * Add this profile's capabilities on top of the base capabilities
+     * @param capabilities Capabilities being built for a new session
+     * @param platformName Android or iOS
+     */
+    public void apply(DesiredCapabilities capabilities, String platformName) {
+        if (this == FULL) {
+            return;
+        }
+        if (platformName.equalsIgnoreCase("Android")) {
+            capabilities.setCapability("skipServerInstallation", true);
+            capabilities.setCapability("skipDeviceInitialization", true);
+            capabilities.setCapability("disableWindowAnimation", true);
+            capabilities.setCapability("enforceAppInstall", false);
+            capabilities.setCapability("skipUnlock", true);
+            capabilities.setCapability("ignoreHiddenApiPolicyError", true);
+        } else {
+            capabilities.setCapability("usePrebuiltWDA", true);
+            capabilities.setCapability("reduceMotion", true);
+            capabilities.setCapability("enforceAppInstall", false);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.trustwallet.automation.base;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records a {@link LatencyHistogram} per WebDriver command, overall, per page class and per test.
+ * The page is the first page object on the calling stack; the test is whatever the test listener
+ * set for the current thread. Histograms are written to test-output/command-latency.json at the
+ * end of the run.
+ */
+public class CommandLatencyRecorder implements CommandListener {
+    private static final Logger logger = LogManager.getLogger(CommandLatencyRecorder.class);
+    private static final String LATENCY_FILE = "test-output/command-latency.json";
+    private static final String PAGES_PACKAGE = "com.trustwallet.automation.pages.";
+    private static final String NO_PAGE = "(no page)";
+    private static final String NO_TEST = "(setup)";
+    private static final CommandLatencyRecorder instance = new CommandLatencyRecorder();
+    private static final StackWalker stackWalker = StackWalker.getInstance();
+
+    private final Map<String, LatencyHistogram> byCommand = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, LatencyHistogram>> byPage = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, LatencyHistogram>> byTest = new ConcurrentHashMap<>();
+    private final ThreadLocal<String> currentTest = new ThreadLocal<>();
+
+    /**
+     * @return The shared recorder
+     */
+    public static CommandLatencyRecorder getInstance() {
+        return instance;
+    }
+
+    /**
+     * Attribute commands sent from the current thread to a test
+     * @param testName Test name, or null to stop attributing
+     */
+    public void setCurrentTest(String testName) {
+        if (testName == null) {
+            currentTest.remove();
+        } else {
+            currentTest.set(testName);
+        }
+    }
+
+    @Override
+    public void onCommand(CommandTiming timing) {
+        String command = timing.getCommandName();
+        long nanos = timing.getTotalNanos();
+        histogram(byCommand, command).recordNanos(nanos);
+        histogram(group(byPage, currentPage()), command).recordNanos(nanos);
+        String test = currentTest.get();
+        histogram(group(byTest, test != null ? test : NO_TEST), command).recordNanos(nanos);
+    }
+
+    /**
+     * @return Overall histogram per command name, sorted by name
+     */
+    public Map<String, LatencyHistogram> getCommandHistograms() {
+        return new TreeMap<>(byCommand);
+    }
+
+    /**
+     * Round trips and time spent in WebDriver commands by one test
+     * @param testName Test name passed to {@link #setCurrentTest(String)}
+     * @return e.g. "42 round trips, 8.31 s"
+     */
+    public String getTestSummary(String testName) {
+        Map<String, LatencyHistogram> histograms = byTest.get(testName);
+        if (histograms == null) {
+            return "0 round trips";
+        }
+        long count = histograms.values().stream().mapToLong(LatencyHistogram::getCount).sum();
+        double millis = histograms.values().stream().mapToDouble(LatencyHistogram::getTotalMillis).sum();
+        return String.format("%d round trips, %.2f s", count, millis / 1000.0);
+    }
+
+    /**
+     * Write all histograms as JSON
+     * @return The file written, or null if writing failed
+     */
+    public File writeJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("commands", toJson(byCommand));
+        Map<String, Object> pages = new TreeMap<>();
+        byPage.forEach((page, histograms) -> pages.put(page, toJson(histograms)));
+        json.put("pages", pages);
+        Map<String, Object> tests = new TreeMap<>();
+        byTest.forEach((test, histograms) -> tests.put(test, toJson(histograms)));
+        json.put("tests", tests);
+
+        File file = new File(LATENCY_FILE);
+        file.getParentFile().mkdirs();
+        try {
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, json);
+            logger.info("Command latency histograms written to {}", file.getAbsolutePath());
+            return file;
+        } catch (IOException e) {
+            logger.warn("Failed to write command latency histograms: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static Map<String, Object> toJson(Map<String, LatencyHistogram> histograms) {
+        Map<String, Object> json = new TreeMap<>();
+        histograms.forEach((command, histogram) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", histogram.getCount());
+            stats.put("totalMs", round(histogram.getTotalMillis()));
+            stats.put("meanMs", round(histogram.getMeanMillis()));
+            stats.put("p50Ms", round(histogram.getPercentileMillis(50)));
+            stats.put("p90Ms", round(histogram.getPercentileMillis(90)));
+            stats.put("p99Ms", round(histogram.getPercentileMillis(99)));
+            stats.put("maxMs", round(histogram.getMaxMillis()));
+            json.put(command, stats);
+        });
+        return json;
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 100) / 100.0;
+    }
+
+    private static String currentPage() {
+        Optional<String> page = stackWalker.walk(frames -> frames
+                .map(StackWalker.StackFrame::getClassName)
+                .filter(className -> className.startsWith(PAGES_PACKAGE))
+                .findFirst());
+        return page.map(className -> className.substring(PAGES_PACKAGE.length())).orElse(NO_PAGE);
+    }
+
+    private static Map<String, LatencyHistogram> group(Map<String, Map<String, LatencyHistogram>> groups, String key) {
+        Map<String, LatencyHistogram> group = groups.get(key);
+        return group != null ? group : groups.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+    }
+
+    private static LatencyHistogram histogram(Map<String, LatencyHistogram> histograms, String command) {
+        LatencyHistogram histogram = histograms.get(command);
+        return histogram != null ? histogram : histograms.computeIfAbsent(command, k -> new LatencyHistogram());
+    }
+}
@@ -0,0 +1,14 @@
+package com.trustwallet.automation.base;
+
+/**
+ * Notified on the calling thread after every WebDriver command sent by an
+ * {@link InstrumentedCommandExecutor}. Implementations must be cheap and thread-safe:
+ * they run on every round trip of every parallel session.
+ */
+public interface CommandListener {
+
+    /**
+     * @param timing Command name and latency breakdown
+     */
+    void onCommand(CommandTiming timing);
+}
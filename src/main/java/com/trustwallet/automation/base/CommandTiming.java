@@ -0,0 +1,66 @@
+package com.trustwallet.automation.base;
+
+import org.openqa.selenium.remote.SessionId;
+
+/**
+ * Latency of one WebDriver command split into the client and network parts of the round trip:
+ * serialization (command to HTTP request), network wait (request sent until response received)
+ * and parsing (HTTP response to Response object). All values are in nanoseconds.
+ */
+public class CommandTiming {
+    private final SessionId sessionId;
+    private final String commandName;
+    private final long serializeNanos;
+    private final long networkNanos;
+    private final long parseNanos;
+    private final long totalNanos;
+    private final boolean failed;
+
+    public CommandTiming(SessionId sessionId, String commandName, long serializeNanos, long networkNanos,
+                         long parseNanos, long totalNanos, boolean failed) {
+        this.sessionId = sessionId;
+        this.commandName = commandName;
+        this.serializeNanos = serializeNanos;
+        this.networkNanos = networkNanos;
+        this.parseNanos = parseNanos;
+        this.totalNanos = totalNanos;
+        this.failed = failed;
+    }
+
+    /**
+     * @return Session the command was sent to, null for newSession
+     */
+    public SessionId getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * @return WebDriver command name, e.g. findElement, clickElement, screenshot
+     */
+    public String getCommandName() {
+        return commandName;
+    }
+
+    public long getSerializeNanos() {
+        return serializeNanos;
+    }
+
+    public long getNetworkNanos() {
+        return networkNanos;
+    }
+
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return true if the command threw, e.g. NoSuchElementException
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+}
@@ -0,0 +1,56 @@
+package com.trustwallet.automation.base;
+
+/**
+ * A single device (emulator or real device) that can host one Appium session at a time.
+ * Every device gets its own UiAutomator2/WDA port so that parallel sessions never collide.
+ */
+public class Device {
+    private final String udid;
+    private final int index;
+    private final int systemPort;
+    private final int mjpegPort;
+
+    public Device(String udid, int index, int systemPort) {
+        this(udid, index, systemPort, -1);
+    }
+
+    public Device(String udid, int index, int systemPort, int mjpegPort) {
+        this.udid = udid;
+        this.index = index;
+        this.systemPort = systemPort;
+        this.mjpegPort = mjpegPort;
+    }
+
+    /**
+     * @return The device UDID as reported by adb/xcrun
+     */
+    public String getUdid() {
+        return udid;
+    }
+
+    /**
+     * @return Zero-based position of the device in the configured pool
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return Local port used by the UiAutomator2 server (or WDA on iOS) for this device
+     */
+    public int getSystemPort() {
+        return systemPort;
+    }
+
+    /**
+     * @return Local port of the device's MJPEG screen stream, or -1 if none is assigned
+     */
+    public int getMjpegPort() {
+        return mjpegPort;
+    }
+
+    @Override
+    public String toString() {
+        return udid + " (systemPort " + systemPort + ")";
+    }
+}
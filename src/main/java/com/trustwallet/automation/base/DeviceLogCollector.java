@@ -0,0 +1,266 @@
+package com.trustwallet.automation.base;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects one session's device log in the background. A daemon thread reads the {@link DeviceLogSource},
+ * parses each line as it arrives and keeps the app's lines in a ring of at most maxLines, each stamped with
+ * the time it was read. A line belongs to the app if it comes from one of the app's processes or mentions the
+ * package. The processes already running are looked up when reading starts (the app is usually up by then,
+ * e.g. in a reused session); later ones are learned from "Start proc" and crash lines. Test threads only ever
+ * ask for a window, which is cut from the ring in the background once the lines after it have had time to arrive.
+ */
+public class DeviceLogCollector implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(DeviceLogCollector.class);
+    private static final int MAX_APP_PIDS = 16;
+
+    /**
+     * Looks up the process ids an app is running under right now
+     */
+    public interface PidLookup {
+        Collection<Integer> find(String appPackage) throws Exception;
+    }
+
+    private final String name;
+    private final DeviceLogSource source;
+    private final PidLookup pidLookup;
+    private final String appPackage;
+    private final long settleMillis;
+    private final LineRing ring;
+    private final AtomicLong linesRead = new AtomicLong();
+    private final AtomicLong linesKept = new AtomicLong();
+    private volatile boolean running;
+    private Thread reader;
+
+    // Only touched by the reader thread
+    private final Set<Integer> appPids = new LinkedHashSet<>();
+
+    /**
+     * @param name Name of the reader thread, e.g. the device UDID
+     * @param source Device log to read
+     * @param appPackage Package whose lines are kept, or null/blank to keep every line
+     * @param maxLines Lines kept in memory; the oldest are dropped first
+     * @param settleMillis How long after a window's end lines can take to be read, e.g. the source's poll interval
+     */
+    public DeviceLogCollector(String name, DeviceLogSource source, String appPackage, int maxLines, long settleMillis) {
+        this(name, source, null, appPackage, maxLines, settleMillis);
+    }
+
+    /**
+     * @param name Name of the reader thread, e.g. the device UDID
+     * @param source Device log to read
+     * @param pidLookup Finds the app's running processes before reading starts, or null to only learn them from the log
+     * @param appPackage Package whose lines are kept, or null/blank to keep every line
+     * @param maxLines Lines kept in memory; the oldest are dropped first
+     * @param settleMillis How long after a window's end lines can take to be read, e.g. the source's poll interval
+     */
+    public DeviceLogCollector(String name, DeviceLogSource source, PidLookup pidLookup, String appPackage,
+                              int maxLines, long settleMillis) {
+        this.name = name;
+        this.source = source;
+        this.pidLookup = pidLookup;
+        this.appPackage = appPackage == null || appPackage.trim().isEmpty() ? null : appPackage.trim();
+        this.settleMillis = settleMillis;
+        this.ring = new LineRing(maxLines);
+    }
+
+    /**
+     * Start reading on a daemon thread
+     */
+    public synchronized void start() {
+        if (reader != null) {
+            return;
+        }
+        running = true;
+        reader = new Thread(() -> {
+            try {
+                findRunningPids();
+                source.stream(this::accept);
+            } catch (Exception e) {
+                logger.warn("Device log of {} stopped: {}", name, e.getMessage());
+            } finally {
+                running = false;
+            }
+        }, "device-log-" + name);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Cut the app's lines read between two times out of the buffer, without waiting for them. The source is
+     * flushed now and at the window's end; the window is cut settleMillis after that and includes the lines
+     * read meanwhile, since a line is only stamped when it is read.
+     * @param fromMillis Window start (epoch millis)
+     * @param toMillis Window end (epoch millis)
+     * @return Completes with the lines, oldest first
+     */
+    public CompletableFuture<List<String>> capture(long fromMillis, long toMillis) {
+        source.flush();
+        long untilEnd = Math.max(0, toMillis - System.currentTimeMillis());
+        Executor atEnd = CompletableFuture.delayedExecutor(untilEnd, TimeUnit.MILLISECONDS);
+        long settle = running ? settleMillis : 0;
+        return CompletableFuture.runAsync(source::flush, atEnd)
+                .thenApplyAsync(ignored -> ring.snapshot(fromMillis, toMillis + settle),
+                        CompletableFuture.delayedExecutor(settle, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Stop reading; lines already read stay available to {@link #capture(long, long)}
+     */
+    @Override
+    public void close() {
+        source.close();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getLinesRead() {
+        return linesRead.get();
+    }
+
+    public long getLinesKept() {
+        return linesKept.get();
+    }
+
+    /**
+     * @return App lines dropped from the buffer to make room for newer ones
+     */
+    public long getDropped() {
+        return ring.getDropped();
+    }
+
+    /**
+     * @return App lines currently buffered
+     */
+    public int size() {
+        return ring.size();
+    }
+
+    private void accept(String line) {
+        linesRead.incrementAndGet();
+        if (appPackage != null) {
+            LogcatLine parsed = LogcatLine.parse(line);
+            if (parsed == null) {
+                return;
+            }
+            learnPid(parsed);
+            if (!appPids.contains(parsed.getPid()) && !parsed.getMessage().contains(appPackage)) {
+                return;
+            }
+        }
+        ring.add(System.currentTimeMillis(), line);
+        linesKept.incrementAndGet();
+    }
+
+    private void findRunningPids() {
+        if (pidLookup == null || appPackage == null) {
+            return;
+        }
+        try {
+            Collection<Integer> pids = pidLookup.find(appPackage);
+            pids.forEach(this::addPid);
+            logger.debug("{} runs as pid(s) {} on {}", appPackage, pids, name);
+        } catch (Exception e) {
+            logger.warn("Could not look up the running pid of {} on {}, its lines are kept from its next start: {}",
+                    appPackage, name, e.getMessage());
+        }
+    }
+
+    /**
+     * Pick up the app's process ids from "Start proc 4321:com.example/u0a150 for ..." (ActivityManager)
+     * and "Process: com.example, PID: 4321" (AndroidRuntime crash report)
+     */
+    private void learnPid(LogcatLine line) {
+        String message = line.getMessage();
+        int pid = -1;
+        if (message.startsWith("Start proc ")) {
+            int colon = message.indexOf(':', 11);
+            if (colon > 11 && message.startsWith(appPackage, colon + 1)) {
+                pid = parsePid(message.substring(11, colon));
+            }
+        } else if (message.startsWith("Process: " + appPackage + ",")) {
+            int index = message.indexOf("PID: ");
+            if (index > 0) {
+                pid = parsePid(message.substring(index + 5));
+            }
+        }
+        addPid(pid);
+    }
+
+    private void addPid(int pid) {
+        if (pid > 0 && appPids.add(pid) && appPids.size() > MAX_APP_PIDS) {
+            Iterator<Integer> oldest = appPids.iterator();
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    private static int parsePid(String text) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Fixed-size ring of lines with the time each was read
+     */
+    private static final class LineRing {
+        private final long[] times;
+        private final String[] lines;
+        private int next;
+        private int size;
+        private long dropped;
+
+        LineRing(int capacity) {
+            times = new long[Math.max(1, capacity)];
+            lines = new String[times.length];
+        }
+
+        synchronized void add(long timeMillis, String line) {
+            if (size == lines.length) {
+                dropped++;
+            } else {
+                size++;
+            }
+            times[next] = timeMillis;
+            lines[next] = line;
+            next = (next + 1) % lines.length;
+        }
+
+        synchronized List<String> snapshot(long fromMillis, long toMillis) {
+            List<String> window = new ArrayList<>();
+            int oldest = (next - size + lines.length) % lines.length;
+            for (int i = 0; i < size; i++) {
+                int index = (oldest + i) % lines.length;
+                if (times[index] >= fromMillis && times[index] <= toMillis) {
+                    window.add(lines[index]);
+                }
+            }
+            return window;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long getDropped() {
+            return dropped;
+        }
+    }
+}
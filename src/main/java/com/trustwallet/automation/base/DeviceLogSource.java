@@ -0,0 +1,27 @@
+package com.trustwallet.automation.base;
+
+import java.util.function.Consumer;
+
+/**
+ * A device's log (logcat in threadtime format) as a stream of lines
+ */
+public interface DeviceLogSource extends AutoCloseable {
+
+    /**
+     * Deliver lines, oldest first, until the source ends or is closed. Runs on the collector's thread.
+     * @param sink Receives each line
+     */
+    void stream(Consumer<String> sink) throws Exception;
+
+    /**
+     * Deliver whatever is pending as soon as possible instead of at the next regular read
+     */
+    default void flush() {
+    }
+
+    /**
+     * Stop delivering lines; {@link #stream(Consumer)} returns soon after
+     */
+    @Override
+    void close();
+}
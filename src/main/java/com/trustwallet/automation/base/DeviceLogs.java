@@ -0,0 +1,213 @@
+package com.trustwallet.automation.base;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Device log collector per session. With logcat.capture=true, {@link BaseDriver} starts a
+ * {@link DeviceLogCollector} for every new Android session, reading the driver's "logcat" log every
+ * logcat.poll.interval ms (logcat.source=driver) or following adb logcat (logcat.source=adb). Only
+ * android.app.package's lines are kept, at most logcat.buffer.lines per session; the app's running process is
+ * looked up with adb shell pidof, or mobile: shell where the server allows adb_shell. When a test fails the
+ * lines from logcat.window.before seconds before the failure to logcat.window.after seconds after it are
+ * written to logs/device/ in the background.
+ */
+public class DeviceLogs {
+    private static final Logger logger = LogManager.getLogger(DeviceLogs.class);
+    private static final String DIRECTORY = "logs/device/";
+
+    /**
+     * Where collectors read the device log from
+     */
+    public enum Source {
+        DRIVER,
+        ADB;
+
+        public static Source fromConfig(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return DRIVER;
+            }
+            return Source.valueOf(value.trim().toUpperCase());
+        }
+    }
+
+    private static final boolean enabled = Boolean.parseBoolean(BaseDriver.getProperty("logcat.capture", "true"));
+    private static final Source source = Source.fromConfig(BaseDriver.getProperty("logcat.source", "driver"));
+    private static final long pollMillis = Long.parseLong(BaseDriver.getProperty("logcat.poll.interval", "2000"));
+    private static final int maxLines = Integer.parseInt(BaseDriver.getProperty("logcat.buffer.lines", "10000"));
+    private static final long beforeMillis = (long) (Double.parseDouble(
+            BaseDriver.getProperty("logcat.window.before", "30")) * 1000);
+    private static final long afterMillis = (long) (Double.parseDouble(
+            BaseDriver.getProperty("logcat.window.after", "2")) * 1000);
+
+    private static final Map<WebDriver, DeviceLogCollector> collectors = new ConcurrentHashMap<>();
+    private static final PendingFiles pending = new PendingFiles();
+    private static final LongAdder closedLinesRead = new LongAdder();
+    private static final LongAdder closedLinesKept = new LongAdder();
+    private static final LongAdder saved = new LongAdder();
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start collecting an Android session's device log
+     * @param driver New session
+     * @param device Device the session runs on
+     */
+    public static void start(WebDriver driver, Device device) {
+        DeviceLogSource logSource = source == Source.ADB
+                ? StreamDeviceLogSource.forAdb(device.getUdid())
+                : PollingDeviceLogSource.forDriver(driver, pollMillis);
+        long settleMillis = source == Source.ADB ? 500 : pollMillis + 500;
+        register(driver, new DeviceLogCollector(device.getUdid(), logSource, pidLookup(driver, device.getUdid()),
+                BaseDriver.getProperty("android.app.package", null), maxLines, settleMillis));
+        logger.info("Collecting device log of {} ({})", device.getUdid(), source.name().toLowerCase());
+    }
+
+    /**
+     * Attach a collector to a session, replacing and closing any previous one, and start it
+     * @param driver Session the collector reads
+     * @param collector Collector to use for the session's failures
+     */
+    public static void register(WebDriver driver, DeviceLogCollector collector) {
+        DeviceLogCollector previous = collectors.put(driver, collector);
+        if (previous != null) {
+            retire(previous);
+        }
+        collector.start();
+    }
+
+    /**
+     * Stop the session's collector; called before the session quits
+     * @param driver Session being quit
+     */
+    public static void close(WebDriver driver) {
+        DeviceLogCollector collector = driver != null ? collectors.remove(driver) : null;
+        if (collector != null) {
+            retire(collector);
+        }
+    }
+
+    /**
+     * Write the app's log lines around a failure to a file in the background
+     * @param driver Session that ran the failing test
+     * @param failureMillis When the test failed (epoch millis)
+     * @param name File name without extension
+     * @return Completes with the written file (null if the window was empty), or null if the session has no collector
+     */
+    public static CompletableFuture<File> save(WebDriver driver, long failureMillis, String name) {
+        DeviceLogCollector collector = driver != null ? collectors.get(driver) : null;
+        if (collector == null) {
+            return null;
+        }
+        File file = new File(DIRECTORY + name + ".log");
+        CompletableFuture<File> future = collector.capture(failureMillis - beforeMillis, failureMillis + afterMillis)
+                .thenApply(lines -> lines.isEmpty() ? null : write(lines, file));
+        pending.track(future).whenComplete((written, error) -> {
+            if (error != null) {
+                logger.error("Failed to write device log {}: {}", name, error.getMessage());
+            } else if (written != null) {
+                saved.increment();
+                logger.info("Device log saved: {}", written.getPath());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Wait for device logs still being cut and written, e.g. before the report is flushed
+     * @param timeoutMillis Maximum time to wait
+     */
+    public static void awaitPending(long timeoutMillis) {
+        pending.await(timeoutMillis, "device log(s) still being written");
+    }
+
+    /**
+     * @return Lines read and kept across sessions, and logs saved for failures
+     */
+    public static String getSummary() {
+        long read = closedLinesRead.sum();
+        long kept = closedLinesKept.sum();
+        for (DeviceLogCollector collector : collectors.values()) {
+            read += collector.getLinesRead();
+            kept += collector.getLinesKept();
+        }
+        return String.format("%d lines read, %d app lines kept, %d saved for failures", read, kept, saved.sum());
+    }
+
+    /**
+     * Looks the app's pid up with adb on this host, or through the Appium server's mobile: shell when adb is not
+     * here (the server needs --allow-insecure adb_shell for that)
+     */
+    private static DeviceLogCollector.PidLookup pidLookup(WebDriver driver, String udid) {
+        return appPackage -> {
+            String output;
+            try {
+                output = adbPidof(udid, appPackage);
+            } catch (IOException e) {
+                Object result = ((JavascriptExecutor) driver).executeScript("mobile: shell",
+                        Map.of("command", "pidof", "args", List.of(appPackage)));
+                output = result != null ? result.toString() : "";
+            }
+            return parsePids(output);
+        };
+    }
+
+    private static String adbPidof(String udid, String appPackage) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder("adb", "-s", udid, "shell", "pidof", appPackage).start();
+        if (!process.waitFor(10, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IOException("adb shell pidof timed out");
+        }
+        String error = new String(process.getErrorStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        // pidof exits with 1 and prints nothing when the app is not running; adb itself complains on stderr
+        if (process.exitValue() != 0 && !error.isEmpty()) {
+            throw new IOException(error);
+        }
+        return new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    static List<Integer> parsePids(String output) {
+        List<Integer> pids = new ArrayList<>();
+        for (String token : output.trim().split("\\s+")) {
+            try {
+                pids.add(Integer.parseInt(token));
+            } catch (NumberFormatException e) {
+                // Not a pid, e.g. an error message
+            }
+        }
+        return pids;
+    }
+
+    private static void retire(DeviceLogCollector collector) {
+        collector.close();
+        closedLinesRead.add(collector.getLinesRead());
+        closedLinesKept.add(collector.getLinesKept());
+    }
+
+    private static File write(List<String> lines, File file) {
+        try {
+            file.getAbsoluteFile().getParentFile().mkdirs();
+            Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.trustwallet.automation.base;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of devices declared in config.properties.
+ * A test thread leases one device for the lifetime of its session and hands it back afterwards,
+ * so N devices can serve N parallel test methods without sharing a session.
+ */
+public class DevicePool {
+    private static final Logger logger = LogManager.getLogger(DevicePool.class);
+    private static DevicePool instance;
+
+    private final List<Device> devices;
+    private final BlockingQueue<Device> idleDevices;
+    private final Duration acquireTimeout;
+
+    DevicePool(List<Device> devices, Duration acquireTimeout) {
+        this.devices = Collections.unmodifiableList(new ArrayList<>(devices));
+        this.idleDevices = new LinkedBlockingQueue<>(devices);
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    /**
+     * Get the shared device pool, building it from config on first use
+     * @return DevicePool instance
+     */
+    public static synchronized DevicePool getInstance() {
+        if (instance == null) {
+            instance = fromConfig();
+        }
+        return instance;
+    }
+
+    /**
+     * Build the pool from the configured device list.
+     * Falls back to the single legacy device name when no UDID list is configured.
+     */
+    private static DevicePool fromConfig() {
+        boolean ios = BaseDriver.getProperty("platform.name", "Android").equalsIgnoreCase("iOS");
+        String udids = BaseDriver.getProperty(ios ? "ios.device.udids" : "android.device.udids", "");
+        if (udids.trim().isEmpty()) {
+            udids = BaseDriver.getProperty(ios ? "ios.device.name" : "android.device.name", "");
+        }
+        int basePort = Integer.parseInt(BaseDriver.getProperty(
+                ios ? "ios.wda.port.base" : "android.system.port.base", ios ? "8100" : "8200"));
+        int mjpegBasePort = Integer.parseInt(BaseDriver.getProperty(
+                ios ? "ios.mjpeg.port.base" : "android.mjpeg.port.base", ios ? "9100" : "7810"));
+        long timeoutSeconds = Long.parseLong(BaseDriver.getProperty("device.acquire.timeout", "600"));
+
+        List<Device> devices = new ArrayList<>();
+        for (String udid : udids.split(",")) {
+            if (!udid.trim().isEmpty()) {
+                int index = devices.size();
+                devices.add(new Device(udid.trim(), index, basePort + index, mjpegBasePort + index));
+            }
+        }
+        if (devices.isEmpty()) {
+            throw new IllegalStateException("No devices configured. Set android.device.udids in config.properties");
+        }
+        logger.info("Device pool created with {} device(s): {}", devices.size(), devices);
+        return new DevicePool(devices, Duration.ofSeconds(timeoutSeconds));
+    }
+
+    /**
+     * Lease an idle device, blocking until one becomes available
+     * @return Device leased to the calling thread
+     */
+    public Device acquire() {
+        try {
+            Device device = idleDevices.poll(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (device == null) {
+                throw new IllegalStateException("No device became available within " + acquireTimeout.getSeconds() + " seconds");
+            }
+            logger.debug("Device {} acquired by thread {}", device, Thread.currentThread().getName());
+            return device;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a device", e);
+        }
+    }
+
+    /**
+     * Lease an idle device if one frees up within the given time
+     * @param timeout Maximum time to wait
+     * @return Device leased to the calling thread, or null if none became available
+     */
+    public Device tryAcquire(Duration timeout) {
+        try {
+            return idleDevices.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a device", e);
+        }
+    }
+
+    /**
+     * @return Maximum time a test waits for a device
+     */
+    public Duration getAcquireTimeout() {
+        return acquireTimeout;
+    }
+
+    /**
+     * Return a device to the pool
+     * @param device Device previously obtained from acquire()
+     */
+    public void release(Device device) {
+        if (device != null) {
+            idleDevices.offer(device);
+            logger.debug("Device {} released by thread {}", device, Thread.currentThread().getName());
+        }
+    }
+
+    /**
+     * @return All devices in the pool, leased or not
+     */
+    public List<Device> getDevices() {
+        return devices;
+    }
+
+    /**
+     * @return Number of devices in the pool
+     */
+    public int size() {
+        return devices.size();
+    }
+}
@@ -0,0 +1,120 @@
+package com.trustwallet.automation.base;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.remote.SessionId;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Element handles resolved by locator, kept per session until the UI may have changed.
+ * Registered as a {@link CommandListener}: any command that is not a pure read (click, sendKeys,
+ * back, activateApp, actions, scripts, ...) clears the session's entries, so a handle is only
+ * reused between two reads of the same screen. {@link WaitEngine} reuses handles only in probes
+ * that call the element anyway (visibility, clickability), where a stale handle surfaces as
+ * StaleElementReferenceException and is re-resolved on the spot.
+ */
+public class ElementCache implements CommandListener {
+    private static final ElementCache instance = new ElementCache();
+    private static final Set<String> READ_ONLY_COMMANDS = Set.of(
+            "findElement", "findElements", "findChildElement", "findChildElements",
+            "getElementText", "getElementAttribute", "getElementProperty", "getElementTagName", "getElementRect",
+            "getElementLocation", "getElementSize", "isElementDisplayed", "isElementEnabled", "isElementSelected",
+            "getPageSource", "screenshot", "elementScreenshot", "getCurrentContextHandle", "getContextHandles",
+            "getTimeouts", "getSession", "status", "getCurrentPackage", "currentActivity", "getScreenOrientation",
+            "getLog", "getAvailableLogTypes");
+
+    private final boolean enabled = Boolean.parseBoolean(BaseDriver.getProperty("element.cache", "true"));
+    private final Map<SessionId, Map<String, WebElement>> bySession = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder staleHandles = new LongAdder();
+
+    /**
+     * @return The shared cache
+     */
+    public static ElementCache getInstance() {
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param sessionId Session the element belongs to
+     * @param locator Locator it was resolved with
+     * @return Cached handle, or null on a miss
+     */
+    public WebElement get(SessionId sessionId, By locator) {
+        if (!enabled || sessionId == null) {
+            return null;
+        }
+        Map<String, WebElement> elements = bySession.get(sessionId);
+        WebElement element = elements != null ? elements.get(locator.toString()) : null;
+        (element != null ? hits : misses).increment();
+        return element;
+    }
+
+    /**
+     * @param sessionId Session the element belongs to
+     * @param locator Locator it was resolved with
+     * @param element Resolved handle
+     */
+    public void put(SessionId sessionId, By locator, WebElement element) {
+        if (enabled && sessionId != null && element != null) {
+            bySession.computeIfAbsent(sessionId, key -> new ConcurrentHashMap<>()).put(locator.toString(), element);
+        }
+    }
+
+    /**
+     * Drop a handle that turned out to be stale
+     * @param sessionId Session the element belongs to
+     * @param locator Locator it was resolved with
+     */
+    public void evictStale(SessionId sessionId, By locator) {
+        Map<String, WebElement> elements = sessionId != null ? bySession.get(sessionId) : null;
+        if (elements != null && elements.remove(locator.toString()) != null) {
+            staleHandles.increment();
+        }
+    }
+
+    @Override
+    public void onCommand(CommandTiming timing) {
+        SessionId sessionId = timing.getSessionId();
+        if (sessionId == null || READ_ONLY_COMMANDS.contains(timing.getCommandName())) {
+            return;
+        }
+        Map<String, WebElement> elements = "quit".equals(timing.getCommandName())
+                ? bySession.remove(sessionId) : bySession.get(sessionId);
+        if (elements != null && !elements.isEmpty()) {
+            elements.clear();
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * @return Lookups answered from the cache; each saved a findElements round trip
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Hit/miss counts, invalidations by mutating commands and stale handles re-resolved
+     */
+    public String getSummary() {
+        long hitCount = getHits();
+        long lookups = hitCount + getMisses();
+        return String.format("%d hit(s) / %d lookup(s) (%.0f%%), %d invalidation(s), %d stale handle(s) re-resolved",
+                hitCount, lookups, lookups == 0 ? 0 : hitCount * 100.0 / lookups, invalidations.sum(), staleHandles.sum());
+    }
+}
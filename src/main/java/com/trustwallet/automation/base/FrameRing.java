@@ -0,0 +1,101 @@
+package com.trustwallet.automation.base;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Rolling window of encoded screen frames held in memory. Frames older than the window are dropped,
+ * and the oldest frames are also dropped whenever the total size would exceed the byte cap, so a
+ * recording never holds more than the cap however long the test runs. Frames arriving closer together
+ * than the minimum interval are skipped to keep the window at a fixed frame rate.
+ */
+public class FrameRing {
+    private final long windowMillis;
+    private final long maxBytes;
+    private final long minIntervalMillis;
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private long bytes;
+    private long dropped;
+
+    /**
+     * @param windowMillis Age of the oldest frame kept
+     * @param maxBytes Cap on the total size of the frames kept
+     * @param minIntervalMillis Minimum time between two kept frames
+     */
+    public FrameRing(long windowMillis, long maxBytes, long minIntervalMillis) {
+        this.windowMillis = windowMillis;
+        this.maxBytes = maxBytes;
+        this.minIntervalMillis = minIntervalMillis;
+    }
+
+    /**
+     * Add a frame, dropping frames that fall out of the window or the byte cap
+     * @param image Encoded frame
+     * @param timestampMillis When the frame was captured
+     */
+    public synchronized void add(byte[] image, long timestampMillis) {
+        Frame last = frames.peekLast();
+        if (last != null && timestampMillis - last.timestampMillis < minIntervalMillis) {
+            return;
+        }
+        if (image.length > maxBytes) {
+            dropped++;
+            return;
+        }
+        frames.addLast(new Frame(image, timestampMillis));
+        bytes += image.length;
+        while (!frames.isEmpty() && (bytes > maxBytes || timestampMillis - frames.peekFirst().timestampMillis > windowMillis)) {
+            bytes -= frames.removeFirst().image.length;
+            dropped++;
+        }
+    }
+
+    /**
+     * @return The frames currently in the window, oldest first
+     */
+    public synchronized List<Frame> snapshot() {
+        return new ArrayList<>(frames);
+    }
+
+    public synchronized void clear() {
+        frames.clear();
+        bytes = 0;
+    }
+
+    /**
+     * @return Total size of the frames currently held
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return Frames dropped so far because they left the window or exceeded the cap
+     */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * One encoded frame and its capture time
+     */
+    public static class Frame {
+        private final byte[] image;
+        private final long timestampMillis;
+
+        Frame(byte[] image, long timestampMillis) {
+            this.image = image;
+            this.timestampMillis = timestampMillis;
+        }
+
+        public byte[] getImage() {
+            return image;
+        }
+
+        public long getTimestampMillis() {
+            return timestampMillis;
+        }
+    }
+}
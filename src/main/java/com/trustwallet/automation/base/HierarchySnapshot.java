@@ -0,0 +1,342 @@
+package com.trustwallet.automation.base;
+
+import io.appium.java_client.AppiumDriver;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Rectangle;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The UI hierarchy fetched with a single getPageSource call and parsed locally with a streaming
+ * XML parser. Any number of locator, text and attribute queries can then be answered without
+ * further device round trips. Supported locators: UiSelector chains of simple properties
+ * (text, description, resourceId, className, their Contains/StartsWith/Matches forms, boolean
+ * states, index and instance), single-step XPath with attribute predicates and sibling positions,
+ * accessibility id, id and class name. Use {@link #supports(By)} to check before querying.
+ */
+public class HierarchySnapshot {
+    private static final Logger logger = LogManager.getLogger(HierarchySnapshot.class);
+    private static final XMLInputFactory xmlInputFactory = createInputFactory();
+
+    private final List<Node> nodes;
+    private final long capturedAtMillis;
+
+    private HierarchySnapshot(List<Node> nodes) {
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.capturedAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Fetch and parse the current UI hierarchy (one device call)
+     * @param driver Session to read the hierarchy from
+     * @return HierarchySnapshot
+     */
+    public static HierarchySnapshot capture(AppiumDriver driver) {
+        long start = System.nanoTime();
+        String source = driver.getPageSource();
+        HierarchySnapshot snapshot = parse(source);
+        logger.debug("Captured hierarchy snapshot with {} nodes in {} ms",
+                snapshot.size(), (System.nanoTime() - start) / 1_000_000);
+        return snapshot;
+    }
+
+    /**
+     * Parse a page source document
+     * @param source XML returned by getPageSource
+     * @return HierarchySnapshot
+     */
+    public static HierarchySnapshot parse(String source) {
+        List<Node> nodes = new ArrayList<>();
+        Deque<Node> open = new ArrayDeque<>();
+        try {
+            XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(new StringReader(source));
+            try {
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        Map<String, String> attributes = new LinkedHashMap<>();
+                        for (int i = 0; i < reader.getAttributeCount(); i++) {
+                            attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                        }
+                        Node node = new Node(reader.getLocalName(), attributes, open.peek(), nodes.size());
+                        nodes.add(node);
+                        open.push(node);
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        open.pop();
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("Failed to parse page source: " + e.getMessage(), e);
+        }
+        return new HierarchySnapshot(nodes);
+    }
+
+    /**
+     * @param locator Locator to check
+     * @return true if the locator can be evaluated against a snapshot
+     */
+    public static boolean supports(By locator) {
+        return SnapshotQuery.compile(locator) != null;
+    }
+
+    /**
+     * @param locator Supported locator
+     * @return All matching nodes in document order
+     * @throws IllegalArgumentException if the locator is not supported
+     */
+    public List<Node> findAll(By locator) {
+        SnapshotQuery query = SnapshotQuery.compile(locator);
+        if (query == null) {
+            throw new IllegalArgumentException("Locator cannot be evaluated on a hierarchy snapshot: " + locator);
+        }
+        return query.evaluate(nodes);
+    }
+
+    /**
+     * @param locator Supported locator
+     * @return First matching node, or null
+     */
+    public Node find(By locator) {
+        List<Node> found = findAll(locator);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * @param locator Supported locator
+     * @return true if at least one node matches
+     */
+    public boolean contains(By locator) {
+        return !findAll(locator).isEmpty();
+    }
+
+    /**
+     * @param locator Supported locator
+     * @return true if a matching node is displayed
+     */
+    public boolean isVisible(By locator) {
+        for (Node node : findAll(locator)) {
+            if (node.isDisplayed()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param predicate Condition on a node
+     * @return All nodes satisfying the condition in document order
+     */
+    public List<Node> findAll(Predicate<Node> predicate) {
+        List<Node> found = new ArrayList<>();
+        for (Node node : nodes) {
+            if (predicate.test(node)) {
+                found.add(node);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Only the displayed text (text, or label / value on iOS) and the content description (name on iOS) are
+     * searched; use {@link #containsInAnyAttribute(String...)} to search every attribute as a page source search would
+     * @param fragments Text to look for
+     * @return true if any node's text or content description contains any of the fragments
+     */
+    public boolean containsText(String... fragments) {
+        for (Node node : nodes) {
+            for (String fragment : fragments) {
+                if (node.getText().contains(fragment) || node.getContentDesc().contains(fragment)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param fragments Text to look for
+     * @return true if any attribute value of any node (text, resource-id, class, package, ...) contains any of the
+     * fragments, the equivalent of searching the page source for them
+     */
+    public boolean containsInAnyAttribute(String... fragments) {
+        for (Node node : nodes) {
+            for (String value : node.attributes.values()) {
+                for (String fragment : fragments) {
+                    if (value.contains(fragment)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Non-empty texts of all nodes in document order
+     */
+    public List<String> getTexts() {
+        List<String> texts = new ArrayList<>();
+        for (Node node : nodes) {
+            if (!node.getText().isEmpty()) {
+                texts.add(node.getText());
+            }
+        }
+        return texts;
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public long getCapturedAtMillis() {
+        return capturedAtMillis;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * One element of the hierarchy with its attributes as reported by the automation backend
+     */
+    public static class Node {
+        private static final Pattern BOUNDS = Pattern.compile("\\[(-?\\d+),(-?\\d+)]\\[(-?\\d+),(-?\\d+)]");
+
+        private final String tag;
+        private final Map<String, String> attributes;
+        private final Node parent;
+        private final int position;
+
+        Node(String tag, Map<String, String> attributes, Node parent, int position) {
+            this.tag = tag;
+            this.attributes = attributes;
+            this.parent = parent;
+            this.position = position;
+        }
+
+        /**
+         * @return Element name, the widget class on Android
+         */
+        public String getTag() {
+            return tag;
+        }
+
+        /**
+         * @param name Attribute name, e.g. text, resource-id, content-desc, enabled
+         * @return Attribute value, or null if absent
+         */
+        public String getAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        /**
+         * @return text on Android, label or value on iOS, never null
+         */
+        public String getText() {
+            String text = attributes.get("text");
+            if (text == null) {
+                text = attributes.get("label");
+            }
+            if (text == null) {
+                text = attributes.get("value");
+            }
+            return text != null ? text : "";
+        }
+
+        public String getContentDesc() {
+            String description = attributes.get("content-desc");
+            if (description == null) {
+                description = attributes.get("name");
+            }
+            return description != null ? description : "";
+        }
+
+        public String getResourceId() {
+            String resourceId = attributes.get("resource-id");
+            return resourceId != null ? resourceId : "";
+        }
+
+        public String getClassName() {
+            String className = attributes.get("class");
+            if (className == null) {
+                className = attributes.get("type");
+            }
+            return className != null ? className : tag;
+        }
+
+        /**
+         * @return true unless the backend reports displayed/visible="false"
+         */
+        public boolean isDisplayed() {
+            String displayed = attributes.containsKey("displayed") ? attributes.get("displayed") : attributes.get("visible");
+            return !"false".equals(displayed);
+        }
+
+        public boolean isEnabled() {
+            return !"false".equals(attributes.get("enabled"));
+        }
+
+        /**
+         * @return Screen bounds, or null if the backend did not report them
+         */
+        public Rectangle getBounds() {
+            String bounds = attributes.get("bounds");
+            if (bounds != null) {
+                Matcher matcher = BOUNDS.matcher(bounds);
+                if (matcher.matches()) {
+                    int left = Integer.parseInt(matcher.group(1));
+                    int top = Integer.parseInt(matcher.group(2));
+                    return new Rectangle(left, top,
+                            Integer.parseInt(matcher.group(4)) - top, Integer.parseInt(matcher.group(3)) - left);
+                }
+            }
+            if (attributes.containsKey("x") && attributes.containsKey("width")) {
+                return new Rectangle(Integer.parseInt(attributes.get("x")), Integer.parseInt(attributes.get("y")),
+                        Integer.parseInt(attributes.get("height")), Integer.parseInt(attributes.get("width")));
+            }
+            return null;
+        }
+
+        public Node getParent() {
+            return parent;
+        }
+
+        /**
+         * @return Position of the node in document order
+         */
+        public int getPosition() {
+            return position;
+        }
+
+        @Override
+        public String toString() {
+            return tag + attributes;
+        }
+    }
+}
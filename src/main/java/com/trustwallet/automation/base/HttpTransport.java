@@ -0,0 +1,63 @@
+package com.trustwallet.automation.base;
+
+import io.appium.java_client.AppiumClientConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.URL;
+import java.time.Duration;
+
+/**
+ * Builds the HTTP client configuration used for every Appium session.
+ * Selenium's Netty client shares one pooled AsyncHttpClient; its pool and keep-alive settings
+ * are read from org.asynchttpclient.* system properties when the client is first created,
+ * so they are applied here before the first session starts.
+ */
+public class HttpTransport {
+    private static final Logger logger = LogManager.getLogger(HttpTransport.class);
+    private static final String AHC_PREFIX = "org.asynchttpclient.";
+    private static volatile boolean poolConfigured;
+
+    /**
+     * Create the client config for a session on the given server
+     * @param serverUrl Appium server URL
+     * @return AppiumClientConfig with tuned timeouts and latency instrumentation
+     */
+    public static AppiumClientConfig clientConfig(URL serverUrl) {
+        configurePool();
+        Duration connectTimeout = Duration.ofSeconds(Long.parseLong(BaseDriver.getProperty("http.connect.timeout", "10")));
+        Duration readTimeout = Duration.ofSeconds(Long.parseLong(BaseDriver.getProperty("http.read.timeout", "180")));
+        return AppiumClientConfig.defaultConfig()
+                .baseUrl(serverUrl)
+                .connectionTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .withFilter(InstrumentedCommandExecutor.networkTimingFilter());
+    }
+
+    /**
+     * Apply connection pool settings once, unless the user already set them with -D
+     */
+    private static synchronized void configurePool() {
+        if (poolConfigured) {
+            return;
+        }
+        setIfAbsent("keepAlive", BaseDriver.getProperty("http.keep.alive", "true"));
+        setIfAbsent("pooledConnectionIdleTimeout",
+                String.valueOf(Long.parseLong(BaseDriver.getProperty("http.pool.idle.timeout", "120")) * 1000));
+        setIfAbsent("maxConnectionsPerHost", BaseDriver.getProperty("http.max.connections.per.host", "-1"));
+        setIfAbsent("compressionEnforced", BaseDriver.getProperty("http.compression", "false"));
+        setIfAbsent("tcpNoDelay", "true");
+        poolConfigured = true;
+        logger.info("HTTP transport: keepAlive={}, idleTimeout={} ms, maxConnectionsPerHost={}, compression={}",
+                System.getProperty(AHC_PREFIX + "keepAlive"),
+                System.getProperty(AHC_PREFIX + "pooledConnectionIdleTimeout"),
+                System.getProperty(AHC_PREFIX + "maxConnectionsPerHost"),
+                System.getProperty(AHC_PREFIX + "compressionEnforced"));
+    }
+
+    private static void setIfAbsent(String key, String value) {
+        if (System.getProperty(AHC_PREFIX + key) == null) {
+            System.setProperty(AHC_PREFIX + key, value);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.trustwallet.automation.base;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriverException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Every deliberate pause in the framework goes through here, so dead time is measured rather than guessed.
+ * Two kinds are kept apart: fixed sleeps ({@link #pause(long)}) and the gaps between the probes of a
+ * {@link WaitEngine} poll. Time is attributed to the test set for the current thread and to the first
+ * page object method on the calling stack. A test that spends more than idle.budget.percent of its
+ * duration (or more than idle.budget.seconds in total) idle is reported as a warning or failed,
+ * according to idle.budget.action.
+ */
+public class IdleTime {
+    private static final Logger logger = LogManager.getLogger(IdleTime.class);
+    private static final String PAGES_PACKAGE = "com.trustwallet.automation.pages.";
+    private static final String NO_PAGE = "(no page)";
+    private static final StackWalker stackWalker = StackWalker.getInstance();
+
+    private static final Map<String, Totals> byPageMethod = new ConcurrentHashMap<>();
+    private static final Totals overall = new Totals();
+    private static final Totals testTotals = new Totals();
+    private static final LongAdder testNanos = new LongAdder();
+    private static final ThreadLocal<TestAccount> currentTest = new ThreadLocal<>();
+
+    private static final double budgetPercent = Double.parseDouble(BaseDriver.getProperty("idle.budget.percent", "0"));
+    private static final double budgetSeconds = Double.parseDouble(BaseDriver.getProperty("idle.budget.seconds", "0"));
+    private static final BudgetAction budgetAction = BudgetAction.fromConfig(BaseDriver.getProperty("idle.budget.action", "warn"));
+
+    /**
+     * Kind of idle time
+     */
+    public enum Kind {
+        /** A fixed pause */
+        SLEEP,
+        /** Time between the probes of a wait */
+        WAIT_POLLING
+    }
+
+    /**
+     * What happens to a test that goes over its idle budget
+     */
+    public enum BudgetAction {
+        WARN,
+        FAIL;
+
+        public static BudgetAction fromConfig(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return WARN;
+            }
+            return BudgetAction.valueOf(value.trim().toUpperCase());
+        }
+    }
+
+    /**
+     * Sleep for a fixed time and account it as idle. Interruption ends the pause early and
+     * leaves the thread's interrupt flag set.
+     * @param millis Milliseconds to pause
+     */
+    public static void pause(long millis) {
+        try {
+            sleep(Kind.SLEEP, millis * 1_000_000);
+        } catch (InterruptedException e) {
+            logger.warn("Pause of {} ms interrupted", millis);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @see #pause(long)
+     */
+    public static void pause(Duration duration) {
+        pause(duration.toMillis());
+    }
+
+    /**
+     * Sleep between the probes of a wait and account it as wait-polling time
+     * @param nanos Nanoseconds to sleep
+     * @throws WebDriverException if interrupted
+     */
+    public static void pollDelay(long nanos) {
+        try {
+            sleep(Kind.WAIT_POLLING, nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebDriverException("Interrupted while waiting", e);
+        }
+    }
+
+    /**
+     * Start accounting idle time on the current thread to a test
+     * @param testName Test name
+     */
+    public static void startTest(String testName) {
+        currentTest.set(new TestAccount(testName));
+    }
+
+    /**
+     * Stop accounting to the current thread's test
+     * @return Idle time of the test, or null if none was started
+     */
+    public static TestIdle finishTest() {
+        TestAccount account = currentTest.get();
+        if (account == null) {
+            return null;
+        }
+        currentTest.remove();
+        TestIdle idle = account.snapshot();
+        testNanos.add(idle.totalNanos);
+        testTotals.add(Kind.SLEEP, idle.sleepNanos);
+        testTotals.add(Kind.WAIT_POLLING, idle.pollingNanos);
+        return idle;
+    }
+
+    /**
+     * @return Idle time of the current thread's test so far, or null if none was started
+     */
+    public static TestIdle currentTest() {
+        TestAccount account = currentTest.get();
+        return account != null ? account.snapshot() : null;
+    }
+
+    /**
+     * @return Sleep and wait-polling time per page method (Page.method), sorted by name
+     */
+    public static Map<String, Totals> getPageMethodTotals() {
+        return new TreeMap<>(byPageMethod);
+    }
+
+    /**
+     * @return Idle time over the whole run, including time outside tests
+     */
+    public static Totals getOverall() {
+        return overall;
+    }
+
+    /**
+     * @return Idle time of all finished tests
+     */
+    public static Totals getTestTotals() {
+        return testTotals;
+    }
+
+    /**
+     * @return Combined duration of all finished tests in milliseconds
+     */
+    public static long getTestMillis() {
+        return testNanos.sum() / 1_000_000;
+    }
+
+    public static BudgetAction getBudgetAction() {
+        return budgetAction;
+    }
+
+    private static void sleep(Kind kind, long nanos) throws InterruptedException {
+        if (nanos <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        } finally {
+            record(kind, System.nanoTime() - start);
+        }
+    }
+
+    private static void record(Kind kind, long nanos) {
+        overall.add(kind, nanos);
+        byPageMethod.computeIfAbsent(currentPageMethod(), key -> new Totals()).add(kind, nanos);
+        TestAccount account = currentTest.get();
+        if (account != null) {
+            account.totals.add(kind, nanos);
+        }
+    }
+
+    private static String currentPageMethod() {
+        Optional<String> pageMethod = stackWalker.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(PAGES_PACKAGE))
+                .map(frame -> frame.getClassName().substring(PAGES_PACKAGE.length()) + "." + frame.getMethodName())
+                .findFirst());
+        return pageMethod.orElse(NO_PAGE);
+    }
+
+    /**
+     * Sleep and wait-polling nanoseconds
+     */
+    public static class Totals {
+        private final LongAdder sleepNanos = new LongAdder();
+        private final LongAdder pollingNanos = new LongAdder();
+
+        void add(Kind kind, long nanos) {
+            (kind == Kind.SLEEP ? sleepNanos : pollingNanos).add(nanos);
+        }
+
+        public long getSleepMillis() {
+            return sleepNanos.sum() / 1_000_000;
+        }
+
+        public long getPollingMillis() {
+            return pollingNanos.sum() / 1_000_000;
+        }
+
+        public long getIdleMillis() {
+            return (sleepNanos.sum() + pollingNanos.sum()) / 1_000_000;
+        }
+    }
+
+    private static class TestAccount {
+        private final String testName;
+        private final long startNanos = System.nanoTime();
+        private final Totals totals = new Totals();
+
+        TestAccount(String testName) {
+            this.testName = testName;
+        }
+
+        TestIdle snapshot() {
+            return new TestIdle(testName, System.nanoTime() - startNanos, totals.sleepNanos.sum(), totals.pollingNanos.sum());
+        }
+    }
+
+    /**
+     * Active and idle time of one test
+     */
+    public static class TestIdle {
+        private final String testName;
+        private final long totalNanos;
+        private final long sleepNanos;
+        private final long pollingNanos;
+
+        TestIdle(String testName, long totalNanos, long sleepNanos, long pollingNanos) {
+            this.testName = testName;
+            this.totalNanos = totalNanos;
+            this.sleepNanos = sleepNanos;
+            this.pollingNanos = pollingNanos;
+        }
+
+        public String getTestName() {
+            return testName;
+        }
+
+        public long getTotalMillis() {
+            return totalNanos / 1_000_000;
+        }
+
+        public long getSleepMillis() {
+            return sleepNanos / 1_000_000;
+        }
+
+        public long getPollingMillis() {
+            return pollingNanos / 1_000_000;
+        }
+
+        public long getIdleMillis() {
+            return (sleepNanos + pollingNanos) / 1_000_000;
+        }
+
+        /**
+         * @return Share of the test spent idle, 0 to 100
+         */
+        public double getIdlePercent() {
+            return totalNanos == 0 ? 0 : Math.min(100, (sleepNanos + pollingNanos) * 100.0 / totalNanos);
+        }
+
+        /**
+         * @return Why the test is over its idle budget, or null if it is within it (or no budget is set)
+         */
+        public String checkBudget() {
+            if (budgetPercent > 0 && getIdlePercent() > budgetPercent) {
+                return String.format("%s was idle %.0f%% of its %.1f s, budget is %.0f%%",
+                        testName, getIdlePercent(), totalNanos / 1e9, budgetPercent);
+            }
+            if (budgetSeconds > 0 && getIdleMillis() > budgetSeconds * 1000) {
+                return String.format("%s was idle %.1f s, budget is %.1f s", testName, getIdleMillis() / 1000.0, budgetSeconds);
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            double idlePercent = getIdlePercent();
+            return String.format("active %.1f s (%.0f%%), idle %.1f s (%.0f%%): sleeps %.1f s, wait polling %.1f s",
+                    (totalNanos - sleepNanos - pollingNanos) / 1e9, 100 - idlePercent, getIdleMillis() / 1000.0,
+                    idlePercent, getSleepMillis() / 1000.0, getPollingMillis() / 1000.0);
+        }
+    }
+}
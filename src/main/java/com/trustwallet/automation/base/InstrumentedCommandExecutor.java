@@ -0,0 +1,104 @@
+package com.trustwallet.automation.base;
+
+import io.appium.java_client.AppiumClientConfig;
+import io.appium.java_client.MobileCommand;
+import io.appium.java_client.remote.AppiumCommandExecutor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.Response;
+import org.openqa.selenium.remote.http.Filter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Appium command executor that times every command and notifies the registered
+ * {@link CommandListener}s. The HTTP exchange itself is timed by {@link #networkTimingFilter()},
+ * which runs inside the executor on the same thread, so the remainder of the command's
+ * time splits into serialization before the request and parsing after the response.
+ */
+public class InstrumentedCommandExecutor extends AppiumCommandExecutor {
+    private static final Logger logger = LogManager.getLogger(InstrumentedCommandExecutor.class);
+    private static final List<CommandListener> listeners = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<long[]> networkMarks = ThreadLocal.withInitial(() -> new long[2]);
+
+    public InstrumentedCommandExecutor(AppiumClientConfig clientConfig) {
+        super(MobileCommand.commandRepository, clientConfig);
+    }
+
+    /**
+     * Register a listener for all sessions created from now on
+     * @param listener CommandListener to add
+     */
+    public static void addListener(CommandListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    /**
+     * @param listener CommandListener to remove
+     */
+    public static void removeListener(CommandListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * HTTP filter that records when the request leaves and the response arrives
+     * @return Filter to install on the client config
+     */
+    public static Filter networkTimingFilter() {
+        return next -> request -> {
+            long[] marks = networkMarks.get();
+            marks[0] = System.nanoTime();
+            try {
+                return next.execute(request);
+            } finally {
+                marks[1] = System.nanoTime();
+            }
+        };
+    }
+
+    @Override
+    public Response execute(Command command) throws WebDriverException {
+        long[] marks = networkMarks.get();
+        marks[0] = 0;
+        marks[1] = 0;
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Response response = super.execute(command);
+            failed = false;
+            return response;
+        } finally {
+            long end = System.nanoTime();
+            notifyListeners(command, start, end, marks, failed);
+        }
+    }
+
+    private void notifyListeners(Command command, long start, long end, long[] marks, boolean failed) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        long total = end - start;
+        long serialize = 0;
+        long network = total;
+        long parse = 0;
+        if (marks[0] != 0 && marks[1] != 0) {
+            serialize = marks[0] - start;
+            network = marks[1] - marks[0];
+            parse = end - marks[1];
+        }
+        CommandTiming timing = new CommandTiming(command.getSessionId(), command.getName(),
+                serialize, network, parse, total, failed);
+        for (CommandListener listener : listeners) {
+            try {
+                listener.onCommand(timing);
+            } catch (RuntimeException e) {
+                logger.warn("Command listener {} failed: {}", listener, e.getMessage());
+            }
+        }
+    }
+}
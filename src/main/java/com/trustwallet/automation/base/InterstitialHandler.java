@@ -0,0 +1,142 @@
+package com.trustwallet.automation.base;
+
+import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.By;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * A screen that can appear unannounced on top of the flow (promo popup, permission prompt,
+ * web redirect): how to recognise it in a hierarchy snapshot and how to get rid of it.
+ * Registered with {@link InterstitialWatcher}, which tries the handlers whenever a wait misses.
+ */
+public class InterstitialHandler {
+
+    /**
+     * Action that removes the interstitial
+     */
+    public interface Dismissal {
+        /**
+         * @param driver Session showing the interstitial
+         * @param snapshot Snapshot in which it was recognised
+         */
+        void dismiss(AppiumDriver driver, HierarchySnapshot snapshot);
+    }
+
+    private final String name;
+    private final Predicate<HierarchySnapshot> matcher;
+    private final Dismissal dismissal;
+    private final long replacedMissMillis;
+    private final long replacedHitMillis;
+
+    private final LongAdder expectations = new LongAdder();
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder spentNanos = new LongAdder();
+    private final LongAdder passedNanos = new LongAdder();
+    private final LongAdder savedNanos = new LongAdder();
+
+    /**
+     * @param name Handler name used in logs and {@link InterstitialWatcher#expect(String)}
+     * @param matcher Recognises the interstitial in a snapshot
+     * @param dismissal Removes it
+     * @param replacedMissMillis Fixed sleep or wait the old code had at the expectation point when the interstitial
+     *                           did not show
+     * @param replacedHitMillis The same when it did show
+     */
+    public InterstitialHandler(String name, Predicate<HierarchySnapshot> matcher, Dismissal dismissal,
+                               long replacedMissMillis, long replacedHitMillis) {
+        this.name = name;
+        this.matcher = matcher;
+        this.dismissal = dismissal;
+        this.replacedMissMillis = replacedMissMillis;
+        this.replacedHitMillis = replacedHitMillis;
+    }
+
+    /**
+     * Handler recognised by a single locator
+     * @see #InterstitialHandler(String, Predicate, Dismissal, long, long)
+     */
+    public static InterstitialHandler forLocator(String name, By marker, Dismissal dismissal,
+                                                 long replacedMissMillis, long replacedHitMillis) {
+        return new InterstitialHandler(name, snapshot -> snapshot.isVisible(marker), dismissal,
+                replacedMissMillis, replacedHitMillis);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    boolean matches(HierarchySnapshot snapshot) {
+        checks.increment();
+        return matcher.test(snapshot);
+    }
+
+    void dismiss(AppiumDriver driver, HierarchySnapshot snapshot) {
+        dismissal.dismiss(driver, snapshot);
+        hits.increment();
+    }
+
+    void recordExpectation() {
+        expectations.increment();
+    }
+
+    void recordSpent(long nanos) {
+        spentNanos.add(nanos);
+    }
+
+    /**
+     * Record how long the flow took from an expectation point to its next successful wait. The old code's
+     * fixed sleep overlapped that transition, so only the part of the sleep the flow did not need anyway is saved.
+     * @param nanos Measured time from the expectation to the next successful wait
+     * @param hit Whether the interstitial was dismissed in between
+     */
+    void recordPassed(long nanos, boolean hit) {
+        passedNanos.add(nanos);
+        long replacedNanos = (hit ? replacedHitMillis : replacedMissMillis) * 1_000_000;
+        savedNanos.add(Math.max(0, replacedNanos - nanos));
+    }
+
+    public long getChecks() {
+        return checks.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Share of checks that found the interstitial
+     */
+    public double getHitRate() {
+        long checkCount = getChecks();
+        return checkCount == 0 ? 0 : getHits() / (double) checkCount;
+    }
+
+    public long getExpectations() {
+        return expectations.sum();
+    }
+
+    /**
+     * @return Milliseconds spent scanning for and dismissing the interstitial
+     */
+    public long getSpentMillis() {
+        return spentNanos.sum() / 1_000_000;
+    }
+
+    /**
+     * @return Milliseconds measured from the expectation points to the flow's next successful wait, in total
+     */
+    public long getPassedMillis() {
+        return passedNanos.sum() / 1_000_000;
+    }
+
+    /**
+     * At each expectation point, how much of the old fixed sleep the measured time to move on did not cover
+     * @return Milliseconds saved
+     */
+    public long getSavedMillis() {
+        return savedNanos.sum() / 1_000_000;
+    }
+}
@@ -0,0 +1,255 @@
+package com.trustwallet.automation.base;
+
+import io.appium.java_client.AppiumDriver;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.TimeoutException;
+
+import java.time.Duration;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry of {@link InterstitialHandler}s, consulted instead of sleeping "in case a popup shows up".
+ * {@link WaitEngine} calls {@link #handleIfPresent(AppiumDriver)} only when the element it waits for
+ * is missing; one hierarchy snapshot is checked against every handler and the first match is dismissed.
+ * Scans run on the test thread (the session is not shared with another thread) and at most once per
+ * interstitial.scan.interval milliseconds per thread.
+ * Time saved is measured: from each {@link #expect(String)} to the thread's next successful wait is how long
+ * the flow actually took to move on, and only the part of the old fixed sleep beyond that counts as saved.
+ */
+public class InterstitialWatcher {
+    private static final Logger logger = LogManager.getLogger(InterstitialWatcher.class);
+    private static final List<InterstitialHandler> handlers = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<Boolean> scanning = ThreadLocal.withInitial(() -> false);
+    private static final ThreadLocal<long[]> lastScanNanos = ThreadLocal.withInitial(() -> new long[] {Long.MIN_VALUE});
+    // Expectation points not yet passed on this thread: handler to {start nanos, 1 if dismissed since}
+    private static final ThreadLocal<Map<InterstitialHandler, long[]>> open = ThreadLocal.withInitial(IdentityHashMap::new);
+    private static final boolean enabled = Boolean.parseBoolean(BaseDriver.getProperty("interstitial.watcher", "true"));
+    private static final long scanAfterMillis = Long.parseLong(BaseDriver.getProperty("interstitial.scan.after", "300"));
+    private static final long scanIntervalNanos =
+            Long.parseLong(BaseDriver.getProperty("interstitial.scan.interval", "1000")) * 1_000_000;
+
+    /**
+     * @return true unless interstitial.watcher=false
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Milliseconds a wait must have missed for before the watcher scans
+     */
+    public static long getScanAfterMillis() {
+        return scanAfterMillis;
+    }
+
+    /**
+     * Add a handler, replacing any handler with the same name
+     * @param handler InterstitialHandler to register
+     */
+    public static synchronized void register(InterstitialHandler handler) {
+        handlers.removeIf(existing -> existing.getName().equals(handler.getName()));
+        handlers.add(handler);
+    }
+
+    /**
+     * @param name Handler name
+     * @return true if a handler with that name is registered
+     */
+    public static boolean isRegistered(String name) {
+        return find(name) != null;
+    }
+
+    /**
+     * Note that the flow has reached a point where the interstitial may show. The time until the thread's
+     * next successful wait is measured against the fixed sleep this point used to have.
+     * @param name Handler name
+     */
+    public static void expect(String name) {
+        InterstitialHandler handler = find(name);
+        if (handler != null) {
+            handler.recordExpectation();
+            open.get().put(handler, new long[] {System.nanoTime(), 0});
+        }
+    }
+
+    /**
+     * Close this thread's open expectation points; called by {@link WaitEngine} when a wait succeeds
+     */
+    static void passed() {
+        Map<InterstitialHandler, long[]> points = open.get();
+        if (points.isEmpty() || scanning.get()) {
+            return;
+        }
+        long now = System.nanoTime();
+        points.forEach((handler, point) -> handler.recordPassed(now - point[0], point[1] != 0));
+        points.clear();
+    }
+
+    /**
+     * Scan for any registered interstitial and dismiss the first one found. Throttled per thread;
+     * calls from inside a dismissal are ignored.
+     * @param driver Session to scan
+     * @return true if an interstitial was dismissed
+     */
+    public static boolean handleIfPresent(AppiumDriver driver) {
+        if (!enabled || driver == null || handlers.isEmpty() || scanning.get()) {
+            return false;
+        }
+        long now = System.nanoTime();
+        long[] last = lastScanNanos.get();
+        if (last[0] != Long.MIN_VALUE && now - last[0] < scanIntervalNanos) {
+            return false;
+        }
+        last[0] = now;
+        return scan(driver, handlers);
+    }
+
+    /**
+     * Check for one interstitial right now and dismiss it if it is showing (no throttling)
+     * @param driver Session to check
+     * @param name Handler name
+     * @return true if it was showing and has been dismissed
+     */
+    public static boolean dismissIfPresent(AppiumDriver driver, String name) {
+        InterstitialHandler handler = find(name);
+        if (handler == null || scanning.get()) {
+            return false;
+        }
+        return scan(driver, List.of(handler));
+    }
+
+    /**
+     * At a point where an interstitial is likely, wait for it or for the next screen, whichever shows first,
+     * and dismiss the interstitial if it was that
+     * @param driver Session to check
+     * @param name Handler name
+     * @param timeout Maximum time to wait
+     * @param next Locators of the screen that follows when the interstitial does not show; must be
+     *             supported by {@link HierarchySnapshot}
+     * @return true if the interstitial showed and has been dismissed
+     */
+    public static boolean awaitAndDismiss(AppiumDriver driver, String name, Duration timeout, By... next) {
+        InterstitialHandler handler = find(name);
+        if (!enabled || handler == null) {
+            return false;
+        }
+        boolean[] dismissed = new boolean[1];
+        try {
+            new WaitEngine(driver).until(name + " or the next screen", timeout, () -> {
+                HierarchySnapshot snapshot = HierarchySnapshot.capture(driver);
+                // Dismissed inside the probe, so the expectation point is closed as a hit
+                if (handler.matches(snapshot)) {
+                    dismissed[0] = dismiss(handler, driver, snapshot);
+                    return true;
+                }
+                for (By locator : next) {
+                    if (snapshot.isVisible(locator)) {
+                        return true;
+                    }
+                }
+                return false;
+            });
+        } catch (TimeoutException e) {
+            logger.debug("Neither {} nor the next screen showed within {} ms", name, timeout.toMillis());
+        }
+        return dismissed[0];
+    }
+
+    /**
+     * @return One line per handler: checks, hits, hit rate and time saved
+     */
+    public static Map<String, String> getSummary() {
+        Map<String, String> summary = new LinkedHashMap<>();
+        for (InterstitialHandler handler : handlers) {
+            summary.put(handler.getName(), String.format(
+                    "%d check(s), %d hit(s) (%.0f%%), %.1f s scanning and dismissing; %d expectation point(s) "
+                            + "passed in %.1f s, %.1f s saved", handler.getChecks(), handler.getHits(),
+                    handler.getHitRate() * 100, handler.getSpentMillis() / 1000.0, handler.getExpectations(),
+                    handler.getPassedMillis() / 1000.0, handler.getSavedMillis() / 1000.0));
+        }
+        return summary;
+    }
+
+    /**
+     * @return Time saved over all handlers in milliseconds
+     */
+    public static long getTotalSavedMillis() {
+        return handlers.stream().mapToLong(InterstitialHandler::getSavedMillis).sum();
+    }
+
+    private static boolean scan(AppiumDriver driver, List<InterstitialHandler> candidates) {
+        scanning.set(true);
+        long start = System.nanoTime();
+        InterstitialHandler matched = null;
+        try {
+            HierarchySnapshot snapshot = HierarchySnapshot.capture(driver);
+            for (InterstitialHandler handler : candidates) {
+                if (handler.matches(snapshot)) {
+                    matched = handler;
+                    logger.info("Interstitial \"{}\" detected, dismissing it", handler.getName());
+                    handler.dismiss(driver, snapshot);
+                    markDismissed(handler);
+                    return true;
+                }
+            }
+            return false;
+        } catch (RuntimeException e) {
+            logger.debug("Interstitial scan failed: {}", e.getMessage());
+            return false;
+        } finally {
+            long spent = System.nanoTime() - start;
+            if (matched != null) {
+                matched.recordSpent(spent);
+            } else {
+                // A scan that found nothing is overhead shared by every handler it checked
+                for (InterstitialHandler handler : candidates) {
+                    handler.recordSpent(spent / candidates.size());
+                }
+            }
+            scanning.set(false);
+        }
+    }
+
+    /**
+     * Dismiss a handler's interstitial outside a scan, accounting the time like a scan
+     * @return false if the dismissal failed
+     */
+    private static boolean dismiss(InterstitialHandler handler, AppiumDriver driver, HierarchySnapshot snapshot) {
+        scanning.set(true);
+        long start = System.nanoTime();
+        try {
+            logger.info("Interstitial \"{}\" detected, dismissing it", handler.getName());
+            handler.dismiss(driver, snapshot);
+            markDismissed(handler);
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("Failed to dismiss interstitial \"{}\": {}", handler.getName(), e.getMessage());
+            return false;
+        } finally {
+            handler.recordSpent(System.nanoTime() - start);
+            scanning.set(false);
+        }
+    }
+
+    private static void markDismissed(InterstitialHandler handler) {
+        long[] point = open.get().get(handler);
+        if (point != null) {
+            point[1] = 1;
+        }
+    }
+
+    private static InterstitialHandler find(String name) {
+        for (InterstitialHandler handler : handlers) {
+            if (handler.getName().equals(name)) {
+                return handler;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,100 @@
+package com.trustwallet.automation.base;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear latency histogram in the style of HdrHistogram.
+ * Values are recorded in microseconds; every power-of-two range is split into
+ * 32 linear sub-buckets, so any percentile is accurate to about 3% from 1 µs to over an hour.
+ * Recording is a single atomic increment and is safe from any number of threads.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_TRACKABLE_MICROS = (1L << 32) - 1;
+    private static final int BUCKET_COUNT = indexOf(MAX_TRACKABLE_MICROS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Record one observation
+     * @param nanos Latency in nanoseconds
+     */
+    public void recordNanos(long nanos) {
+        long micros = Math.min(Math.max(nanos / 1000, 0), MAX_TRACKABLE_MICROS);
+        counts.incrementAndGet(indexOf(micros));
+        totalCount.increment();
+        totalMicros.add(micros);
+        if (micros > maxMicros.get()) {
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public double getTotalMillis() {
+        return totalMicros.sum() / 1000.0;
+    }
+
+    public double getMeanMillis() {
+        long count = getCount();
+        return count == 0 ? 0 : totalMicros.sum() / (double) count / 1000.0;
+    }
+
+    public double getMaxMillis() {
+        return maxMicros.get() / 1000.0;
+    }
+
+    /**
+     * Value at the given percentile, reported as the highest value of its bucket
+     * @param percentile 0 to 100
+     * @return Latency in milliseconds
+     */
+    public double getPercentileMillis(double percentile) {
+        long count = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), maxMicros.get()) / 1000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * Bucket index: values below 64 map one to one, larger values keep their top 6 bits
+     */
+    private static int indexOf(long micros) {
+        if (micros < 2 * SUB_BUCKET_COUNT) {
+            return (int) micros;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        return (int) (shift * SUB_BUCKET_COUNT + (micros >>> shift));
+    }
+
+    private static long highestValueOf(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long top = index - (long) shift * SUB_BUCKET_COUNT;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,52 @@
+package com.trustwallet.automation.base;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Result of resolving several alternative locators for the same element: the element found
+ * and which alternative found it
+ */
+public class LocatorMatch {
+    private final WebElement element;
+    private final By locator;
+    private final int index;
+    private final long elapsedMillis;
+
+    public LocatorMatch(WebElement element, By locator, int index, long elapsedMillis) {
+        this.element = element;
+        this.locator = locator;
+        this.index = index;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public WebElement getElement() {
+        return element;
+    }
+
+    /**
+     * @return The alternative that matched
+     */
+    public By getLocator() {
+        return locator;
+    }
+
+    /**
+     * @return Position of the matching alternative in the order they were given
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return Time from the start of the wait until the match
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "alternative " + index + " (" + locator + ") after " + elapsedMillis + " ms";
+    }
+}
@@ -0,0 +1,273 @@
+package com.trustwallet.automation.base;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Which alternative of each page locator group resolved and how long its lookup took, kept per app version in
+ * locator.stats.file across runs (the last locator.stats.history lookups per alternative). With locator.reorder=true,
+ * {@link WaitEngine} tries the alternative with the fastest median lookup first, and in a locator.explore.rate share
+ * of waits tries another one first, preferring alternatives without samples, so they get measured too.
+ * Alternatives whose presence was checked in at least locator.dead.min.resolutions resolutions and never found
+ * are reported as dead so the locator set can be pruned.
+ * The app version is app.version, or the app file name when it is not set.
+ */
+public class LocatorStats {
+    private static final Logger logger = LogManager.getLogger(LocatorStats.class);
+    private static LocatorStats instance;
+
+    private final Map<String, Group> groups = new ConcurrentHashMap<>();
+    private final File file;
+    private final String appVersion;
+    private final boolean reorder;
+    private final int deadMinResolutions;
+    private final int maxSamples;
+    private final double exploreRate;
+    private ObjectNode otherVersions;
+
+    private LocatorStats() {
+        this.file = new File(BaseDriver.getProperty("locator.stats.file", "test-output/locator-stats.json"));
+        this.appVersion = resolveAppVersion();
+        this.reorder = Boolean.parseBoolean(BaseDriver.getProperty("locator.reorder", "true"));
+        this.deadMinResolutions = Integer.parseInt(BaseDriver.getProperty("locator.dead.min.resolutions", "10"));
+        this.maxSamples = Integer.parseInt(BaseDriver.getProperty("locator.stats.history", "200"));
+        this.exploreRate = Double.parseDouble(BaseDriver.getProperty("locator.explore.rate", "0.1"));
+        load();
+    }
+
+    /**
+     * @return The shared statistics, loaded from locator.stats.file on first use
+     */
+    public static synchronized LocatorStats getInstance() {
+        if (instance == null) {
+            instance = new LocatorStats();
+        }
+        return instance;
+    }
+
+    public String getAppVersion() {
+        return appVersion;
+    }
+
+    /**
+     * Order in which to try a group's alternatives: those with lookup samples, fastest median first, then the
+     * rest in the order the page gives them. Now and then (locator.explore.rate) one other alternative is moved
+     * to the front, an unsampled one if there is any, so every alternative gets measured and medians stay current.
+     * @param group Locator group name
+     * @param alternatives Alternatives in the page's order
+     * @return Indexes into alternatives in the order to try them
+     */
+    public int[] order(String group, By[] alternatives) {
+        Integer[] order = new Integer[alternatives.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Group stats = groups.get(group);
+        if (!reorder || stats == null) {
+            return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+        }
+        long[] medians = new long[alternatives.length];
+        synchronized (stats) {
+            for (int i = 0; i < alternatives.length; i++) {
+                Alternative alternative = stats.alternatives.get(alternatives[i].toString());
+                medians[i] = alternative != null && alternative.history.getSampleCount() > 0
+                        ? alternative.history.percentileMillis(50) : Long.MAX_VALUE;
+            }
+        }
+        // Stable sort: alternatives without samples keep the page's order
+        Arrays.sort(order, Comparator.comparingLong(i -> medians[i]));
+        if (alternatives.length > 1 && ThreadLocalRandom.current().nextDouble() < exploreRate) {
+            int unsampled = 0;
+            while (unsampled < order.length && medians[order[order.length - 1 - unsampled]] == Long.MAX_VALUE) {
+                unsampled++;
+            }
+            // Unsampled alternatives sort last; pick among them, or among all but the current first
+            int from = unsampled > 0 ? order.length - unsampled : 1;
+            int pick = ThreadLocalRandom.current().nextInt(from, order.length);
+            Integer explored = order[pick];
+            System.arraycopy(order, 0, order, 1, pick);
+            order[0] = explored;
+        }
+        return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Record a successful resolution of a group
+     * @param group Locator group name
+     * @param alternatives All alternatives of the group
+     * @param winner Index of the alternative that resolved
+     * @param lookupMillis How long the winner's own lookup took (not the time the wait spent before the screen was there)
+     * @param present Per alternative whether it was present when the group resolved, or null where that is unknown
+     */
+    public void recordResolution(String group, By[] alternatives, int winner, long lookupMillis, Boolean[] present) {
+        Group stats = groups.computeIfAbsent(group, key -> new Group());
+        synchronized (stats) {
+            stats.resolutions++;
+            for (int i = 0; i < alternatives.length; i++) {
+                Alternative alternative = stats.alternatives.computeIfAbsent(alternatives[i].toString(),
+                        key -> new Alternative(maxSamples));
+                if (i == winner) {
+                    alternative.wins++;
+                    alternative.history.recordSuccess(lookupMillis);
+                }
+                if (present[i] != null) {
+                    alternative.checked++;
+                    if (present[i]) {
+                        alternative.seen++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Alternatives checked in at least locator.dead.min.resolutions resolutions of their group and never
+     * present, by group
+     */
+    public Map<String, List<String>> getDeadAlternatives() {
+        Map<String, List<String>> dead = new TreeMap<>();
+        groups.forEach((group, stats) -> {
+            synchronized (stats) {
+                List<String> locators = new ArrayList<>();
+                stats.alternatives.forEach((locator, alternative) -> {
+                    if (alternative.seen == 0 && alternative.checked >= deadMinResolutions) {
+                        locators.add(locator);
+                    }
+                });
+                if (!locators.isEmpty()) {
+                    dead.put(group, locators);
+                }
+            }
+        });
+        return dead;
+    }
+
+    /**
+     * @return One line per group: resolutions and wins / median lookup per alternative
+     */
+    public Map<String, String> getSummary() {
+        Map<String, String> summary = new TreeMap<>();
+        groups.forEach((group, stats) -> {
+            synchronized (stats) {
+                StringBuilder line = new StringBuilder().append(stats.resolutions).append(" resolution(s)");
+                stats.alternatives.forEach((locator, alternative) -> line.append(String.format("; %s: %d win(s), p50 %d ms",
+                        locator, alternative.wins, alternative.history.percentileMillis(50))));
+                summary.put(group, line.toString());
+            }
+        });
+        return summary;
+    }
+
+    /**
+     * Write the statistics back to locator.stats.file, keeping other app versions' entries
+     */
+    public synchronized void save() {
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ObjectNode root = mapper.createObjectNode();
+        ObjectNode versions = root.putObject("versions");
+        if (otherVersions != null) {
+            versions.setAll(otherVersions);
+        }
+        ObjectNode current = versions.putObject(appVersion);
+        new TreeMap<>(groups).forEach((group, stats) -> {
+            synchronized (stats) {
+                ObjectNode groupNode = current.putObject(group);
+                groupNode.put("resolutions", stats.resolutions);
+                ObjectNode alternativesNode = groupNode.putObject("alternatives");
+                stats.alternatives.forEach((locator, alternative) -> {
+                    ObjectNode node = alternativesNode.putObject(locator);
+                    node.put("wins", alternative.wins);
+                    node.put("seen", alternative.seen);
+                    node.put("checked", alternative.checked);
+                    node.set("samplesMs", mapper.valueToTree(alternative.history.getSamples()));
+                });
+            }
+        });
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        try {
+            mapper.writeValue(file, root);
+            logger.info("Locator statistics for {} group(s) of app version {} written to {}",
+                    groups.size(), appVersion, file.getAbsolutePath());
+        } catch (IOException e) {
+            logger.warn("Failed to write locator statistics: {}", e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            JsonNode versions = new ObjectMapper().readTree(file).path("versions");
+            if (versions.isObject()) {
+                otherVersions = ((ObjectNode) versions).deepCopy();
+                otherVersions.remove(appVersion);
+            }
+            Iterator<Map.Entry<String, JsonNode>> entries = versions.path(appVersion).fields();
+            while (entries.hasNext()) {
+                Map.Entry<String, JsonNode> entry = entries.next();
+                Group stats = groups.computeIfAbsent(entry.getKey(), key -> new Group());
+                stats.resolutions = entry.getValue().path("resolutions").asLong();
+                Iterator<Map.Entry<String, JsonNode>> alternatives = entry.getValue().path("alternatives").fields();
+                while (alternatives.hasNext()) {
+                    Map.Entry<String, JsonNode> alternativeEntry = alternatives.next();
+                    Alternative alternative = new Alternative(maxSamples);
+                    alternative.wins = alternativeEntry.getValue().path("wins").asLong();
+                    alternative.seen = alternativeEntry.getValue().path("seen").asLong();
+                    alternative.checked = alternativeEntry.getValue().path("checked").asLong();
+                    for (JsonNode sample : alternativeEntry.getValue().path("samplesMs")) {
+                        alternative.history.recordSuccess(sample.asLong());
+                    }
+                    stats.alternatives.put(alternativeEntry.getKey(), alternative);
+                }
+            }
+            logger.info("Loaded locator statistics for {} group(s) of app version {} from {}",
+                    groups.size(), appVersion, file.getAbsolutePath());
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable locator statistics {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static String resolveAppVersion() {
+        String version = BaseDriver.getProperty("app.version", "");
+        if (!version.trim().isEmpty()) {
+            return version.trim();
+        }
+        boolean ios = "iOS".equalsIgnoreCase(BaseDriver.getProperty("platform.name", "Android"));
+        String appPath = BaseDriver.getProperty(ios ? "ios.app.path" : "android.app.path", "");
+        return appPath.isEmpty() ? "unknown" : new File(appPath).getName();
+    }
+
+    private static class Group {
+        private final Map<String, Alternative> alternatives = new TreeMap<>();
+        private long resolutions;
+    }
+
+    private static class Alternative {
+        private final WaitHistory.LocatorHistory history;
+        private long wins;
+        private long seen;
+        private long checked;
+
+        Alternative(int maxSamples) {
+            this.history = new WaitHistory.LocatorHistory(maxSamples);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.trustwallet.automation.base;
+
+/**
+ * One logcat line in threadtime format: "MM-DD HH:MM:SS.mmm  PID  TID L TAG: message".
+ * Parsed by scanning the line once, without regular expressions.
+ */
+public final class LogcatLine {
+    private final int pid;
+    private final char level;
+    private final String tag;
+    private final String message;
+
+    private LogcatLine(int pid, char level, String tag, String message) {
+        this.pid = pid;
+        this.level = level;
+        this.tag = tag;
+        this.message = message;
+    }
+
+    /**
+     * @param line Raw logcat line
+     * @return The parsed line, or null if it is not in threadtime format (e.g. "--------- beginning of main")
+     */
+    public static LogcatLine parse(String line) {
+        // Date and time are fixed width
+        if (line.length() < 20 || line.charAt(2) != '-' || line.charAt(5) != ' ' || line.charAt(8) != ':') {
+            return null;
+        }
+        int[] position = {18};
+        int pid = nextInt(line, position);
+        int tid = nextInt(line, position);
+        if (pid < 0 || tid < 0) {
+            return null;
+        }
+        int levelIndex = skipSpaces(line, position[0]);
+        if (levelIndex + 2 >= line.length() || line.charAt(levelIndex + 1) != ' ') {
+            return null;
+        }
+        int tagStart = skipSpaces(line, levelIndex + 1);
+        int separator = line.indexOf(": ", tagStart);
+        if (separator < 0) {
+            separator = line.endsWith(":") ? line.length() - 1 : -1;
+            if (separator < 0) {
+                return null;
+            }
+        }
+        String message = separator + 2 <= line.length() ? line.substring(separator + 2) : "";
+        return new LogcatLine(pid, line.charAt(levelIndex), line.substring(tagStart, separator).trim(), message);
+    }
+
+    private static int skipSpaces(String line, int index) {
+        while (index < line.length() && line.charAt(index) == ' ') {
+            index++;
+        }
+        return index;
+    }
+
+    private static int nextInt(String line, int[] position) {
+        int index = skipSpaces(line, position[0]);
+        int value = 0;
+        int start = index;
+        while (index < line.length() && Character.isDigit(line.charAt(index))) {
+            value = value * 10 + (line.charAt(index) - '0');
+            index++;
+        }
+        position[0] = index;
+        return index > start ? value : -1;
+    }
+
+    public int getPid() {
+        return pid;
+    }
+
+    public char getLevel() {
+        return level;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,252 @@
+package com.trustwallet.automation.base;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the latest frame of an MJPEG stream (multipart/x-mixed-replace of JPEG images) in memory.
+ * A daemon thread reads the stream and reconnects when it drops; {@link #capture()} returns the
+ * newest frame without any device round trip, or null if no frame arrived within the maximum frame age.
+ * On Android the stream is UiAutomator2's MJPEG server, enabled with the mjpegServerPort capability.
+ * The stream is opened through a {@link StreamOpener}, so any stream (e.g. a local stand-in server) can drive it.
+ */
+public class MjpegScreenshotSource implements ScreenshotSource {
+    private static final Logger logger = LogManager.getLogger(MjpegScreenshotSource.class);
+    private static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+    private static final long MAX_RECONNECT_DELAY_MILLIS = 2000;
+
+    /**
+     * Opens the MJPEG stream; called again after every disconnect
+     */
+    public interface StreamOpener {
+        InputStream open() throws IOException;
+    }
+
+    private final String name;
+    private final StreamOpener opener;
+    private final long maxFrameAgeMillis;
+    private final AtomicReference<Frame> latest = new AtomicReference<>();
+    private final LongAdder frames = new LongAdder();
+    private final Thread reader;
+    private volatile boolean closed;
+    private volatile InputStream current;
+    private volatile FrameRing recording;
+
+    /**
+     * Start reading the stream in the background
+     * @param name Name used for the reader thread and in logs
+     * @param opener Opens the stream
+     * @param maxFrameAgeMillis Frames older than this are not served
+     */
+    public MjpegScreenshotSource(String name, StreamOpener opener, long maxFrameAgeMillis) {
+        this.name = name;
+        this.opener = opener;
+        this.maxFrameAgeMillis = maxFrameAgeMillis;
+        this.reader = new Thread(this::readLoop, "mjpeg-" + name);
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    /**
+     * @param url MJPEG stream URL, e.g. http://127.0.0.1:7810
+     * @return Opener connecting to the URL
+     */
+    public static StreamOpener forUrl(URL url) {
+        return () -> {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(10000);
+            return connection.getInputStream();
+        };
+    }
+
+    @Override
+    public byte[] capture() {
+        Frame frame = latest.get();
+        if (frame == null || System.currentTimeMillis() - frame.receivedAtMillis > maxFrameAgeMillis) {
+            return null;
+        }
+        return frame.jpeg;
+    }
+
+    @Override
+    public boolean record(FrameRing ring) {
+        recording = ring;
+        return true;
+    }
+
+    /**
+     * @return Frames received since the source started
+     */
+    public long getFrameCount() {
+        return frames.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        reader.interrupt();
+        closeQuietly(current);
+    }
+
+    private void readLoop() {
+        long reconnectDelay = 100;
+        while (!closed) {
+            try (InputStream stream = new BufferedInputStream(opener.open())) {
+                current = stream;
+                logger.debug("MJPEG stream {} connected", name);
+                while (!closed) {
+                    byte[] jpeg = readFrame(stream);
+                    long now = System.currentTimeMillis();
+                    latest.set(new Frame(jpeg, now));
+                    frames.increment();
+                    FrameRing ring = recording;
+                    if (ring != null) {
+                        ring.add(jpeg, now);
+                    }
+                    reconnectDelay = 100;
+                }
+            } catch (IOException | RuntimeException e) {
+                // Reconnect rather than let the reader thread die on a broken part
+                if (!closed) {
+                    logger.debug("MJPEG stream {} interrupted: {}", name, e.getMessage());
+                }
+            }
+            if (!closed) {
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Read the next part: headers up to an empty line, then Content-Length bytes, or up to the JPEG
+     * end-of-image marker when the part has no length
+     */
+    static byte[] readFrame(InputStream stream) throws IOException {
+        int contentLength = -1;
+        boolean inHeaders = false;
+        while (true) {
+            String line = readLine(stream);
+            if (line.isEmpty()) {
+                if (inHeaders) {
+                    break;
+                }
+                continue;
+            }
+            if (line.startsWith("--")) {
+                inHeaders = true;
+                continue;
+            }
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                inHeaders = true;
+                if ("content-length".equals(line.substring(0, colon).trim().toLowerCase(Locale.ROOT))) {
+                    contentLength = parseLength(line.substring(colon + 1).trim());
+                }
+            }
+        }
+        if (contentLength > MAX_FRAME_BYTES) {
+            throw new IOException("MJPEG frame of " + contentLength + " bytes exceeds the limit");
+        }
+        return contentLength >= 0 ? readExactly(stream, contentLength) : readToEndOfImage(stream);
+    }
+
+    /**
+     * @return The Content-Length value, or -1 if it is not a number so the frame is read up to its end-of-image
+     * marker instead; the stream stays in sync with the boundaries either way
+     */
+    private static int parseLength(String value) {
+        try {
+            int length = Integer.parseInt(value);
+            if (length < 0) {
+                throw new NumberFormatException("negative length");
+            }
+            return length;
+        } catch (NumberFormatException e) {
+            logger.debug("Ignoring malformed MJPEG Content-Length '{}'", value);
+            return -1;
+        }
+    }
+
+    private static String readLine(InputStream stream) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = stream.read()) != -1) {
+            if (b == '\n') {
+                break;
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+            if (line.size() > 8192) {
+                throw new IOException("MJPEG part header line too long");
+            }
+        }
+        if (b == -1 && line.size() == 0) {
+            throw new EOFException("MJPEG stream ended");
+        }
+        return line.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] readExactly(InputStream stream, int length) throws IOException {
+        byte[] data = stream.readNBytes(length);
+        if (data.length < length) {
+            throw new EOFException("MJPEG stream ended inside a frame");
+        }
+        return data;
+    }
+
+    private static byte[] readToEndOfImage(InputStream stream) throws IOException {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream(256 * 1024);
+        int previous = -1;
+        int b;
+        while ((b = stream.read()) != -1) {
+            jpeg.write(b);
+            if (previous == 0xFF && b == 0xD9) {
+                return jpeg.toByteArray();
+            }
+            if (jpeg.size() > MAX_FRAME_BYTES) {
+                throw new IOException("MJPEG frame exceeds the limit");
+            }
+            previous = b;
+        }
+        throw new EOFException("MJPEG stream ended inside a frame");
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // Closing only unblocks the reader
+            }
+        }
+    }
+
+    private static class Frame {
+        private final byte[] jpeg;
+        private final long receivedAtMillis;
+
+        Frame(byte[] jpeg, long receivedAtMillis) {
+            this.jpeg = jpeg;
+            this.receivedAtMillis = receivedAtMillis;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.trustwallet.automation.base;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Files being written (or added to the report) in the background, so the end of the run can wait for them
+ * before the report is flushed
+ */
+public class PendingFiles {
+    private static final Logger logger = LogManager.getLogger(PendingFiles.class);
+
+    private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Track a future until it completes
+     * @param future Completes once the file is written
+     * @return The same future
+     */
+    public <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+        pending.add(future);
+        future.whenComplete((result, error) -> pending.remove(future));
+        return future;
+    }
+
+    /**
+     * Wait for every tracked future, e.g. before the report is flushed. Failures are not reported here:
+     * each is logged where its file is written.
+     * @param timeoutMillis Maximum time to wait
+     * @param label What is still pending at the deadline, for the warning, e.g. "screenshot(s) still being written"
+     */
+    public void await(long timeoutMillis, String label) {
+        CompletableFuture<?>[] inFlight = pending.toArray(new CompletableFuture<?>[0]);
+        if (inFlight.length == 0) {
+            return;
+        }
+        try {
+            CompletableFuture.allOf(inFlight).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("{} {} after {} ms", pending.size(), label, timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Individual failures are logged by the futures themselves
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.trustwallet.automation.base;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.logging.LogEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Device log read in batches, e.g. from the driver log API, which returns everything logged since the
+ * previous call. Reads every pollMillis, or straight away when flushed.
+ */
+public class PollingDeviceLogSource implements DeviceLogSource {
+    private static final Logger logger = LogManager.getLogger(PollingDeviceLogSource.class);
+
+    /**
+     * Reads the lines logged since the previous call
+     */
+    public interface Fetcher {
+        List<String> fetch() throws Exception;
+    }
+
+    private final Fetcher fetcher;
+    private final long pollNanos;
+    private volatile Thread reader;
+    private volatile boolean closed;
+
+    public PollingDeviceLogSource(Fetcher fetcher, long pollMillis) {
+        this.fetcher = fetcher;
+        this.pollNanos = TimeUnit.MILLISECONDS.toNanos(pollMillis);
+    }
+
+    /**
+     * @param driver Session whose logcat the Appium server captures
+     * @param pollMillis Time between reads
+     * @return Source reading the session's "logcat" log type
+     */
+    public static PollingDeviceLogSource forDriver(WebDriver driver, long pollMillis) {
+        return new PollingDeviceLogSource(() -> {
+            List<String> lines = new ArrayList<>();
+            for (LogEntry entry : driver.manage().logs().get("logcat")) {
+                lines.add(entry.getMessage());
+            }
+            return lines;
+        }, pollMillis);
+    }
+
+    @Override
+    public void stream(Consumer<String> sink) {
+        reader = Thread.currentThread();
+        while (!closed) {
+            try {
+                for (String line : fetcher.fetch()) {
+                    sink.accept(line);
+                }
+            } catch (Exception e) {
+                if (closed) {
+                    break;
+                }
+                logger.debug("Device log read failed: {}", e.getMessage());
+            }
+            // A flush unparks the reader, so a pending flush makes this return straight away
+            LockSupport.parkNanos(this, pollNanos);
+        }
+    }
+
+    @Override
+    public void flush() {
+        Thread current = reader;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        flush();
+    }
+}
@@ -0,0 +1,54 @@
+package com.trustwallet.automation.base;
+
+import io.appium.java_client.AppiumDriver;
+
+/**
+ * An Appium session together with the device it runs on.
+ * Warm sessions are parked as PooledSession between tests and handed to the next test thread.
+ */
+public class PooledSession {
+    private final AppiumDriver driver;
+    private final Device device;
+    private final String platformName;
+    private final long createdAtMillis;
+    private int testsServed;
+
+    public PooledSession(AppiumDriver driver, Device device, String platformName) {
+        this.driver = driver;
+        this.device = device;
+        this.platformName = platformName;
+        this.createdAtMillis = System.currentTimeMillis();
+    }
+
+    public AppiumDriver getDriver() {
+        return driver;
+    }
+
+    public Device getDevice() {
+        return device;
+    }
+
+    public String getPlatformName() {
+        return platformName;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    /**
+     * @return Number of tests that have run on this session so far
+     */
+    public int getTestsServed() {
+        return testsServed;
+    }
+
+    void markServed() {
+        testsServed++;
+    }
+
+    @Override
+    public String toString() {
+        return driver.getSessionId() + " on " + device;
+    }
+}
@@ -0,0 +1,28 @@
+package com.trustwallet.automation.base;
+
+/**
+ * Where screenshots come from. The default is the WebDriver screenshot command (one round trip per image);
+ * {@link MjpegScreenshotSource} serves the latest frame of a video stream from memory instead.
+ */
+public interface ScreenshotSource extends AutoCloseable {
+
+    /**
+     * @return Encoded image (PNG or JPEG), or null if the source has no current image
+     */
+    byte[] capture();
+
+    /**
+     * Copy every frame the source receives into a ring, e.g. to keep the last seconds before a failure
+     * @param ring Ring to fill, or null to stop recording
+     * @return false if the source cannot record continuously
+     */
+    default boolean record(FrameRing ring) {
+        return false;
+    }
+
+    /**
+     * Release the source's connection or thread
+     */
+    @Override
+    void close();
+}
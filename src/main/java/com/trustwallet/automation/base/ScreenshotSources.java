@@ -0,0 +1,137 @@
+package com.trustwallet.automation.base;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Screenshot source per session. With screenshot.source=mjpeg, {@link BaseDriver} attaches an
+ * {@link MjpegScreenshotSource} to every new session and captures come from its latest frame;
+ * the screenshot command is only used when the stream has no fresh frame.
+ * With screenshot.steps=true every page a test reaches records a frame on its first successful wait, once
+ * the screen is up (stream frames only, so steps never cost a round trip), at most screenshot.steps.max per test.
+ */
+public class ScreenshotSources {
+    private static final Logger logger = LogManager.getLogger(ScreenshotSources.class);
+
+    private static final Map<WebDriver, ScreenshotSource> sources = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Map<String, byte[]>> steps = ThreadLocal.withInitial(LinkedHashMap::new);
+    private static final boolean stepsEnabled = Boolean.parseBoolean(BaseDriver.getProperty("screenshot.steps", "false"));
+    private static final int maxSteps = Integer.parseInt(BaseDriver.getProperty("screenshot.steps.max", "20"));
+    private static final LongAdder streamCaptures = new LongAdder();
+    private static final LongAdder driverCaptures = new LongAdder();
+
+    /**
+     * @return true if sessions should get an MJPEG stream source (screenshot.source=mjpeg)
+     */
+    public static boolean isStreamEnabled() {
+        return "mjpeg".equalsIgnoreCase(BaseDriver.getProperty("screenshot.source", "driver").trim());
+    }
+
+    /**
+     * Attach a source to a session, replacing and closing any previous one
+     * @param driver Session the source shows
+     * @param source Source to use for the session's captures
+     */
+    public static void register(WebDriver driver, ScreenshotSource source) {
+        ScreenshotSource previous = sources.put(driver, source);
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Close the session's source; called before the session quits
+     * @param driver Session being quit
+     */
+    public static void close(WebDriver driver) {
+        ScreenshotSource source = driver != null ? sources.remove(driver) : null;
+        if (source != null) {
+            source.close();
+        }
+    }
+
+    /**
+     * Capture the session's screen: the latest stream frame if one is fresh, otherwise the screenshot command
+     * @param driver Session to capture
+     * @return Encoded image, JPEG from the stream or PNG from the driver
+     */
+    public static byte[] capture(WebDriver driver) {
+        byte[] frame = captureFromStream(driver);
+        if (frame != null) {
+            return frame;
+        }
+        driverCaptures.increment();
+        return ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+    }
+
+    /**
+     * @param driver Session to capture
+     * @return Latest fresh stream frame, or null if the session has no stream or the stream is stale
+     */
+    public static byte[] captureFromStream(WebDriver driver) {
+        ScreenshotSource source = sources.get(driver);
+        byte[] frame = source != null ? source.capture() : null;
+        if (frame != null) {
+            streamCaptures.increment();
+        }
+        return frame;
+    }
+
+    /**
+     * Start or stop copying the session's stream frames into a ring
+     * @param driver Session to record
+     * @param ring Ring to fill, or null to stop
+     * @return false if the session has no stream to record from
+     */
+    public static boolean record(WebDriver driver, FrameRing ring) {
+        ScreenshotSource source = sources.get(driver);
+        return source != null && source.record(ring);
+    }
+
+    /**
+     * Record a step frame for the current test if step captures are enabled and a stream frame is available
+     * @param driver Session to capture
+     * @param label Step name, e.g. the page object
+     */
+    public static void recordStep(WebDriver driver, String label) {
+        if (!stepsEnabled) {
+            return;
+        }
+        Map<String, byte[]> current = steps.get();
+        if (current.size() >= maxSteps) {
+            return;
+        }
+        byte[] frame = captureFromStream(driver);
+        if (frame != null) {
+            current.put(String.format("%02d_%s", current.size() + 1, label), frame);
+        } else {
+            logger.debug("No stream frame for step {}", label);
+        }
+    }
+
+    /**
+     * Take the current test's step frames, in order, and clear them
+     * @return Step label to frame
+     */
+    public static Map<String, byte[]> drainSteps() {
+        Map<String, byte[]> current = steps.get();
+        Map<String, byte[]> drained = new LinkedHashMap<>(current);
+        current.clear();
+        return drained;
+    }
+
+    /**
+     * @return Captures served from a stream vs by the screenshot command
+     */
+    public static String getSummary() {
+        return String.format("%d from stream, %d by screenshot command", streamCaptures.sum(), driverCaptures.sum());
+    }
+}
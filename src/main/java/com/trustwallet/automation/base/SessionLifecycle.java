@@ -0,0 +1,26 @@
+package com.trustwallet.automation.base;
+
+/**
+ * How long an Appium session lives before it is quit.
+ * Configured with session.lifecycle in config.properties.
+ */
+public enum SessionLifecycle {
+    /** New session for every test method (original behaviour). */
+    METHOD,
+    /** Session is reset between methods and quit after each test class. */
+    CLASS,
+    /** Session is reset between methods and quit once the suite finishes. */
+    SUITE;
+
+    /**
+     * Parse the configured lifecycle, defaulting to METHOD
+     * @param value Value from config.properties
+     * @return SessionLifecycle
+     */
+    public static SessionLifecycle fromConfig(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return METHOD;
+        }
+        return SessionLifecycle.valueOf(value.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,305 @@
+package com.trustwallet.automation.base;
+
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.InteractsWithApps;
+import io.appium.java_client.appmanagement.ApplicationState;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out Appium sessions to test threads according to the configured session.lifecycle.
+ * In CLASS/SUITE mode a finished test parks its session instead of quitting it; the next test
+ * takes the parked session, resets the app (terminate, clear data, activate) and only falls
+ * back to a brand-new session when the reset check fails.
+ * With session.prewarm=true the reset or new session is prepared by {@link SessionPrewarmer}
+ * in the background and the test only takes a ready session from its queue.
+ */
+public class SessionManager {
+    private static final Logger logger = LogManager.getLogger(SessionManager.class);
+    private static final Duration DEVICE_POLL_INTERVAL = Duration.ofMillis(200);
+    private static final Duration PREWARM_SETTLE_TIMEOUT = Duration.ofMinutes(5);
+
+    private static final BlockingQueue<PooledSession> parkedSessions = new LinkedBlockingQueue<>();
+    private static final ThreadLocal<PooledSession> currentSession = new ThreadLocal<>();
+    private static final ThreadLocal<Acquisition> lastAcquisition = new ThreadLocal<>();
+
+    private static final LongAdder freshSessions = new LongAdder();
+    private static final LongAdder freshSessionMillis = new LongAdder();
+    private static final LongAdder warmReuses = new LongAdder();
+    private static final LongAdder warmResetMillis = new LongAdder();
+    private static final LongAdder resetFallbacks = new LongAdder();
+    private static final LongAdder savedMillis = new LongAdder();
+
+    /**
+     * @return Lifecycle configured for this run
+     */
+    public static SessionLifecycle getLifecycle() {
+        return SessionLifecycle.fromConfig(BaseDriver.getProperty("session.lifecycle", "method"));
+    }
+
+    /**
+     * Get a ready session for the current test and bind it to the calling thread
+     * @param platformName Android or iOS
+     * @return AppiumDriver instance
+     */
+    public static AppiumDriver acquireSession(String platformName) {
+        long start = System.currentTimeMillis();
+        PooledSession session;
+        boolean reused = false;
+        int queueDepth = -1;
+
+        if (SessionPrewarmer.isEnabled()) {
+            queueDepth = SessionPrewarmer.getInstance().getQueueDepth();
+            session = SessionPrewarmer.getInstance().take(platformName);
+            // A session that already served a test was reset in the background; a new one was not reused
+            reused = session.getTestsServed() > 0;
+        } else if (getLifecycle() == SessionLifecycle.METHOD) {
+            session = createSession(platformName, DevicePool.getInstance().acquire());
+        } else {
+            session = null;
+            long deadline = start + DevicePool.getInstance().getAcquireTimeout().toMillis();
+            while (session == null) {
+                PooledSession parked = parkedSessions.poll();
+                if (parked != null) {
+                    if (parked.getPlatformName().equalsIgnoreCase(platformName) && resetApp(parked)) {
+                        session = parked;
+                        reused = true;
+                    } else {
+                        resetFallbacks.increment();
+                        logger.warn("Reset check failed for session {}. Starting a fresh session", parked);
+                        quietQuit(parked);
+                        session = createSession(platformName, parked.getDevice());
+                    }
+                } else {
+                    Device device = DevicePool.getInstance().tryAcquire(DEVICE_POLL_INTERVAL);
+                    if (device != null) {
+                        session = createSession(platformName, device);
+                    } else if (System.currentTimeMillis() > deadline) {
+                        throw new IllegalStateException("No session or device became available within "
+                                + DevicePool.getInstance().getAcquireTimeout().getSeconds() + " seconds");
+                    }
+                }
+            }
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        long saved = 0;
+        if (reused) {
+            warmReuses.increment();
+            warmResetMillis.add(elapsed);
+            saved = Math.max(0, averageFreshSessionMillis() - elapsed);
+            savedMillis.add(saved);
+            logger.info("Reused ready session {} in {} ms (saved ~{} ms)", session, elapsed, saved);
+        }
+        lastAcquisition.set(new Acquisition(reused, elapsed, saved, queueDepth));
+
+        session.markServed();
+        currentSession.set(session);
+        BaseDriver.bindSession(session.getDriver(), session.getDevice());
+        return session.getDriver();
+    }
+
+    /**
+     * Release the current thread's session: quit it in METHOD mode, park it otherwise
+     */
+    public static void releaseSession() {
+        PooledSession session = currentSession.get();
+        currentSession.remove();
+        BaseDriver.unbindSession();
+        if (session == null) {
+            return;
+        }
+        if (SessionPrewarmer.isEnabled()) {
+            SessionPrewarmer.getInstance().recycle(session);
+        } else if (getLifecycle() == SessionLifecycle.METHOD) {
+            quitAndRelease(session);
+        } else {
+            parkedSessions.offer(session);
+            logger.debug("Parked warm session {}", session);
+        }
+    }
+
+    /**
+     * Quit parked sessions whose lifetime ends at the given scope
+     * @param scope CLASS when a test class finishes, SUITE when the suite finishes
+     */
+    public static void closeSessions(SessionLifecycle scope) {
+        if (scope != SessionLifecycle.SUITE && getLifecycle() != scope) {
+            return;
+        }
+        List<PooledSession> sessions = new ArrayList<>();
+        parkedSessions.drainTo(sessions);
+        if (SessionPrewarmer.isEnabled()) {
+            SessionPrewarmer prewarmer = SessionPrewarmer.getInstance();
+            if (scope == SessionLifecycle.SUITE) {
+                prewarmer.shutdown();
+            } else {
+                prewarmer.awaitIdle(PREWARM_SETTLE_TIMEOUT);
+            }
+            sessions.addAll(prewarmer.drainReady());
+        }
+        for (PooledSession session : sessions) {
+            logger.info("Closing warm session {} after {} test(s)", session, session.getTestsServed());
+            quitAndRelease(session);
+        }
+        if (scope == SessionLifecycle.SUITE) {
+            logSummary();
+        }
+    }
+
+    /**
+     * @return How the current thread obtained its last session, or null before the first acquire
+     */
+    public static Acquisition getLastAcquisition() {
+        return lastAcquisition.get();
+    }
+
+    /**
+     * @return Total time saved by warm reuse over the whole run, in milliseconds
+     */
+    public static long getTotalSavedMillis() {
+        return savedMillis.sum();
+    }
+
+    /**
+     * @return Number of tests that ran on a reused warm session
+     */
+    public static long getWarmReuseCount() {
+        return warmReuses.sum();
+    }
+
+    /**
+     * @return Parked sessions that are currently idle
+     */
+    public static List<PooledSession> getParkedSessions() {
+        return Collections.unmodifiableList(new ArrayList<>(parkedSessions));
+    }
+
+    /**
+     * Create a session on a device the caller already holds, releasing the device on failure
+     */
+    static PooledSession createSession(String platformName, Device device) {
+        long start = System.currentTimeMillis();
+        try {
+            AppiumDriver driver = BaseDriver.createDriver(platformName, device);
+            freshSessions.increment();
+            freshSessionMillis.add(System.currentTimeMillis() - start);
+            return new PooledSession(driver, device, platformName);
+        } catch (RuntimeException e) {
+            DevicePool.getInstance().release(device);
+            throw e;
+        }
+    }
+
+    /**
+     * Bring the app back to a clean, foreground state without a new session
+     * @return true if the app is running in the foreground afterwards
+     */
+    static boolean resetApp(PooledSession session) {
+        AppiumDriver driver = session.getDriver();
+        boolean android = session.getPlatformName().equalsIgnoreCase("Android");
+        String appId = android
+                ? BaseDriver.getProperty("android.app.package", null)
+                : BaseDriver.getProperty("ios.bundle.id", null);
+        try {
+            InteractsWithApps apps = (InteractsWithApps) driver;
+            apps.terminateApp(appId);
+            if (android) {
+                driver.executeScript("mobile: clearApp", Collections.singletonMap("appId", appId));
+            }
+            apps.activateApp(appId);
+            ApplicationState state = apps.queryAppState(appId);
+            logger.debug("App state after reset on {}: {}", session.getDevice(), state);
+            return state == ApplicationState.RUNNING_IN_FOREGROUND;
+        } catch (Exception e) {
+            logger.warn("App reset failed on {}: {}", session.getDevice(), e.getMessage());
+            return false;
+        }
+    }
+
+    static void quitAndRelease(PooledSession session) {
+        quietQuit(session);
+        DevicePool.getInstance().release(session.getDevice());
+    }
+
+    static void quietQuit(PooledSession session) {
+        try {
+            ScreenshotSources.close(session.getDriver());
+            DeviceLogs.close(session.getDriver());
+            session.getDriver().quit();
+            logger.info("Driver quit successfully");
+        } catch (Exception e) {
+            logger.warn("Failed to quit session {} cleanly: {}", session, e.getMessage());
+        }
+    }
+
+    private static long averageFreshSessionMillis() {
+        long count = freshSessions.sum();
+        return count == 0 ? 0 : freshSessionMillis.sum() / count;
+    }
+
+    private static void logSummary() {
+        logger.info("Session summary: {} fresh session(s) (avg {} ms), {} warm reuse(s) (avg reset {} ms), "
+                        + "{} reset fallback(s), ~{} s saved",
+                freshSessions.sum(), averageFreshSessionMillis(), warmReuses.sum(),
+                warmReuses.sum() == 0 ? 0 : warmResetMillis.sum() / warmReuses.sum(),
+                resetFallbacks.sum(), savedMillis.sum() / 1000);
+    }
+
+    /**
+     * How a test obtained its session, reported per test in the Extent report
+     */
+    public static class Acquisition {
+        private final boolean reused;
+        private final long elapsedMillis;
+        private final long savedMillis;
+        private final int queueDepth;
+
+        Acquisition(boolean reused, long elapsedMillis, long savedMillis, int queueDepth) {
+            this.reused = reused;
+            this.elapsedMillis = elapsedMillis;
+            this.savedMillis = savedMillis;
+            this.queueDepth = queueDepth;
+        }
+
+        public boolean isReused() {
+            return reused;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public long getSavedMillis() {
+            return savedMillis;
+        }
+
+        /**
+         * @return Ready sessions queued when the test asked for one, or -1 without pre-warming
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        @Override
+        public String toString() {
+            if (queueDepth >= 0) {
+                return String.format("Pre-warmed session taken after %.2f seconds wait, queue depth %d (saved ~%.2f seconds)",
+                        elapsedMillis / 1000.0, queueDepth, savedMillis / 1000.0);
+            }
+            if (reused) {
+                return String.format("Warm session reset in %.2f seconds (saved ~%.2f seconds)",
+                        elapsedMillis / 1000.0, savedMillis / 1000.0);
+            }
+            return String.format("New session started in %.2f seconds", elapsedMillis / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.trustwallet.automation.base;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prepares sessions in the background so @BeforeMethod only has to take one from a queue.
+ * Idle devices get a new session started on them, and a session released by a finished test is
+ * reset (warm lifecycles) or replaced by a new one (METHOD lifecycle) while other tests keep running.
+ * Enabled with session.prewarm=true.
+ */
+public class SessionPrewarmer {
+    private static final Logger logger = LogManager.getLogger(SessionPrewarmer.class);
+    private static final long STARVED_WAIT_MILLIS = 100;
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(200);
+    private static SessionPrewarmer instance;
+
+    private final BlockingQueue<PooledSession> readySessions = new LinkedBlockingQueue<>();
+    private final ExecutorService workers;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder takes = new LongAdder();
+    private final LongAdder starvedTakes = new LongAdder();
+    private final LongAdder totalWaitMillis = new LongAdder();
+    private final LongAdder totalDepthAtTake = new LongAdder();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+
+    private SessionPrewarmer(int deviceCount) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(deviceCount, runnable -> {
+            Thread thread = new Thread(runnable, "session-prewarm-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return true if session.prewarm is enabled for this run
+     */
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(BaseDriver.getProperty("session.prewarm", "false"));
+    }
+
+    /**
+     * Get the shared pre-warmer, sized to the device pool
+     * @return SessionPrewarmer instance
+     */
+    public static synchronized SessionPrewarmer getInstance() {
+        if (instance == null) {
+            instance = new SessionPrewarmer(DevicePool.getInstance().size());
+        }
+        return instance;
+    }
+
+    /**
+     * Take a ready session for the platform, waiting for the background workers if none is queued yet.
+     * A ready session for another platform is replaced in the background by one for this platform.
+     * @param platform Android or iOS
+     * @return Session ready for a test
+     */
+    public PooledSession take(String platform) {
+        fillIdleDevices(platform);
+
+        int depth = readySessions.size();
+        long start = System.currentTimeMillis();
+        long deadline = start + DevicePool.getInstance().getAcquireTimeout().toMillis();
+        PooledSession session = null;
+        try {
+            while (session == null) {
+                session = readySessions.poll(POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+                if (session != null && !session.getPlatformName().equalsIgnoreCase(platform)) {
+                    replace(session, platform);
+                    session = null;
+                }
+                if (session == null) {
+                    if (System.currentTimeMillis() > deadline) {
+                        throw new IllegalStateException("No pre-warmed session became ready within "
+                                + DevicePool.getInstance().getAcquireTimeout().getSeconds() + " seconds");
+                    }
+                    // A failed preparation returns its device to the pool; start over on it
+                    fillIdleDevices(platform);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a pre-warmed session", e);
+        }
+
+        long waited = System.currentTimeMillis() - start;
+        takes.increment();
+        totalWaitMillis.add(waited);
+        totalDepthAtTake.add(depth);
+        maxWaitMillis.accumulateAndGet(waited, Math::max);
+        if (waited > STARVED_WAIT_MILLIS) {
+            starvedTakes.increment();
+            logger.info("Pre-warming could not keep up: waited {} ms for session {} (queue depth was {})", waited, session, depth);
+        } else {
+            logger.debug("Took pre-warmed session {} after {} ms (queue depth was {})", session, waited, depth);
+        }
+        return session;
+    }
+
+    /**
+     * Hand back a session from a finished test; it is made ready again in the background
+     * @param session Session released by a test thread
+     */
+    public void recycle(PooledSession session) {
+        submit(() -> {
+            if (SessionManager.getLifecycle() != SessionLifecycle.METHOD && SessionManager.resetApp(session)) {
+                return session;
+            }
+            SessionManager.quietQuit(session);
+            return SessionManager.createSession(session.getPlatformName(), session.getDevice());
+        });
+    }
+
+    /**
+     * Quit a ready session for another platform and start one for the requested platform on its device
+     */
+    private void replace(PooledSession session, String platform) {
+        logger.info("Ready session {} is for {}, not {}; replacing it", session, session.getPlatformName(), platform);
+        submit(() -> {
+            SessionManager.quietQuit(session);
+            return SessionManager.createSession(platform, session.getDevice());
+        });
+    }
+
+    /**
+     * Start a session for the platform on every device that is currently idle in the pool
+     */
+    private void fillIdleDevices(String platform) {
+        Device device;
+        while ((device = DevicePool.getInstance().tryAcquire(Duration.ZERO)) != null) {
+            Device idleDevice = device;
+            submit(() -> SessionManager.createSession(platform, idleDevice));
+        }
+    }
+
+    private void submit(SessionTask task) {
+        inFlight.incrementAndGet();
+        workers.submit(() -> {
+            try {
+                readySessions.offer(task.prepare());
+            } catch (Exception e) {
+                // createSession has already returned the device to the pool
+                logger.error("Background session preparation failed: {}", e.getMessage());
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Remove every ready session from the queue, e.g. to quit them at the end of a class
+     * @return Ready sessions that were queued
+     */
+    public List<PooledSession> drainReady() {
+        List<PooledSession> sessions = new ArrayList<>();
+        readySessions.drainTo(sessions);
+        return sessions;
+    }
+
+    /**
+     * Wait until no session is being prepared in the background
+     * @param timeout Maximum time to wait
+     */
+    public void awaitIdle(Duration timeout) {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        while (inFlight.get() > 0 && System.currentTimeMillis() < deadline && !Thread.currentThread().isInterrupted()) {
+            IdleTime.pause(POLL_INTERVAL);
+        }
+    }
+
+    /**
+     * Stop background work and wait for in-flight preparations so their sessions can be quit
+     */
+    public void shutdown() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(5, TimeUnit.MINUTES)) {
+                logger.warn("Pre-warm workers did not finish in time; {} preparation(s) abandoned", inFlight.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logSummary();
+    }
+
+    /**
+     * @return Number of sessions ready to be taken right now
+     */
+    public int getQueueDepth() {
+        return readySessions.size();
+    }
+
+    /**
+     * @return Number of sessions being prepared in the background right now
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return Average time a test waited for a ready session, in milliseconds
+     */
+    public long getAverageWaitMillis() {
+        long count = takes.sum();
+        return count == 0 ? 0 : totalWaitMillis.sum() / count;
+    }
+
+    /**
+     * @return Longest time a test waited for a ready session, in milliseconds
+     */
+    public long getMaxWaitMillis() {
+        return maxWaitMillis.get();
+    }
+
+    /**
+     * @return Number of takes that found no session ready and had to wait
+     */
+    public long getStarvedTakes() {
+        return starvedTakes.sum();
+    }
+
+    private void logSummary() {
+        long count = takes.sum();
+        logger.info("Pre-warm summary: {} take(s), avg wait {} ms, max wait {} ms, {} starved take(s), avg queue depth {}",
+                count, getAverageWaitMillis(), getMaxWaitMillis(), starvedTakes.sum(),
+                count == 0 ? 0 : String.format("%.2f", (double) totalDepthAtTake.sum() / count));
+    }
+
+    /**
+     * Background unit of work that yields a session ready for a test
+     */
+    private interface SessionTask {
+        PooledSession prepare();
+    }
+}
@@ -0,0 +1,411 @@
+package com.trustwallet.automation.base;
+
+import com.trustwallet.automation.base.HierarchySnapshot.Node;
+import org.openqa.selenium.By;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A locator compiled into a predicate over {@link HierarchySnapshot} nodes.
+ * Compiled queries are cached, since pages reuse the same locators on every poll.
+ */
+final class SnapshotQuery {
+    private static final Map<String, Optional<SnapshotQuery>> cache = new ConcurrentHashMap<>();
+    private static final Pattern XPATH_STEP = Pattern.compile("^//([\\w.\\-]+|\\*)");
+    private static final Pattern XPATH_PARENT = Pattern.compile("^/parent::([\\w.\\-]+|\\*)$");
+    private static final Pattern XPATH_EQUALS = Pattern.compile("^@([\\w\\-]+)\\s*=\\s*(?:'([^']*)'|\"([^\"]*)\")$");
+    private static final Pattern XPATH_FUNCTION = Pattern.compile(
+            "^(contains|starts-with)\\(\\s*@([\\w\\-]+)\\s*,\\s*(?:'([^']*)'|\"([^\"]*)\")\\s*\\)$");
+
+    private final Function<List<Node>, List<Node>> selection;
+    private final String parentTag;
+
+    /**
+     * @param selection Picks the matching nodes, in document order, from all nodes of a snapshot
+     * @param parentTag Tag of the matches' parents to return instead of the matches, or null
+     */
+    private SnapshotQuery(Function<List<Node>, List<Node>> selection, String parentTag) {
+        this.selection = selection;
+        this.parentTag = parentTag;
+    }
+
+    /**
+     * Query over nodes matching a predicate, optionally only the instance-th of them (0-based, counted
+     * across the whole hierarchy as UiSelector.instance does)
+     */
+    private static SnapshotQuery matching(Predicate<Node> predicate, int instance) {
+        return new SnapshotQuery(nodes -> {
+            List<Node> matches = new ArrayList<>();
+            int seen = 0;
+            for (Node node : nodes) {
+                if (predicate.test(node) && (instance < 0 || seen++ == instance)) {
+                    matches.add(node);
+                    if (instance >= 0) {
+                        break;
+                    }
+                }
+            }
+            return matches;
+        }, null);
+    }
+
+    /**
+     * @param locator Locator to compile
+     * @return Compiled query, or null if the locator uses unsupported syntax
+     */
+    static SnapshotQuery compile(By locator) {
+        if (!(locator instanceof By.Remotable)) {
+            return null;
+        }
+        By.Remotable.Parameters parameters = ((By.Remotable) locator).getRemoteParameters();
+        String using = parameters.using();
+        String value = String.valueOf(parameters.value());
+        return cache.computeIfAbsent(using + ':' + value, key -> Optional.ofNullable(compile(using, value))).orElse(null);
+    }
+
+    /**
+     * @param nodes Snapshot nodes in document order
+     * @return Matching nodes in document order
+     */
+    List<Node> evaluate(List<Node> nodes) {
+        List<Node> matches = selection.apply(nodes);
+        if (parentTag == null) {
+            return matches;
+        }
+        Set<Node> parents = new LinkedHashSet<>();
+        for (Node match : matches) {
+            Node parent = match.getParent();
+            if (parent != null && ("*".equals(parentTag) || parentTag.equals(parent.getTag()))) {
+                parents.add(parent);
+            }
+        }
+        return new ArrayList<>(parents);
+    }
+
+    private static SnapshotQuery compile(String using, String value) {
+        switch (using) {
+            case "-android uiautomator":
+                return compileUiSelector(value);
+            case "xpath":
+                return compileXPath(value);
+            case "accessibility id":
+                return matching(node -> value.equals(node.getContentDesc()), -1);
+            case "id":
+                return matching(node -> value.equals(node.getResourceId())
+                        || node.getResourceId().endsWith(":id/" + value), -1);
+            case "class name":
+                return matching(node -> value.equals(node.getClassName()), -1);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * new UiSelector() followed by simple property calls, e.g. .text("Create").instance(1)
+     */
+    private static SnapshotQuery compileUiSelector(String selector) {
+        String prefix = "new UiSelector()";
+        String rest = selector.trim();
+        if (!rest.startsWith(prefix)) {
+            return null;
+        }
+        rest = rest.substring(prefix.length()).trim();
+        Predicate<Node> predicate = node -> true;
+        int instance = -1;
+        int position = 0;
+        while (position < rest.length()) {
+            if (rest.charAt(position) == ';') {
+                break;
+            }
+            if (rest.charAt(position) != '.') {
+                return null;
+            }
+            int open = rest.indexOf('(', position);
+            if (open < 0) {
+                return null;
+            }
+            String method = rest.substring(position + 1, open).trim();
+            int[] end = new int[1];
+            String argument = readArgument(rest, open + 1, end);
+            if (argument == null) {
+                return null;
+            }
+            position = end[0];
+            if ("instance".equals(method)) {
+                instance = Integer.parseInt(argument);
+                continue;
+            }
+            Predicate<Node> condition = uiSelectorCondition(method, argument);
+            if (condition == null) {
+                return null;
+            }
+            predicate = predicate.and(condition);
+        }
+        return matching(predicate, instance);
+    }
+
+    /**
+     * Read a quoted string or bare token up to the closing parenthesis
+     * @param end Receives the index after the closing parenthesis
+     * @return Argument without quotes and escapes, or null if malformed
+     */
+    private static String readArgument(String text, int start, int[] end) {
+        int position = start;
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        StringBuilder argument = new StringBuilder();
+        if (position < text.length() && text.charAt(position) == '"') {
+            position++;
+            while (position < text.length() && text.charAt(position) != '"') {
+                char c = text.charAt(position);
+                if (c == '\\' && position + 1 < text.length()) {
+                    c = text.charAt(++position);
+                }
+                argument.append(c);
+                position++;
+            }
+            position++;
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        } else {
+            while (position < text.length() && text.charAt(position) != ')') {
+                argument.append(text.charAt(position++));
+            }
+        }
+        if (position >= text.length() || text.charAt(position) != ')') {
+            return null;
+        }
+        end[0] = position + 1;
+        return argument.toString().trim();
+    }
+
+    private static Predicate<Node> uiSelectorCondition(String method, String argument) {
+        switch (method) {
+            case "text":
+                return node -> argument.equals(node.getText());
+            case "textContains":
+                return node -> node.getText().contains(argument);
+            case "textStartsWith":
+                return node -> node.getText().startsWith(argument);
+            case "textMatches":
+                return matches(argument, Node::getText);
+            case "description":
+            case "content-desc":
+                return node -> argument.equals(node.getContentDesc());
+            case "descriptionContains":
+                return node -> node.getContentDesc().contains(argument);
+            case "descriptionStartsWith":
+                return node -> node.getContentDesc().startsWith(argument);
+            case "descriptionMatches":
+                return matches(argument, Node::getContentDesc);
+            case "resourceId":
+                return node -> argument.equals(node.getResourceId());
+            case "resourceIdMatches":
+                return matches(argument, Node::getResourceId);
+            case "className":
+                return node -> argument.equals(node.getClassName());
+            case "classNameMatches":
+                return matches(argument, Node::getClassName);
+            case "packageName":
+                return node -> argument.equals(node.getAttribute("package"));
+            case "index":
+                return node -> argument.equals(node.getAttribute("index"));
+            case "checkable":
+            case "checked":
+            case "clickable":
+            case "enabled":
+            case "focusable":
+            case "focused":
+            case "scrollable":
+            case "selected":
+                return node -> argument.equals(node.getAttribute(method));
+            case "longClickable":
+                return node -> argument.equals(node.getAttribute("long-clickable"));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * //tag[predicates] with optional /parent::tag. A predicate is a 1-based position or terms joined with "and",
+     * each @attr='value', contains(@attr, 'value') or starts-with(@attr, 'value'). Quotes may contain brackets
+     * and "and". As in XPath, a position counts among the children of the same parent that passed the tag and
+     * the predicates before it, so //tag[2] is every tag that is its parent's second tag child. Anything else
+     * (or, not(), last(), text(), further steps) is not compiled and the locator is left to the driver.
+     */
+    private static SnapshotQuery compileXPath(String xpath) {
+        String text = xpath.trim();
+        Matcher step = XPATH_STEP.matcher(text);
+        if (!step.find()) {
+            return null;
+        }
+        String tag = step.group(1);
+        List<Function<List<Node>, List<Node>>> filters = new ArrayList<>();
+        if (!"*".equals(tag)) {
+            filters.add(filter(node -> tag.equals(node.getTag())));
+        }
+        int position = step.end();
+        while (position < text.length() && text.charAt(position) == '[') {
+            int close = closingBracket(text, position);
+            if (close < 0) {
+                return null;
+            }
+            String expression = text.substring(position + 1, close).trim();
+            position = close + 1;
+            if (expression.matches("\\d+")) {
+                filters.add(siblingPosition(Integer.parseInt(expression)));
+                continue;
+            }
+            List<String> terms = splitAnd(expression);
+            if (terms == null) {
+                return null;
+            }
+            for (String term : terms) {
+                Predicate<Node> condition = xpathCondition(term);
+                if (condition == null) {
+                    return null;
+                }
+                filters.add(filter(condition));
+            }
+        }
+        String parentTag = null;
+        if (position < text.length()) {
+            Matcher parent = XPATH_PARENT.matcher(text.substring(position));
+            if (!parent.matches()) {
+                return null;
+            }
+            parentTag = parent.group(1);
+        }
+        return new SnapshotQuery(nodes -> {
+            List<Node> selected = nodes;
+            for (Function<List<Node>, List<Node>> filter : filters) {
+                selected = filter.apply(selected);
+            }
+            return selected;
+        }, parentTag);
+    }
+
+    /**
+     * @return Index of the ] closing the [ at open, skipping quoted text, or -1 if there is none
+     */
+    private static int closingBracket(String text, int open) {
+        char quote = 0;
+        for (int i = open + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '[') {
+                return -1;
+            } else if (c == ']') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Split a predicate on "and" outside quotes and parentheses
+     * @return Trimmed terms, or null if the predicate has an unterminated quote or unbalanced parentheses
+     */
+    private static List<String> splitAnd(String expression) {
+        List<String> terms = new ArrayList<>();
+        char quote = 0;
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && Character.isWhitespace(c) && expression.startsWith("and", i + 1)
+                    && i + 4 < expression.length() && Character.isWhitespace(expression.charAt(i + 4))) {
+                terms.add(expression.substring(start, i).trim());
+                start = i + 5;
+                i += 4;
+            }
+        }
+        if (quote != 0 || depth != 0) {
+            return null;
+        }
+        terms.add(expression.substring(start).trim());
+        return terms;
+    }
+
+    private static Function<List<Node>, List<Node>> filter(Predicate<Node> condition) {
+        return nodes -> {
+            List<Node> kept = new ArrayList<>();
+            for (Node node : nodes) {
+                if (condition.test(node)) {
+                    kept.add(node);
+                }
+            }
+            return kept;
+        };
+    }
+
+    /**
+     * Keep the nodes that are the position-th (1-based) of the remaining nodes sharing their parent
+     */
+    private static Function<List<Node>, List<Node>> siblingPosition(int position) {
+        return nodes -> {
+            Map<Node, Integer> seen = new IdentityHashMap<>();
+            List<Node> kept = new ArrayList<>();
+            for (Node node : nodes) {
+                // IdentityHashMap accepts the null key of top-level nodes
+                int index = seen.merge(node.getParent(), 1, Integer::sum);
+                if (index == position) {
+                    kept.add(node);
+                }
+            }
+            return kept;
+        };
+    }
+
+    private static Predicate<Node> xpathCondition(String term) {
+        Matcher equals = XPATH_EQUALS.matcher(term);
+        if (equals.matches()) {
+            String attribute = equals.group(1);
+            String value = equals.group(2) != null ? equals.group(2) : equals.group(3);
+            return node -> value.equals(node.getAttribute(attribute));
+        }
+        Matcher function = XPATH_FUNCTION.matcher(term);
+        if (function.matches()) {
+            String attribute = function.group(2);
+            String value = function.group(3) != null ? function.group(3) : function.group(4);
+            if ("contains".equals(function.group(1))) {
+                return node -> node.getAttribute(attribute) != null && node.getAttribute(attribute).contains(value);
+            }
+            return node -> node.getAttribute(attribute) != null && node.getAttribute(attribute).startsWith(value);
+        }
+        return null;
+    }
+
+    private static Predicate<Node> matches(String regex, Function<Node, String> attribute) {
+        Pattern pattern = Pattern.compile(regex);
+        return node -> pattern.matcher(attribute.apply(node)).matches();
+    }
+}
@@ -0,0 +1,132 @@
+package com.trustwallet.automation.base;
+
+import io.appium.java_client.serverevents.ServerEvents;
+import io.appium.java_client.serverevents.TimedEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Time spent in each phase of starting one Appium session.
+ * Client-side phases are measured around the calls in BaseDriver; server-side phases are
+ * derived from Appium's event timeline (eventTimings capability): the gap before each event
+ * is charged to the phase that event belongs to.
+ */
+public class StartupProfile {
+    public static final String SESSION_CREATE = "sessionCreate";
+    public static final String HTTP_OVERHEAD = "httpOverhead";
+    public static final String SERVER_LAUNCH = "automationServerLaunch";
+    public static final String APP_INSTALL = "appInstall";
+    public static final String APP_LAUNCH = "appLaunch";
+    public static final String OTHER_SERVER_SETUP = "otherServerSetup";
+    public static final String FIRST_IMPLICIT_WAIT = "firstImplicitWait";
+
+    private final String profileName;
+    private final String deviceUdid;
+    private final long startedAtMillis = System.currentTimeMillis();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Map<String, Long> serverEvents = new LinkedHashMap<>();
+
+    public StartupProfile(String profileName, String deviceUdid) {
+        this.profileName = profileName;
+        this.deviceUdid = deviceUdid;
+    }
+
+    /**
+     * Record the duration of a phase
+     * @param phase Phase name
+     * @param millis Duration in milliseconds
+     */
+    public void record(String phase, long millis) {
+        phases.merge(phase, Math.max(0, millis), Long::sum);
+    }
+
+    /**
+     * Break the server-side part of session creation into phases using Appium's event timeline
+     * @param events Events returned by the driver, may be null when eventTimings is not supported
+     */
+    public void addServerEvents(ServerEvents events) {
+        if (events == null || events.getEvents() == null) {
+            return;
+        }
+        List<long[]> timeline = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (TimedEvent event : events.getEvents()) {
+            for (Long occurrence : event.getOccurrences()) {
+                names.add(event.getName());
+                timeline.add(new long[] {occurrence, names.size() - 1});
+            }
+        }
+        if (timeline.size() < 2) {
+            return;
+        }
+        timeline.sort((a, b) -> Long.compare(a[0], b[0]));
+
+        long first = timeline.get(0)[0];
+        for (int i = 1; i < timeline.size(); i++) {
+            String name = names.get((int) timeline.get(i)[1]);
+            long gap = timeline.get(i)[0] - timeline.get(i - 1)[0];
+            serverEvents.put(name, timeline.get(i)[0] - first);
+            record(classify(name), gap);
+        }
+        long serverSpan = timeline.get(timeline.size() - 1)[0] - first;
+        Long total = phases.get(SESSION_CREATE);
+        if (total != null) {
+            record(HTTP_OVERHEAD, total - serverSpan);
+        }
+    }
+
+    /**
+     * Map an Appium event name onto a startup phase
+     */
+    static String classify(String eventName) {
+        String name = eventName.toLowerCase(Locale.ROOT);
+        if (name.contains("install")) {
+            return APP_INSTALL;
+        }
+        if (name.contains("launch") || name.contains("activity") || name.contains("appstart") || name.contains("appwait")) {
+            return APP_LAUNCH;
+        }
+        if (name.contains("uiautomator") || name.contains("server") || name.contains("wda") || name.contains("xcodebuild")) {
+            return SERVER_LAUNCH;
+        }
+        return OTHER_SERVER_SETUP;
+    }
+
+    public String getProfileName() {
+        return profileName;
+    }
+
+    public String getDeviceUdid() {
+        return deviceUdid;
+    }
+
+    public long getStartedAtMillis() {
+        return startedAtMillis;
+    }
+
+    /**
+     * @return Phase durations in milliseconds, in the order they were recorded
+     */
+    public Map<String, Long> getPhases() {
+        return Collections.unmodifiableMap(phases);
+    }
+
+    /**
+     * @return Raw server events with their offset from the session request, in milliseconds
+     */
+    public Map<String, Long> getServerEvents() {
+        return Collections.unmodifiableMap(serverEvents);
+    }
+
+    /**
+     * @return Total startup time: session creation plus the first implicit wait
+     */
+    public long getTotalMillis() {
+        return phases.getOrDefault(SESSION_CREATE, 0L) + phases.getOrDefault(FIRST_IMPLICIT_WAIT, 0L);
+    }
+}
@@ -0,0 +1,95 @@
+package com.trustwallet.automation.base;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects a StartupProfile for every session that is created.
+ * Each profile is appended to test-output/startup-profiles.jsonl (one JSON object per line,
+ * kept across runs) so FULL and FAST profiles can be compared, and per-profile averages
+ * are available for the report.
+ */
+public class StartupProfiler {
+    private static final Logger logger = LogManager.getLogger(StartupProfiler.class);
+    private static final String PROFILE_LOG = "test-output/startup-profiles.jsonl";
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final Map<String, LongAdder> sessionCounts = new ConcurrentHashMap<>();
+    private static final Map<String, Map<String, LongAdder>> phaseTotals = new ConcurrentHashMap<>();
+
+    /**
+     * Record a finished startup profile
+     * @param profile Profile of a session that was just created
+     */
+    public static void record(StartupProfile profile) {
+        sessionCounts.computeIfAbsent(profile.getProfileName(), key -> new LongAdder()).increment();
+        Map<String, LongAdder> totals = phaseTotals.computeIfAbsent(profile.getProfileName(), key -> new ConcurrentHashMap<>());
+        profile.getPhases().forEach((phase, millis) -> totals.computeIfAbsent(phase, key -> new LongAdder()).add(millis));
+
+        logger.info("Session startup on {} with profile {} took {} ms: {}",
+                profile.getDeviceUdid(), profile.getProfileName(), profile.getTotalMillis(), profile.getPhases());
+        append(profile);
+    }
+
+    /**
+     * Average phase durations for a profile over this run
+     * @param profileName Capability profile name
+     * @return Phase name to average milliseconds, sorted by phase name
+     */
+    public static Map<String, Long> getAverages(String profileName) {
+        Map<String, Long> averages = new TreeMap<>();
+        LongAdder count = sessionCounts.get(profileName);
+        Map<String, LongAdder> totals = phaseTotals.get(profileName);
+        if (count == null || totals == null || count.sum() == 0) {
+            return averages;
+        }
+        totals.forEach((phase, total) -> averages.put(phase, total.sum() / count.sum()));
+        return averages;
+    }
+
+    /**
+     * @return One human-readable line per profile used in this run
+     */
+    public static Map<String, String> getSummary() {
+        Map<String, String> summary = new LinkedHashMap<>();
+        for (String profileName : sessionCounts.keySet()) {
+            StringBuilder line = new StringBuilder();
+            line.append(sessionCounts.get(profileName).sum()).append(" session(s)");
+            getAverages(profileName).forEach((phase, millis) ->
+                    line.append(", ").append(phase).append(' ').append(millis).append(" ms"));
+            summary.put(profileName, line.toString());
+        }
+        return summary;
+    }
+
+    private static synchronized void append(StartupProfile profile) {
+        ObjectNode json = mapper.createObjectNode();
+        json.put("profile", profile.getProfileName());
+        json.put("device", profile.getDeviceUdid());
+        json.put("startedAt", profile.getStartedAtMillis());
+        json.put("totalMillis", profile.getTotalMillis());
+        json.set("phases", mapper.valueToTree(profile.getPhases()));
+        json.set("serverEvents", mapper.valueToTree(profile.getServerEvents()));
+
+        File file = new File(PROFILE_LOG);
+        file.getParentFile().mkdirs();
+        try (Writer writer = new FileWriter(file, true)) {
+            writer.write(mapper.writeValueAsString(json));
+            writer.write(System.lineSeparator());
+        } catch (IOException e) {
+            logger.warn("Failed to write startup profile: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.trustwallet.automation.base;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Device log read line by line from a stream that stays open, e.g. the output of adb logcat
+ */
+public class StreamDeviceLogSource implements DeviceLogSource {
+
+    /**
+     * Opens the log stream
+     */
+    public interface StreamOpener {
+        InputStream open() throws IOException;
+    }
+
+    private final StreamOpener opener;
+    private volatile InputStream input;
+    private volatile boolean closed;
+
+    public StreamDeviceLogSource(StreamOpener opener) {
+        this.opener = opener;
+    }
+
+    /**
+     * @param udid Device serial
+     * @return Source following adb logcat for the device from its most recent line on
+     */
+    public static StreamDeviceLogSource forAdb(String udid) {
+        return new StreamDeviceLogSource(() -> {
+            Process process = new ProcessBuilder("adb", "-s", udid, "logcat", "-v", "threadtime", "-T", "1")
+                    .redirectErrorStream(true).start();
+            return new FilterInputStream(process.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    process.destroy();
+                    super.close();
+                }
+            };
+        });
+    }
+
+    @Override
+    public void stream(Consumer<String> sink) throws IOException {
+        input = opener.open();
+        if (closed) {
+            input.close();
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while (!closed && (line = reader.readLine()) != null) {
+                sink.accept(line);
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        InputStream current = input;
+        if (current != null) {
+            try {
+                // Ends the stream the reader is blocked on
+                current.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
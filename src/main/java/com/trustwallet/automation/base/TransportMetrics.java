@@ -0,0 +1,90 @@
+package com.trustwallet.automation.base;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates how each command's latency splits into serialization, network wait and parsing.
+ * Registered as a {@link CommandListener} the first time a session is created.
+ */
+public class TransportMetrics implements CommandListener {
+    private static final TransportMetrics instance = new TransportMetrics();
+
+    private final Map<String, Totals> totalsByCommand = new ConcurrentHashMap<>();
+    private final ThreadLocal<long[]> threadCommandCount = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * @return The shared TransportMetrics listener
+     */
+    public static TransportMetrics getInstance() {
+        return instance;
+    }
+
+    @Override
+    public void onCommand(CommandTiming timing) {
+        Totals totals = totalsByCommand.computeIfAbsent(timing.getCommandName(), key -> new Totals());
+        totals.count.increment();
+        totals.serializeNanos.add(timing.getSerializeNanos());
+        totals.networkNanos.add(timing.getNetworkNanos());
+        totals.parseNanos.add(timing.getParseNanos());
+        threadCommandCount.get()[0]++;
+    }
+
+    /**
+     * @return One line per command: count and average serialize / network / parse milliseconds
+     */
+    public Map<String, String> getSummary() {
+        Map<String, String> summary = new TreeMap<>();
+        totalsByCommand.forEach((command, totals) -> {
+            long count = totals.count.sum();
+            summary.put(command, String.format("%d call(s), avg serialize %.2f ms, network %.2f ms, parse %.2f ms",
+                    count, averageMillis(totals.serializeNanos, count), averageMillis(totals.networkNanos, count),
+                    averageMillis(totals.parseNanos, count)));
+        });
+        return summary;
+    }
+
+    /**
+     * @return Total number of commands sent over all sessions
+     */
+    public long getCommandCount() {
+        return totalsByCommand.values().stream().mapToLong(totals -> totals.count.sum()).sum();
+    }
+
+    /**
+     * Commands are reported on the thread that sent them, so the difference between two readings
+     * is the number of round trips a block of code made
+     * @return Number of commands sent from the current thread
+     */
+    public long getThreadCommandCount() {
+        return threadCommandCount.get()[0];
+    }
+
+    /**
+     * @return Total client-side overhead (serialization plus parsing) over all commands, in milliseconds
+     */
+    public double getClientOverheadMillis() {
+        return totalsByCommand.values().stream()
+                .mapToLong(totals -> totals.serializeNanos.sum() + totals.parseNanos.sum()).sum() / 1_000_000.0;
+    }
+
+    /**
+     * @return Total network wait over all commands, in milliseconds
+     */
+    public double getNetworkMillis() {
+        return totalsByCommand.values().stream().mapToLong(totals -> totals.networkNanos.sum()).sum() / 1_000_000.0;
+    }
+
+    private static double averageMillis(LongAdder nanos, long count) {
+        return count == 0 ? 0 : nanos.sum() / (double) count / 1_000_000.0;
+    }
+
+    private static class Totals {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder serializeNanos = new LongAdder();
+        private final LongAdder networkNanos = new LongAdder();
+        private final LongAdder parseNanos = new LongAdder();
+    }
+}
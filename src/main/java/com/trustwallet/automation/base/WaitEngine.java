@@ -0,0 +1,360 @@
+package com.trustwallet.automation.base;
+
+import io.appium.java_client.AppiumDriver;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.remote.SessionId;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * The only place the framework waits for the UI. Sessions run with a zero implicit wait,
+ * so every probe is a single round trip that answers immediately, and waiting happens here
+ * in one deadline-aware polling loop: the last probe runs at the deadline and the total wait
+ * never exceeds the timeout, however many probes a check makes.
+ * Each locator's appear latency is recorded in {@link WaitHistory}: polling starts fast and backs
+ * off as the wait outlasts the locator's usual latency, and learned timeouts can cut hopeless waits short.
+ * Visibility and clickability probes reuse element handles from {@link ElementCache} until a mutating
+ * command may have changed the screen.
+ * Time slept between probes is accounted as wait polling in {@link IdleTime}.
+ * When a wait keeps missing, {@link InterstitialWatcher} is asked whether a popup is covering the screen.
+ */
+public class WaitEngine {
+    private static final Logger logger = LogManager.getLogger(WaitEngine.class);
+
+    private final AppiumDriver driver;
+    private final Duration defaultTimeout;
+    private final long minPollMillis;
+    private final long maxPollMillis;
+
+    /**
+     * Create a wait engine with default.timeout (seconds) and wait.poll.min / wait.poll.max (milliseconds) from config
+     * @param driver AppiumDriver instance
+     */
+    public WaitEngine(AppiumDriver driver) {
+        this(driver,
+                Duration.ofSeconds(Long.parseLong(BaseDriver.getProperty("default.timeout", "15"))),
+                Long.parseLong(BaseDriver.getProperty("wait.poll.min", "50")),
+                Long.parseLong(BaseDriver.getProperty("wait.poll.max", "1000")));
+    }
+
+    public WaitEngine(AppiumDriver driver, Duration defaultTimeout, long minPollMillis, long maxPollMillis) {
+        this.driver = driver;
+        this.defaultTimeout = defaultTimeout;
+        this.minPollMillis = minPollMillis;
+        this.maxPollMillis = maxPollMillis;
+    }
+
+    public Duration getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    /**
+     * Poll a condition until it returns a non-null value other than false. No latency history is kept:
+     * that is only kept under keys derived from locators, never under free-text descriptions.
+     * @param description What is being waited for, for log and timeout messages
+     * @param timeout Maximum time to wait
+     * @param condition Probe; NoSuchElementException and StaleElementReferenceException count as "not yet"
+     * @return The condition's value
+     * @throws TimeoutException if the condition is not met by the deadline
+     */
+    public <T> T until(String description, Duration timeout, Supplier<T> condition) {
+        return poll(null, description, null, timeout, true, condition);
+    }
+
+    /**
+     * Poll a condition with the default timeout
+     * @see #until(String, Duration, Supplier)
+     */
+    public <T> T until(String description, Supplier<T> condition) {
+        return until(description, defaultTimeout, condition);
+    }
+
+    /**
+     * @param historyKey Key to record the latency under, or null for waits on an element instance
+     * @param condition What is waited for, e.g. "visibility"
+     * @param subject What it is waited for on, or null; only turned into a string when a message needs it
+     * @param watchInterstitials Whether a miss may be caused by an interstitial covering the screen
+     */
+    private <T> T poll(String historyKey, String condition, Object subject, Duration timeout, boolean watchInterstitials,
+                       Supplier<T> probe) {
+        WaitHistory.LocatorHistory history = historyKey != null ? WaitHistory.getInstance().get(historyKey) : null;
+        Duration effectiveTimeout = history != null ? WaitHistory.getInstance().effectiveTimeout(history, timeout) : timeout;
+        long basePollMillis = history != null ? basePollMillis(history) : minPollMillis;
+
+        long start = System.nanoTime();
+        long deadline = start + effectiveTimeout.toNanos();
+        RuntimeException lastError = null;
+        while (true) {
+            try {
+                T value = probe.get();
+                if (value != null && !Boolean.FALSE.equals(value)) {
+                    long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+                    if (history != null) {
+                        history.recordSuccess(elapsedMillis);
+                    }
+                    InterstitialWatcher.passed();
+                    if (logger.isTraceEnabled()) {
+                        logger.trace("{} after {} ms", describe(condition, subject), elapsedMillis);
+                    }
+                    return value;
+                }
+            } catch (NoSuchElementException | StaleElementReferenceException e) {
+                lastError = e;
+            }
+            long now = System.nanoTime();
+            if (watchInterstitials && now - start >= InterstitialWatcher.getScanAfterMillis() * 1_000_000
+                    && InterstitialWatcher.handleIfPresent(driver)) {
+                // Something was covering the screen; probe again straight away
+                continue;
+            }
+            long remaining = deadline - now;
+            if (remaining <= 0) {
+                if (history != null) {
+                    history.recordTimeout();
+                }
+                String learned = effectiveTimeout.equals(timeout) ? ""
+                        : String.format(" (learned timeout, %d ms requested)", timeout.toMillis());
+                throw new TimeoutException(String.format("Timed out after %d ms waiting for %s%s",
+                        effectiveTimeout.toMillis(), describe(condition, subject), learned), lastError);
+            }
+            IdleTime.pollDelay(Math.min(nextPollMillis(basePollMillis, (now - start) / 1_000_000) * 1_000_000, remaining));
+        }
+    }
+
+    private static String describe(String condition, Object subject) {
+        return subject == null ? condition : condition + " of " + subject;
+    }
+
+    /**
+     * Poll quickly for locators that usually appear fast, more slowly for ones that take seconds
+     */
+    private long basePollMillis(WaitHistory.LocatorHistory history) {
+        if (history.getSampleCount() == 0) {
+            return minPollMillis;
+        }
+        return clampPoll(history.percentileMillis(50) / 10);
+    }
+
+    /**
+     * Back off as the wait goes on: never sleep more than a quarter of the time already waited
+     */
+    private long nextPollMillis(long basePollMillis, long elapsedMillis) {
+        return clampPoll(Math.max(basePollMillis, elapsedMillis / 4));
+    }
+
+    private long clampPoll(long millis) {
+        return Math.max(minPollMillis, Math.min(maxPollMillis, millis));
+    }
+
+    /**
+     * @param locator By locator
+     * @param timeout Maximum time to wait
+     * @return First matching element once it exists
+     */
+    public WebElement forPresence(By locator, Duration timeout) {
+        return poll(locator.toString(), "presence", locator, timeout, true, () -> findNow(locator));
+    }
+
+    /**
+     * @param locator By locator
+     * @param timeout Maximum time to wait
+     * @return First matching element once it is displayed
+     */
+    public WebElement forVisibility(By locator, Duration timeout) {
+        return poll(locator.toString(), "visibility", locator, timeout, true, () -> resolve(locator, WaitEngine::visibleOrNull));
+    }
+
+    /**
+     * @param element Element to wait for
+     * @param timeout Maximum time to wait
+     * @return The element once it is displayed
+     */
+    public WebElement forVisibility(WebElement element, Duration timeout) {
+        return poll(null, "visibility", element, timeout, true, () -> visibleOrNull(element));
+    }
+
+    /**
+     * @param locator By locator
+     * @param timeout Maximum time to wait
+     * @return First matching element once it is displayed and enabled
+     */
+    public WebElement forClickability(By locator, Duration timeout) {
+        return poll(locator.toString(), "clickability", locator, timeout, true, () -> resolve(locator, WaitEngine::clickableOrNull));
+    }
+
+    /**
+     * @param element Element to wait for
+     * @param timeout Maximum time to wait
+     * @return The element once it is displayed and enabled
+     */
+    public WebElement forClickability(WebElement element, Duration timeout) {
+        return poll(null, "clickability", element, timeout, true, () -> clickableOrNull(element));
+    }
+
+    /**
+     * Wait until any of the locators matches a displayed element. Several supported locators are checked on
+     * one hierarchy snapshot per poll instead of one find each.
+     * @param timeout Maximum time to wait
+     * @param locators Locators, all probed on every poll
+     * @return true once one is visible
+     * @throws TimeoutException if none is visible by the deadline
+     */
+    public boolean forAnyVisible(Duration timeout, By... locators) {
+        List<By> list = Arrays.asList(locators);
+        boolean useSnapshot = locators.length > 1 && list.stream().allMatch(HierarchySnapshot::supports);
+        return poll("any of " + list, "visibility", list, timeout, true, () -> {
+            HierarchySnapshot snapshot = useSnapshot ? HierarchySnapshot.capture(driver) : null;
+            for (By locator : locators) {
+                if (useSnapshot ? snapshot.isVisible(locator) : isVisible(locator)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Wait for whichever of several alternative locators first finds a displayed element. All alternatives
+     * are probed in every polling cycle, so the worst case is one timeout rather than one per alternative.
+     * @param group Name the alternatives' statistics are kept under in {@link LocatorStats}, or null to keep none
+     * @param timeout Maximum time to wait
+     * @param alternatives Locators for the same element, in order of preference
+     * @return The element and the alternative that found it
+     */
+    public LocatorMatch forFirstVisible(String group, Duration timeout, By... alternatives) {
+        return forFirst(group, "visibility", timeout, WaitEngine::visibleOrNull, alternatives);
+    }
+
+    /**
+     * Wait for whichever of several alternative locators first finds a displayed and enabled element
+     * @see #forFirstVisible(String, Duration, By...)
+     */
+    public LocatorMatch forFirstClickable(String group, Duration timeout, By... alternatives) {
+        return forFirst(group, "clickability", timeout, WaitEngine::clickableOrNull, alternatives);
+    }
+
+    private LocatorMatch forFirst(String group, String condition, Duration timeout, UnaryOperator<WebElement> check,
+                                  By... alternatives) {
+        if (alternatives.length == 0) {
+            throw new IllegalArgumentException("At least one locator is required");
+        }
+        String historyKey = condition + " of " + (group != null ? group : "any of " + Arrays.toString(alternatives));
+        // Alternatives with the fastest lookups in past runs are tried first
+        int[] order = group != null ? LocatorStats.getInstance().order(group, alternatives) : IntStream.range(0, alternatives.length).toArray();
+        // With several alternatives, one snapshot per cycle tells which ones are there; only one is resolved
+        boolean useSnapshot = alternatives.length > 1 && Arrays.stream(alternatives).allMatch(HierarchySnapshot::supports);
+        long start = System.nanoTime();
+        return poll(historyKey, historyKey, null, timeout, true, () -> {
+            // Presence per alternative in this cycle; null until an alternative has been checked
+            Boolean[] present = new Boolean[alternatives.length];
+            if (useSnapshot) {
+                HierarchySnapshot snapshot = HierarchySnapshot.capture(driver);
+                for (int i = 0; i < alternatives.length; i++) {
+                    present[i] = snapshot.isVisible(alternatives[i]);
+                }
+            }
+            for (int i : order) {
+                if (Boolean.FALSE.equals(present[i])) {
+                    continue;
+                }
+                long lookupStart = System.nanoTime();
+                WebElement element = resolve(alternatives[i], check);
+                long lookupMillis = (System.nanoTime() - lookupStart) / 1_000_000;
+                present[i] = element != null;
+                if (element != null) {
+                    if (group != null) {
+                        LocatorStats.getInstance().recordResolution(group, alternatives, i, lookupMillis, present);
+                    }
+                    return new LocatorMatch(element, alternatives[i], i, (System.nanoTime() - start) / 1_000_000);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Wait until nothing matching the locator is displayed. An element that is already
+     * absent costs one round trip.
+     * @param locator By locator
+     * @param timeout Maximum time to wait
+     * @return true if the element is gone, false if it was still displayed at the deadline
+     */
+    public boolean forAbsence(By locator, Duration timeout) {
+        try {
+            return poll("absence of " + locator, "absence", locator, timeout, false, () -> visibleOrNull(findNow(locator)) == null);
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Look for an element once, without waiting
+     * @param locator By locator
+     * @return First matching element, or null if there is none
+     */
+    public WebElement findNow(By locator) {
+        List<WebElement> found = driver.findElements(locator);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * @param locator By locator
+     * @return true if at least one element matches right now
+     */
+    public boolean isPresent(By locator) {
+        return !driver.findElements(locator).isEmpty();
+    }
+
+    /**
+     * @param locator By locator
+     * @return true if an element matches and is displayed right now
+     */
+    public boolean isVisible(By locator) {
+        try {
+            return visibleOrNull(findNow(locator)) != null;
+        } catch (StaleElementReferenceException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Probe an element by locator, reusing the handle from {@link ElementCache} when the screen has not
+     * been changed since it was resolved. A stale cached handle is dropped and the locator resolved again.
+     * @param check Probe on the element (also given null when nothing matches)
+     * @return The probe's result
+     */
+    private WebElement resolve(By locator, UnaryOperator<WebElement> check) {
+        ElementCache cache = ElementCache.getInstance();
+        SessionId sessionId = driver.getSessionId();
+        WebElement cached = cache.get(sessionId, locator);
+        if (cached != null) {
+            try {
+                return check.apply(cached);
+            } catch (StaleElementReferenceException e) {
+                cache.evictStale(sessionId, locator);
+            }
+        }
+        WebElement found = findNow(locator);
+        cache.put(sessionId, locator, found);
+        return check.apply(found);
+    }
+
+    private static WebElement visibleOrNull(WebElement element) {
+        return element != null && element.isDisplayed() ? element : null;
+    }
+
+    private static WebElement clickableOrNull(WebElement element) {
+        return element != null && element.isDisplayed() && element.isEnabled() ? element : null;
+    }
+}
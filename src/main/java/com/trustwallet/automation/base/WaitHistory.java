@@ -0,0 +1,244 @@
+package com.trustwallet.automation.base;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How long each locator took to appear in past waits, kept in wait.stats.file across runs.
+ * {@link WaitEngine} uses it to pick a poll interval that matches the locator's usual latency
+ * and, with wait.timeout.mode=apply, to shorten a wait's timeout to a high percentile of its
+ * history (times wait.timeout.headroom) so hopeless waits fail fast. With wait.timeout.mode=suggest
+ * the learned timeouts are only reported.
+ */
+public class WaitHistory {
+    private static final Logger logger = LogManager.getLogger(WaitHistory.class);
+    private static WaitHistory instance;
+
+    private final Map<String, LocatorHistory> histories = new ConcurrentHashMap<>();
+    private final File file;
+    private final TimeoutMode timeoutMode;
+    private final double percentile;
+    private final double headroom;
+    private final long floorMillis;
+    private final int minSamples;
+    private final int maxSamples;
+
+    /**
+     * How learned timeouts are used
+     */
+    public enum TimeoutMode {
+        /** Only record latencies and adapt polling. */
+        OFF,
+        /** Log a suggested timeout per locator at the end of the run. */
+        SUGGEST,
+        /** Shorten waits to the learned timeout when it is below the requested one. */
+        APPLY;
+
+        /**
+         * Parse the configured mode, defaulting to SUGGEST
+         * @param value Value from config.properties
+         * @return TimeoutMode
+         */
+        public static TimeoutMode fromConfig(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return SUGGEST;
+            }
+            return TimeoutMode.valueOf(value.trim().toUpperCase());
+        }
+    }
+
+    private WaitHistory() {
+        this.file = new File(BaseDriver.getProperty("wait.stats.file", "test-output/wait-stats.json"));
+        this.timeoutMode = TimeoutMode.fromConfig(BaseDriver.getProperty("wait.timeout.mode", "suggest"));
+        this.percentile = Double.parseDouble(BaseDriver.getProperty("wait.timeout.percentile", "99"));
+        this.headroom = Double.parseDouble(BaseDriver.getProperty("wait.timeout.headroom", "2.0"));
+        this.floorMillis = Long.parseLong(BaseDriver.getProperty("wait.timeout.floor", "2")) * 1000;
+        this.minSamples = Integer.parseInt(BaseDriver.getProperty("wait.timeout.min.samples", "20"));
+        this.maxSamples = Integer.parseInt(BaseDriver.getProperty("wait.stats.history", "200"));
+        load();
+    }
+
+    /**
+     * @return The shared history, loaded from wait.stats.file on first use
+     */
+    public static synchronized WaitHistory getInstance() {
+        if (instance == null) {
+            instance = new WaitHistory();
+        }
+        return instance;
+    }
+
+    /**
+     * @param key Key derived from the locators waited for, e.g. the locator itself or a locator group
+     * @return History for the key, created empty if it has never been waited for
+     */
+    public LocatorHistory get(String key) {
+        LocatorHistory history = histories.get(key);
+        return history != null ? history : histories.computeIfAbsent(key, k -> new LocatorHistory(maxSamples));
+    }
+
+    public TimeoutMode getTimeoutMode() {
+        return timeoutMode;
+    }
+
+    /**
+     * Timeout to use for a wait: the requested one, or the learned one if shorter and timeouts are applied
+     * @param history History of the locator being waited for
+     * @param requested Timeout the caller asked for
+     * @return Effective timeout
+     */
+    public Duration effectiveTimeout(LocatorHistory history, Duration requested) {
+        if (timeoutMode != TimeoutMode.APPLY) {
+            return requested;
+        }
+        long learned = learnedTimeoutMillis(history);
+        return learned > 0 && learned < requested.toMillis() ? Duration.ofMillis(learned) : requested;
+    }
+
+    /**
+     * @param history History of a locator
+     * @return Percentile of past latencies times headroom (at least the floor), or -1 if there are too few samples
+     */
+    public long learnedTimeoutMillis(LocatorHistory history) {
+        if (history.getSampleCount() < minSamples) {
+            return -1;
+        }
+        return Math.max(floorMillis, (long) Math.ceil(history.percentileMillis(percentile) * headroom));
+    }
+
+    /**
+     * @return One line per locator with enough history: latency percentiles, timeouts and the learned timeout
+     */
+    public Map<String, String> getSuggestions() {
+        Map<String, String> suggestions = new TreeMap<>();
+        histories.forEach((key, history) -> {
+            long learned = learnedTimeoutMillis(history);
+            if (learned > 0) {
+                suggestions.put(key, String.format("p50 %d ms, p%.0f %d ms over %d waits, %d timeout(s) -> timeout %.1f s",
+                        history.percentileMillis(50), percentile, history.percentileMillis(percentile),
+                        history.getSampleCount(), history.getTimeouts(), learned / 1000.0));
+            }
+        });
+        return suggestions;
+    }
+
+    /**
+     * Write the history back to wait.stats.file
+     */
+    public synchronized void save() {
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ObjectNode root = mapper.createObjectNode();
+        ObjectNode locators = root.putObject("locators");
+        new TreeMap<>(histories).forEach((key, history) -> {
+            ObjectNode node = locators.putObject(key);
+            node.put("timeouts", history.getTimeouts());
+            long learned = learnedTimeoutMillis(history);
+            if (learned > 0) {
+                node.put("suggestedTimeoutMs", learned);
+            }
+            node.set("samplesMs", mapper.valueToTree(history.getSamples()));
+        });
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        try {
+            mapper.writeValue(file, root);
+            logger.info("Wait history for {} locators written to {}", histories.size(), file.getAbsolutePath());
+        } catch (IOException e) {
+            logger.warn("Failed to write wait history: {}", e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            JsonNode locators = new ObjectMapper().readTree(file).path("locators");
+            Iterator<Map.Entry<String, JsonNode>> entries = locators.fields();
+            while (entries.hasNext()) {
+                Map.Entry<String, JsonNode> entry = entries.next();
+                LocatorHistory history = get(entry.getKey());
+                history.timeouts = entry.getValue().path("timeouts").asLong();
+                for (JsonNode sample : entry.getValue().path("samplesMs")) {
+                    history.recordSuccess(sample.asLong());
+                }
+            }
+            logger.info("Loaded wait history for {} locators from {}", histories.size(), file.getAbsolutePath());
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable wait history {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * The most recent appear latencies of one locator, oldest overwritten first
+     */
+    public static class LocatorHistory {
+        private final long[] samples;
+        private int next;
+        private int size;
+        private long timeouts;
+
+        LocatorHistory(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        /**
+         * @param millis Time the condition took to become true
+         */
+        public synchronized void recordSuccess(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        public synchronized void recordTimeout() {
+            timeouts++;
+        }
+
+        public synchronized int getSampleCount() {
+            return size;
+        }
+
+        public synchronized long getTimeouts() {
+            return timeouts;
+        }
+
+        /**
+         * @param percentile 0 to 100
+         * @return Latency at the percentile in milliseconds, or 0 without samples
+         */
+        public synchronized long percentileMillis(double percentile) {
+            if (size == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+            return sorted[Math.max(0, Math.min(index, size - 1))];
+        }
+
+        /**
+         * @return Samples from oldest to newest
+         */
+        public synchronized long[] getSamples() {
+            long[] ordered = new long[size];
+            int start = size < samples.length ? 0 : next;
+            for (int i = 0; i < size; i++) {
+                ordered[i] = samples[(start + i) % samples.length];
+            }
+            return ordered;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.trustwallet.automation.pages;
+
+import com.trustwallet.automation.base.InterstitialHandler;
+import com.trustwallet.automation.base.InterstitialWatcher;
+import io.appium.java_client.AppiumBy;
+import org.openqa.selenium.By;
+
+/**
+ * Popups and redirects Trust Wallet shows intermittently during onboarding.
+ * They are dismissed by the {@link InterstitialWatcher} whenever a page waits for an element
+ * that is not there, instead of every page sleeping in case one appears.
+ */
+public class AppInterstitials {
+    public static final String WHATS_NEW = "What's New popup";
+    public static final String WEB_SURVEY = "Survey web page";
+    public static final String KEEP_UP_WITH_MARKET = "Keep up with market popup";
+
+    // What's New popup locators
+    private static final By whatsNewTitle = AppiumBy.androidUIAutomator("new UiSelector().text(\"What's New\")");
+    private static final By getStartedButton = AppiumBy.androidUIAutomator("new UiSelector().text(\"GET STARTED\")");
+
+    // Survey web page markers. Generic texts such as "Next" are not used: the watcher runs on every
+    // screen and a false match would navigate back out of the flow. The host is searched in every attribute
+    // (URL bar text, web view description), as the page source search this replaced did
+    private static final String surveyHost = "short.trustwallet.com";
+    private static final By whatShouldWeBuild = By.xpath("//*[contains(@text, 'What Should We Build Next')]");
+
+    // "Keep up with market" notification popup
+    private static final By skipPopupButton = AppiumBy.androidUIAutomator("new UiSelector().text(\"Skip, I'll do it later\")");
+
+    /**
+     * Register all handlers with the watcher; safe to call more than once
+     */
+    public static synchronized void registerAll() {
+        if (InterstitialWatcher.isRegistered(WHATS_NEW)) {
+            return;
+        }
+        // Replaces a 3 s sleep before looking for it and a 1 s sleep after dismissing it
+        InterstitialWatcher.register(InterstitialHandler.forLocator(WHATS_NEW, whatsNewTitle,
+                (driver, snapshot) -> driver.findElement(getStartedButton).click(), 3000, 4000));
+        // Replaces a 3 s sleep before looking for it and a 2 s sleep after navigating back
+        InterstitialWatcher.register(new InterstitialHandler(WEB_SURVEY,
+                snapshot -> snapshot.containsInAnyAttribute(surveyHost) || snapshot.contains(whatShouldWeBuild),
+                (driver, snapshot) -> driver.navigate().back(), 3000, 5000));
+        // Replaces a wait of up to 10 s for the skip button, paid in full when the popup did not show
+        InterstitialWatcher.register(InterstitialHandler.forLocator(KEEP_UP_WITH_MARKET, skipPopupButton,
+                (driver, snapshot) -> driver.findElement(skipPopupButton).click(), 10000, 0));
+    }
+}
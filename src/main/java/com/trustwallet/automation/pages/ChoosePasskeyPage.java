@@ -1,6 +1,8 @@
 package com.trustwallet.automation.pages;
 
 import com.trustwallet.automation.base.BasePage;
+import com.trustwallet.automation.base.InterstitialWatcher;
+import com.trustwallet.automation.base.LocatorMatch;
 import io.appium.java_client.AppiumBy;
 import io.appium.java_client.AppiumDriver;
 import org.openqa.selenium.By;
@@ -44,7 +46,7 @@ public class ChoosePasskeyPage extends BasePage {
      */
     public boolean isPageDisplayed() {
         try {
-            waitForElementToBeVisible(driver.findElement(pageTitle));
+            waitForElementToBeVisible(pageTitle);
             logger.debug("Choose Passkey page is displayed");
             return true;
         } catch (Exception e) {
@@ -59,8 +61,7 @@ public class ChoosePasskeyPage extends BasePage {
     public void expandSecretPhraseDetails() {
         if (isElementPresent(secretPhraseShowDetails)) {
             logger.debug("Expanding Secret Phrase details");
-            WebElement button = driver.findElement(secretPhraseItemIcon);
-            click(button);
+            click(secretPhraseItemIcon);
         }
     }
 
@@ -70,8 +71,7 @@ public class ChoosePasskeyPage extends BasePage {
     public void expandSwiftDetails() {
         if (isElementPresent(secretPhraseShowDetails)) {
             logger.debug("Expanding Swift details");
-            WebElement button = driver.findElement(swiftItemIcon);
-            click(button);
+            click(swiftItemIcon);
         }
     }
 
@@ -83,53 +83,17 @@ public class ChoosePasskeyPage extends BasePage {
      */
     public WalletHomePage clickSecretPhraseCreate() {
         logger.info("Clicking 'Create' for Secret Phrase");
-        WebElement button = null;
         
-        try {
-            logger.debug("Trying direct resource ID locator");
-            button = waitForElementToBeClickable(secretPhraseCreateButton);
-        } catch (Exception e) {
-            logger.debug("Primary locator failed, trying text locator");
-            button = waitForElementToBeClickable(secretPhraseCreateButtonAlt);
-        }
+        // Resource ID and text locators are tried together in every poll, historically fastest first
+        LocatorMatch match = waitForFirstClickable("secretPhraseCreate", secretPhraseCreateButton, secretPhraseCreateButtonAlt);
+        click(match);
         
-        click(button);
-        
-        // Check for the What's New popup before returning the WalletHomePage
-        dismissWhatsNewPopupIfPresent();
+        // The What's New popup may follow; WalletHomePage's waits dismiss it if it does
+        InterstitialWatcher.expect(AppInterstitials.WHATS_NEW);
         
         return new WalletHomePage(driver);
     }
 
-    /**
-     * Checks for and dismisses the "What's New" survey popup that might appear
-     * after clicking create wallet button.
-     */
-    private void dismissWhatsNewPopupIfPresent() {
-        try {
-            // Wait a short time for the popup to appear (if it's going to)
-            Thread.sleep(3000);
-            
-            // Check if the popup is present
-            By whatsNewTitle = AppiumBy.androidUIAutomator("new UiSelector().text(\"What's New\")");
-            By getStartedButton = AppiumBy.androidUIAutomator("new UiSelector().text(\"GET STARTED\")");
-            
-            if (isElementPresent(whatsNewTitle)) {
-                logger.info("\"What's New\" popup detected. Dismissing it");
-                
-                // Click the GET STARTED button to dismiss the popup
-                WebElement startButton = driver.findElement(getStartedButton);
-                click(startButton);
-                logger.debug("Successfully dismissed the \"What's New\" popup");
-                
-                // Wait for the popup to be dismissed
-                Thread.sleep(1000);
-            }
-        } catch (Exception e) {
-            logger.debug("No \"What's New\" popup detected or error dismissing it: {}", e.getMessage());
-        }
-    }
-
     /**
      * Clicks the 'Create' button for the Swift option.
      *
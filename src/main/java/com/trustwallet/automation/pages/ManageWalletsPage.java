@@ -5,7 +5,7 @@ import io.appium.java_client.AppiumBy;
 import io.appium.java_client.AppiumDriver;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.TimeoutException;
 
 public class ManageWalletsPage extends BasePage {
 
@@ -95,9 +95,9 @@ public class ManageWalletsPage extends BasePage {
      */
     private String getText(By locator) {
         try {
-            WebElement element = waitForElementToBeVisible(driver.findElement(locator));
+            WebElement element = waitForElementToBeVisible(locator);
             return element.getText();
-        } catch (NoSuchElementException e) {
+        } catch (TimeoutException e) {
             System.err.println("Element not found for locator: " + locator);
             return "";
         }
@@ -0,0 +1,72 @@
+package com.trustwallet.automation.pages;
+
+import com.trustwallet.automation.base.LatencyHistogram;
+import com.trustwallet.automation.base.TransportMetrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Round trips and latency of typing a passcode, per entry mode, for comparing batched and per-digit entry.
+ * Excludes the wait for the next screen, which both modes pay.
+ */
+public class PasscodeEntryMetrics {
+    private static final PasscodeEntryMetrics instance = new PasscodeEntryMetrics();
+
+    private final Map<PasscodePage.EntryMode, EntryStats> entryStats = new ConcurrentHashMap<>();
+    private final LongAdder fallbacks = new LongAdder();
+
+    /**
+     * @return The shared PasscodeEntryMetrics
+     */
+    public static PasscodeEntryMetrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * Record one passcode entry that started at the given time on the current thread
+     * @param mode How the digits were typed
+     * @param startNanos System.nanoTime() when typing started
+     * @param commandsBefore The thread's command count when typing started
+     */
+    public void recordEntry(PasscodePage.EntryMode mode, long startNanos, long commandsBefore) {
+        EntryStats stats = entryStats.computeIfAbsent(mode, key -> new EntryStats());
+        stats.latency.recordNanos(System.nanoTime() - startNanos);
+        stats.roundTrips.add(TransportMetrics.getInstance().getThreadCommandCount() - commandsBefore);
+    }
+
+    /**
+     * Record a batched entry that had to be retyped digit by digit
+     */
+    public void recordFallback() {
+        fallbacks.increment();
+    }
+
+    /**
+     * @return One line per entry mode used in this run
+     */
+    public Map<String, String> getBenchmark() {
+        Map<String, String> benchmark = new LinkedHashMap<>();
+        for (PasscodePage.EntryMode mode : PasscodePage.EntryMode.values()) {
+            EntryStats stats = entryStats.get(mode);
+            if (stats == null) {
+                continue;
+            }
+            long count = stats.latency.getCount();
+            benchmark.put(mode.name().toLowerCase(), String.format(
+                    "%d entr%s, avg %.1f round trips, p50 %.0f ms, p90 %.0f ms%s", count, count == 1 ? "y" : "ies",
+                    stats.roundTrips.sum() / (double) count, stats.latency.getPercentileMillis(50),
+                    stats.latency.getPercentileMillis(90),
+                    mode == PasscodePage.EntryMode.PER_DIGIT && fallbacks.sum() > 0
+                            ? " (" + fallbacks.sum() + " batched fallback(s))" : ""));
+        }
+        return benchmark;
+    }
+
+    private static class EntryStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder roundTrips = new LongAdder();
+    }
+}
@@ -1,36 +1,80 @@
 package com.trustwallet.automation.pages;
 
+import com.trustwallet.automation.base.BaseDriver;
 import com.trustwallet.automation.base.BasePage;
+import com.trustwallet.automation.base.HierarchySnapshot;
+import com.trustwallet.automation.base.IdleTime;
+import com.trustwallet.automation.base.InterstitialWatcher;
+import com.trustwallet.automation.base.TransportMetrics;
 import io.appium.java_client.AppiumBy;
 import io.appium.java_client.AppiumDriver;
 import org.openqa.selenium.By;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.TimeoutException;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
+import org.openqa.selenium.interactions.Pause;
+import org.openqa.selenium.interactions.PointerInput;
+import org.openqa.selenium.interactions.Sequence;
 import java.time.Duration;
-import java.io.File;
-import org.openqa.selenium.OutputType;
-import org.openqa.selenium.TakesScreenshot;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 public class PasscodePage extends BasePage {
     private static final Logger logger = LogManager.getLogger(PasscodePage.class);
+    private static final EntryMode entryMode = EntryMode.fromConfig(BaseDriver.getProperty("passcode.entry.mode", "batched"));
+    private static final Duration verifyTimeout = timeout("passcode.entry.verify.timeout", "5");
+    private static final Duration screenTimeout = timeout("passcode.screen.timeout", "10");
+    private static final Duration confirmScreenTimeout = timeout("passcode.confirm.screen.timeout", "20");
+    private static final Duration mismatchErrorTimeout = timeout("passcode.mismatch.error.timeout", "5");
+    private static final Duration digitTimeout = timeout("passcode.digit.timeout", "5");
+    private static final Duration popupTimeout = timeout("passcode.popup.timeout", "10");
+    private static final int ANDROID_KEYCODE_DEL = 67;
+    private static final long tapGapMillis = Long.parseLong(BaseDriver.getProperty("passcode.tap.gap", "50"));
+
+    /**
+     * How passcode digits are typed
+     */
+    public enum EntryMode {
+        /** Keypad read from one hierarchy snapshot, all digits sent as one W3C Actions tap sequence */
+        BATCHED,
+        /** One wait-and-click per digit */
+        PER_DIGIT;
+
+        public static EntryMode fromConfig(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return BATCHED;
+            }
+            return EntryMode.valueOf(value.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    // Batched entry is not retried on this page once it has failed verification
+    private boolean batchedEntryFailed;
 
     // Locators
     private String textUiSelector = "new UiSelector().text(\"%s\")";
     private String digitButtonUiSelector = "new UiSelector().text(\"%s\")";
-    private final By skipPopupButton = AppiumBy.androidUIAutomator(
-            String.format(textUiSelector, "Skip, I'll do it later"));
     private final By createPasscodeTitle = AppiumBy.androidUIAutomator(
             String.format(textUiSelector, "Create passcode"));
     private final By confirmPasscodeTitle = AppiumBy.androidUIAutomator(
             String.format(textUiSelector, "Confirm passcode"));
     private final By passcodeMismatchError = AppiumBy.androidUIAutomator(
             String.format(textUiSelector, "Those passwords didn't match!"));
+    private final By textViews = AppiumBy.androidUIAutomator(
+            "new UiSelector().className(\"android.widget.TextView\")");
+    // Title of the Choose Passkey page that follows a confirmed passcode
+    private final By choosePasskeyTitle = AppiumBy.androidUIAutomator(
+            String.format(textUiSelector, "Create new wallet"));
 
     /**
      * Constructor for PasscodePage.
@@ -50,15 +94,8 @@ public class PasscodePage extends BasePage {
      */
     public boolean isPageDisplayed() {
         try {
-            WebElement createTitle = findElementIfVisible(createPasscodeTitle);
-            if (createTitle != null) {
-                logger.debug("Create passcode page displayed");
-                return true;
-            }
-
-            WebElement confirmTitle = findElementIfVisible(confirmPasscodeTitle);
-            if (confirmTitle != null) {
-                logger.debug("Confirm passcode page displayed");
+            if (waitForAnyVisible(waits.getDefaultTimeout(), createPasscodeTitle, confirmPasscodeTitle)) {
+                logger.debug("Passcode page displayed");
                 return true;
             }
             logger.debug("Passcode page not found");
@@ -77,21 +114,17 @@ public class PasscodePage extends BasePage {
      * @return The same PasscodePage instance, now on confirmation step.
      */
     public PasscodePage enterPasscode(String passcode) {
-        logger.info("Entering passcode: " + passcode);
+        logger.info("Entering passcode: {}", passcode);
         
         try {
             // Verify we're on the Create passcode screen
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
-            wait.until(ExpectedConditions.visibilityOfElementLocated(createPasscodeTitle));
+            waitForElementToBeVisible(createPasscodeTitle, screenTimeout);
             
-            // Enter the passcode digits
-            for (char digit : passcode.toCharArray()) {
-                clickDigit(digit);
-            }
+            // Enter the passcode digits; the confirmation screen appearing verifies a batched entry
+            typePasscode(passcode, timeout -> waitForAnyVisible(timeout, confirmPasscodeTitle));
             
             // Wait for the confirmation screen to appear
-            wait = new WebDriverWait(driver, Duration.ofSeconds(20));
-            wait.until(ExpectedConditions.visibilityOfElementLocated(confirmPasscodeTitle));
+            waitForElementToBeVisible(confirmPasscodeTitle, confirmScreenTimeout);
             logger.debug("Confirmation screen detected");
             return this;
         }
@@ -110,22 +143,17 @@ public class PasscodePage extends BasePage {
      * @return A new instance of the ChoosePasskeyPage.
      */
     public ChoosePasskeyPage confirmPasscode(String passcode) {
-        logger.info("Confirming passcode: " + passcode);
+        logger.info("Confirming passcode: {}", passcode);
         
-        // Enter the confirmation passcode
-        for (char digit : passcode.toCharArray()) {
-            clickDigit(digit);
-        }
+        // Enter the confirmation passcode; leaving the confirmation screen verifies a batched entry
+        typePasscode(passcode, timeout -> waitForAbsence(confirmPasscodeTitle, timeout));
 
-        // Handle the popup that appears after successful passcode creation
-        logger.debug("Handling 'Keep up with market' popup");
-        try {
-            WebDriverWait popupWait = new WebDriverWait(driver, Duration.ofSeconds(10)); 
-            WebElement skipButton = popupWait.until(ExpectedConditions.elementToBeClickable(skipPopupButton));
-            click(skipButton);
+        // The 'Keep up with market' popup may appear after successful passcode creation: skip it as soon as
+        // it shows, or move on as soon as the Choose Passkey page does instead
+        InterstitialWatcher.expect(AppInterstitials.KEEP_UP_WITH_MARKET);
+        if (InterstitialWatcher.awaitAndDismiss(driver, AppInterstitials.KEEP_UP_WITH_MARKET, popupTimeout,
+                choosePasskeyTitle)) {
             logger.debug("Clicked 'Skip, I'll do it later' button");
-        } catch (Exception e) {
-            logger.warn("Could not find or click the 'Skip, I'll do it later' button: {}", e.getMessage());
         }
 
         return new ChoosePasskeyPage(driver);
@@ -139,17 +167,15 @@ public class PasscodePage extends BasePage {
      * @return The same PasscodePage instance for further interactions.
      */
     public PasscodePage confirmWithMismatchedPasscode(String differentPasscode) {
-        logger.info("Entering mismatched passcode: " + differentPasscode);
+        logger.info("Entering mismatched passcode: {}", differentPasscode);
         
-        // Enter the different confirmation passcode
-        for (char digit : differentPasscode.toCharArray()) {
-            clickDigit(digit);
-        }
+        // Enter the different confirmation passcode; the error or the restarted flow verifies a batched entry
+        typePasscode(differentPasscode,
+                timeout -> waitForAnyVisible(timeout, passcodeMismatchError, createPasscodeTitle));
 
         // Wait for the error message to appear
         try {
-            WebDriverWait errorWait = new WebDriverWait(driver, Duration.ofSeconds(5));
-            errorWait.until(ExpectedConditions.visibilityOfElementLocated(passcodeMismatchError));
+            waitForElementToBeVisible(passcodeMismatchError, mismatchErrorTimeout);
             logger.debug("Passcode mismatch error displayed as expected");
         } catch (TimeoutException e) {
             logger.warn("Passcode mismatch error was not displayed or had different text", e);
@@ -167,32 +193,19 @@ public class PasscodePage extends BasePage {
         logger.debug("Checking for passcode mismatch error");
         
         try {
-            // Wait longer for the error message to appear (1.5 seconds)
-            Thread.sleep(1500);
-            
-            // Try to find the explicit error message
-            try {
-                WebElement errorElement = driver.findElement(passcodeMismatchError);
+            // Give the error message up to 1.5 seconds to appear; returns as soon as it does
+            WebElement errorElement = findElementIfVisible(passcodeMismatchError, Duration.ofMillis(1500));
+            if (errorElement != null) {
                 logger.debug("Found error message: {}", errorElement.getText());
                 return true;
-            } catch (Exception e) {
+            } else {
                 logger.debug("Could not find exact error text, checking screen state");
                 
-                // Take a screenshot for debugging
-                try {
-                    File screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
-                    logger.debug("Screenshot taken during error check: {}", screenshot.getAbsolutePath());
-                } catch (Exception ex) {
-                    // Ignore screenshot errors
-                }
-                
-                // Get all text elements to see what's on screen
-                List<WebElement> textElements = driver.findElements(
-                    AppiumBy.androidUIAutomator("new UiSelector().className(\"android.widget.TextView\")"));
-                
-                for (WebElement element : textElements) {
+                // Get all text elements to see what's on screen, read from one hierarchy snapshot
+                HierarchySnapshot snapshot = snapshot();
+                for (HierarchySnapshot.Node element : snapshot.findAll(textViews)) {
                     String text = element.getText();
-                    if (text != null && !text.isEmpty()) {
+                    if (!text.isEmpty()) {
                         logger.debug("Found text on screen: {}", text);
                         if (text.contains("match") || text.contains("password") || 
                             text.contains("didn't") || text.contains("passcode")) {
@@ -201,19 +214,14 @@ public class PasscodePage extends BasePage {
                         }
                     }
                 }
-            }
-            
-            // As a fallback, check if we're back on the create passcode screen
-            try {
-                WebElement createTitle = findElementIfVisible(createPasscodeTitle);
-                if (createTitle != null) {
+                
+                // As a fallback, check if we're back on the create passcode screen
+                if (snapshot.isVisible(createPasscodeTitle)) {
                     // If we're back on create passcode screen after entering both codes, 
                     // there was likely an error
                     logger.debug("Back on create passcode screen - assuming error occurred");
                     return true;
                 }
-            } catch (Exception ex) {
-                // Ignore
             }
             
             return false;
@@ -223,6 +231,148 @@ public class PasscodePage extends BasePage {
         }
     }
 
+    /**
+     * Type a passcode in the configured entry mode. A batched entry that cannot resolve the keypad,
+     * fails to send, or is not followed by the expected screen change falls back to per-digit entry.
+     * Before retyping, the screen is checked once more: if it has moved on after all, nothing is retyped,
+     * otherwise any digits the batched entry left behind are deleted first.
+     *
+     * @param passcode Digits to type.
+     * @param screenChanged Waits up to the given time for the screen change a complete entry causes;
+     *                      only used for batched entry.
+     */
+    private void typePasscode(String passcode, Predicate<Duration> screenChanged) {
+        if (entryMode == EntryMode.BATCHED && !batchedEntryFailed) {
+            long start = System.nanoTime();
+            long commands = TransportMetrics.getInstance().getThreadCommandCount();
+            boolean sent = tapDigits(passcode);
+            PasscodeEntryMetrics.getInstance().recordEntry(EntryMode.BATCHED, start, commands);
+            if (sent && screenChanged.test(verifyTimeout)) {
+                return;
+            }
+            batchedEntryFailed = true;
+            // A slow transition may have completed since the wait gave up; retyping would then go into the next screen
+            if (screenChanged.test(Duration.ZERO)) {
+                logger.info("Batched passcode entry was verified late; not retyping");
+                return;
+            }
+            logger.warn("Batched passcode entry {}; falling back to per-digit entry", sent ? "was not verified" : "could not be sent");
+            PasscodeEntryMetrics.getInstance().recordFallback();
+            // A gesture that failed part way may still have entered some digits
+            clearEntry(passcode.length());
+        }
+        long start = System.nanoTime();
+        long commands = TransportMetrics.getInstance().getThreadCommandCount();
+        for (char digit : passcode.toCharArray()) {
+            clickDigit(digit);
+        }
+        PasscodeEntryMetrics.getInstance().recordEntry(EntryMode.PER_DIGIT, start, commands);
+    }
+
+    /**
+     * Resolve the keypad from one hierarchy snapshot and tap every digit in a single Actions sequence:
+     * two round trips per passcode instead of several per digit.
+     *
+     * @param passcode Digits to tap.
+     * @return true if the taps were sent, false if a key could not be located or the gesture failed.
+     */
+    private boolean tapDigits(String passcode) {
+        try {
+            HierarchySnapshot snapshot = snapshot();
+            Map<Character, Point> keypad = new HashMap<>();
+            for (char digit : passcode.toCharArray()) {
+                if (!keypad.containsKey(digit)) {
+                    Point center = keyCenter(snapshot, digit);
+                    if (center == null) {
+                        logger.debug("Key {} not found on the keypad", digit);
+                        return false;
+                    }
+                    keypad.put(digit, center);
+                }
+            }
+
+            List<Point> points = new ArrayList<>();
+            for (char digit : passcode.toCharArray()) {
+                points.add(keypad.get(digit));
+            }
+            tap(points);
+            return true;
+        } catch (WebDriverException | IllegalStateException e) {
+            logger.debug("Batched passcode entry failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Delete whatever part of a passcode is in the entry field by tapping the keypad's delete key once per
+     * digit; deleting from an empty field does nothing, so it is safe when none of the digits arrived.
+     *
+     * @param digits Number of digits that may have been entered.
+     */
+    private void clearEntry(int digits) {
+        try {
+            HierarchySnapshot snapshot = snapshot();
+            Point deleteKey = null;
+            for (HierarchySnapshot.Node node : snapshot.findAll(PasscodePage::isDeleteKey)) {
+                Rectangle bounds = node.getBounds();
+                if (node.isDisplayed() && bounds != null && bounds.getWidth() > 0 && bounds.getHeight() > 0) {
+                    deleteKey = new Point(bounds.getX() + bounds.getWidth() / 2, bounds.getY() + bounds.getHeight() / 2);
+                    break;
+                }
+            }
+            if (deleteKey != null) {
+                tap(Collections.nCopies(digits, deleteKey));
+            } else {
+                // No delete key on the keypad: send the device's delete key instead
+                for (int i = 0; i < digits; i++) {
+                    driver.executeScript("mobile: pressKey", Map.of("keycode", ANDROID_KEYCODE_DEL));
+                }
+            }
+            logger.debug("Cleared up to {} passcode digit(s) before retyping", digits);
+        } catch (WebDriverException | IllegalStateException e) {
+            logger.warn("Could not clear partial passcode entry: {}", e.getMessage());
+        }
+    }
+
+    private static boolean isDeleteKey(HierarchySnapshot.Node node) {
+        String description = (node.getContentDesc() + " " + node.getResourceId()).toLowerCase(Locale.ROOT);
+        return description.contains("delete") || description.contains("backspace") || description.contains("erase");
+    }
+
+    /**
+     * Tap the points in order as a single Actions sequence, with the configured gap between taps
+     */
+    private void tap(List<Point> points) {
+        PointerInput finger = new PointerInput(PointerInput.Kind.TOUCH, "finger");
+        Sequence taps = new Sequence(finger, 0);
+        for (Point point : points) {
+            taps.addAction(finger.createPointerMove(Duration.ZERO, PointerInput.Origin.viewport(), point.getX(), point.getY()));
+            taps.addAction(finger.createPointerDown(PointerInput.MouseButton.LEFT.asArg()));
+            taps.addAction(finger.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
+            // Gap between taps on the device, in place of the client-side delay per key
+            taps.addAction(new Pause(finger, Duration.ofMillis(tapGapMillis)));
+        }
+        driver.perform(List.of(taps));
+    }
+
+    /**
+     * @return Center of the displayed key showing the digit, or null if there is none
+     */
+    private Point keyCenter(HierarchySnapshot snapshot, char digit) {
+        By digitLocator = AppiumBy.androidUIAutomator(String.format(digitButtonUiSelector, digit));
+        for (HierarchySnapshot.Node node : snapshot.findAll(digitLocator)) {
+            Rectangle bounds = node.getBounds();
+            if (node.isDisplayed() && bounds != null && bounds.getWidth() > 0 && bounds.getHeight() > 0) {
+                return new Point(bounds.getX() + bounds.getWidth() / 2, bounds.getY() + bounds.getHeight() / 2);
+            }
+        }
+        return null;
+    }
+
+    private static Duration timeout(String key, String defaultSeconds) {
+        return Duration.ofSeconds(Long.parseLong(BaseDriver.getProperty(key, defaultSeconds)));
+    }
+
     /**
      * Clicks the button corresponding to the given digit using UiSelector.
      *
@@ -234,14 +384,11 @@ public class PasscodePage extends BasePage {
                 String uiSelector = String.format(digitButtonUiSelector, digit);
                 By digitLocator = AppiumBy.androidUIAutomator(uiSelector);
                 
-                // Wait for the digit button to be clickable with a shorter timeout
-                WebDriverWait shortWait = new WebDriverWait(driver, Duration.ofSeconds(5));
-                WebElement digitButton = shortWait.until(ExpectedConditions.elementToBeClickable(digitLocator));
-                
-                click(digitButton);
+                // Wait for the digit button to be clickable; a learned timeout may shorten this
+                waitForElementToBeClickable(digitLocator, digitTimeout).click();
                 
                 // Short delay to prevent input issues
-                try { Thread.sleep(50); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+                IdleTime.pause(50);
             } catch (Exception e) {
                 logger.error("Error clicking digit {}: {}", digit, e.getMessage());
             }
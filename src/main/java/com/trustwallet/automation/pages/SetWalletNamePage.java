@@ -19,6 +19,7 @@ public class SetWalletNamePage extends BasePage {
     private final By walletNameInputField = AppiumBy.androidUIAutomator("new UiSelector().className(\"android.widget.EditText\")");
     private final By helpText = AppiumBy.androidUIAutomator("new UiSelector().text(\"Wallet name should be between 4 to 24 characters\")");
     private final By doneButton = AppiumBy.androidUIAutomator("new UiSelector().text(\"Done\")");
+    private final By doneButtonContainer = By.xpath("//android.widget.TextView[@text='Done']/parent::android.view.View");
     private final By clearInputIcon = AppiumBy.androidUIAutomator("new UiSelector().resourceId(\"itemIcon\")");
 
     /**
@@ -38,8 +39,9 @@ public class SetWalletNamePage extends BasePage {
      */
     public boolean isPageDisplayed() {
         try {
-            WebElement title = findElementIfVisible(pageTitle);
-            WebElement input = findElementIfVisible(walletNameInputField);
+            // Wait for the title; once it is there the input field is checked in a single round trip
+            WebElement title = findElementIfVisible(pageTitle, waits.getDefaultTimeout());
+            WebElement input = title != null ? findElementIfVisible(walletNameInputField) : null;
             
             boolean displayed = (title != null && input != null);
             if (displayed) {
@@ -106,7 +108,7 @@ public class SetWalletNamePage extends BasePage {
     public String getWalletName() {
         logger.debug("Getting wallet name");
         try {
-            WebElement inputField = driver.findElement(walletNameInputField);
+            WebElement inputField = findElement(walletNameInputField);
             String walletName = inputField.getText();
             if (walletName == null || walletName.isEmpty()) {
                 walletName = inputField.getAttribute("text");
@@ -126,9 +128,8 @@ public class SetWalletNamePage extends BasePage {
      */
     public boolean isDoneButtonEnabled() {
         try {
-            // Find the button container view
-            WebElement buttonContainer = driver.findElement(By.xpath(
-                "//android.widget.TextView[@text='Done']/parent::android.view.View"));
+            // Find the button container view; the handle is reused until the screen changes
+            WebElement buttonContainer = waitForElementToBeVisible(doneButtonContainer);
             
             // Check the enabled attribute
             String enabled = buttonContainer.getAttribute("enabled");
@@ -189,7 +190,7 @@ public class SetWalletNamePage extends BasePage {
     public String getHelpText() {
         logger.debug("Getting help text");
         try {
-            return getText(driver.findElement(helpText));
+            return getText(findElement(helpText));
         } catch (Exception e) {
             logger.error("Failed to get help text", e);
             return "";
@@ -49,10 +49,7 @@ public class SwiftQuizPage extends BasePage {
      */
     public boolean isPageDisplayed() {
         try {
-            WebElement title = findElementIfVisible(pageTitle);
-            WebElement question = findElementIfVisible(quizQuestion);
-            
-            boolean displayed = (title != null || question != null);
+            boolean displayed = waitForAnyVisible(waits.getDefaultTimeout(), pageTitle, quizQuestion);
             if (displayed) {
                 logger.debug("Swift Quiz page is displayed");
             } else {
@@ -73,7 +70,7 @@ public class SwiftQuizPage extends BasePage {
     public String getQuestionText() {
         logger.debug("Getting quiz question text");
         try {
-            return getText(driver.findElement(quizQuestion));
+            return getText(findElement(quizQuestion));
         } catch (Exception e) {
             logger.error("Failed to get quiz question text", e);
             return "";
@@ -6,8 +6,6 @@ import io.appium.java_client.AppiumDriver;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.NoSuchElementException;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import java.time.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -55,10 +53,7 @@ public class SwiftSafetyTipsPage extends BasePage {
      */
     public boolean isPageDisplayed() {
         try {
-            WebElement title = findElementIfVisible(pageTitle);
-            WebElement header = findElementIfVisible(mainTitle);
-            
-            boolean displayed = (title != null || header != null);
+            boolean displayed = waitForAnyVisible(waits.getDefaultTimeout(), pageTitle, mainTitle);
             if (displayed) {
                 logger.debug("Swift Safety Tips page is displayed");
             } else {
@@ -78,7 +73,7 @@ public class SwiftSafetyTipsPage extends BasePage {
      */
     public boolean isContinueButtonEnabled() {
         try {
-            WebElement button = driver.findElement(continueButton);
+            WebElement button = findElement(continueButton);
             boolean isEnabled = button.isEnabled();
             logger.debug("Continue button is enabled: {}", isEnabled);
             return isEnabled;
@@ -90,15 +85,14 @@ public class SwiftSafetyTipsPage extends BasePage {
     
     /**
      * Checks if the Continue button is actually clickable (not just visually enabled).
-     * This uses the WebDriverWait ExpectedConditions to verify the element is clickable.
+     * This polls for the element to be displayed and enabled for up to 3 seconds.
      *
      * @return true if the button is clickable, false otherwise.
      */
     public boolean isContinueButtonClickable() {
         try {
             // Short timeout to quickly validate if element is clickable
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(3));
-            wait.until(ExpectedConditions.elementToBeClickable(continueButton));
+            waitForElementToBeClickable(continueButton, Duration.ofSeconds(3));
             logger.debug("Continue button is clickable");
             return true;
         } catch (Exception e) {
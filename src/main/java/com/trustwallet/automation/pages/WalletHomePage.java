@@ -1,11 +1,13 @@
 package com.trustwallet.automation.pages;
 
 import com.trustwallet.automation.base.BasePage;
+import com.trustwallet.automation.base.HierarchySnapshot;
+import com.trustwallet.automation.base.InterstitialWatcher;
 import io.appium.java_client.AppiumBy;
 import io.appium.java_client.AppiumDriver;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.TimeoutException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.util.Set;
@@ -29,15 +31,9 @@ public class WalletHomePage extends BasePage {
     private final By earnNavButton = AppiumBy.androidUIAutomator("new UiSelector().resourceId(\"EarnNavigationButton\")");
     private final By discoverNavButton = AppiumBy.androidUIAutomator("new UiSelector().resourceId(\"DiscoverNavigationButton\")");
 
-    // What's New popup locators
-    private final By whatsNewTitle = AppiumBy.androidUIAutomator("new UiSelector().text(\"What's New\")");
-    private final By getStartedButton = AppiumBy.androidUIAutomator("new UiSelector().text(\"GET STARTED\")");
-
     public WalletHomePage(AppiumDriver driver) {
         super(driver);
         logger.debug("WalletHomePage initialized");
-        // Check for and dismiss the "What's New" popup if it appears
-        dismissWhatsNewPopupIfPresent();
     }
 
     /**
@@ -48,46 +44,16 @@ public class WalletHomePage extends BasePage {
      */
     public boolean isPageDisplayed() {
         try {
-            // Handle any potential redirection to the survey webpage
-            if (handleWebSurveyRedirectIfPresent()) {
-                // If we handled a redirection, wait a moment for the wallet home page to load
-                Thread.sleep(1000);
-            }
-            
-            // Handle "What's New" popup if present
-            dismissWhatsNewPopupIfPresent();
-            
-            // First check: Look for empty wallet view (for new wallets)
-            boolean isEmptyWalletView = isElementPresent(walletEmptyText);
-            if (isEmptyWalletView) {
-                logger.debug("Detected wallet home page (empty wallet view)");
-                return true;
-            }
-            
-            // Second check: Look for Crypto/NFT tabs (for all wallets)
-            boolean hasTabs = isElementPresent(cryptoTab) && 
-                              isElementPresent(nftsTab);
-            if (hasTabs) {
-                logger.debug("Detected wallet home page (crypto/NFT tabs)");
-                return true;
-            }
-            
-            // Third check: Look for action buttons (for all wallets)
-            boolean hasActionButtons = isElementPresent(sendButton) && 
-                                      isElementPresent(receiveButton) && 
-                                      isElementPresent(buyButton);
-            if (hasActionButtons) {
-                logger.debug("Detected wallet home page (action buttons)");
-                return true;
-            }
-            
-            // Fourth check: Look for bottom navigation (for all wallet states)
-            boolean hasBottomNav = isElementPresent(homeNavButton);
-            if (hasBottomNav) {
-                logger.debug("Detected wallet home page (bottom navigation)");
-                return true;
-            }
+            // The survey redirect and "What's New" popup may cover the page; while the checks
+            // below miss, the interstitial watcher dismisses them
+            InterstitialWatcher.expect(AppInterstitials.WEB_SURVEY);
+            InterstitialWatcher.expect(AppInterstitials.WHATS_NEW);
             
+            // All checks run against one hierarchy snapshot, so each poll is a single device call
+            String detectedBy = waits.until("wallet home page", () -> detectHomePage(snapshot()));
+            logger.debug("Detected wallet home page ({})", detectedBy);
+            return true;
+        } catch (TimeoutException e) {
             // If we haven't found any identifying elements
             logger.error("Wallet home page not detected.");
             return false;
@@ -97,6 +63,32 @@ public class WalletHomePage extends BasePage {
         }
     }
 
+    /**
+     * Checks the identifying elements of the home page in a hierarchy snapshot.
+     *
+     * @param snapshot Snapshot of the current screen.
+     * @return Which elements identified the page, or null if none are present yet.
+     */
+    private String detectHomePage(HierarchySnapshot snapshot) {
+        // First check: Look for empty wallet view (for new wallets)
+        if (snapshot.contains(walletEmptyText)) {
+            return "empty wallet view";
+        }
+        // Second check: Look for Crypto/NFT tabs (for all wallets)
+        if (snapshot.contains(cryptoTab) && snapshot.contains(nftsTab)) {
+            return "crypto/NFT tabs";
+        }
+        // Third check: Look for action buttons (for all wallets)
+        if (snapshot.contains(sendButton) && snapshot.contains(receiveButton) && snapshot.contains(buyButton)) {
+            return "action buttons";
+        }
+        // Fourth check: Look for bottom navigation (for all wallet states)
+        if (snapshot.contains(homeNavButton)) {
+            return "bottom navigation";
+        }
+        return null;
+    }
+
     /**
      * Gets the displayed wallet name from the top bar.
      *
@@ -143,9 +135,9 @@ public class WalletHomePage extends BasePage {
      */
     private String getText(By locator) {
         try {
-            WebElement element = waitForElementToBeVisible(driver.findElement(locator));
+            WebElement element = waitForElementToBeVisible(locator);
             return element.getText();
-        } catch (NoSuchElementException e) {
+        } catch (TimeoutException e) {
             logger.error("Element not found for locator: {}", locator);
             return "";
         }
@@ -153,87 +145,30 @@ public class WalletHomePage extends BasePage {
 
     /**
      * Checks for and dismisses the "What's New" survey popup that appears intermittently
-     * after creating a wallet.
+     * after creating a wallet. Waits on this page dismiss it automatically; this is a single
+     * immediate check for callers that want to clear it explicitly.
      */
     public void dismissWhatsNewPopupIfPresent() {
-        try {
-            // Wait a short time for the popup to appear (if it's going to)
-            Thread.sleep(2000);
-            
-            // Check if the popup is present
-            if (isElementPresent(whatsNewTitle)) {
-                logger.info("\"What's New\" popup detected. Dismissing it");
-                
-                // Click the GET STARTED button to dismiss the popup
-                WebElement startButton = driver.findElement(getStartedButton);
-                click(startButton);
-                logger.debug("Successfully dismissed the \"What's New\" popup");
-                
-                // Wait for the popup to be dismissed
-                Thread.sleep(1000);
-            }
-        } catch (Exception e) {
-            logger.debug("No \"What's New\" popup detected or error dismissing it: {}", e.getMessage());
+        if (InterstitialWatcher.dismissIfPresent(driver, AppInterstitials.WHATS_NEW)) {
+            logger.debug("Successfully dismissed the \"What's New\" popup");
         }
     }
     
     /**
      * Handles redirection to short.trustwallet.com web survey page that occasionally
      * occurs after wallet creation. If detected, will navigate back to the wallet home page.
+     * Checks once, without waiting: waits on this page already handle the redirect when it covers the screen.
      * 
      * @return true if the redirection was detected and handled, false otherwise
      */
     public boolean handleWebSurveyRedirectIfPresent() {
-        try {
-            // Wait a short time to see if redirection occurs
-            Thread.sleep(3000);
-            
-            // We can't easily switch contexts with the current driver,
-            // so we'll check for visual elements that indicate we're on the survey webpage
-            
-            // Check page source for indicators of survey page
-            String pageSource = driver.getPageSource();
-            boolean redirectDetected = false;
-            
-            if (pageSource.contains("short.trustwallet.com") || 
-                pageSource.contains("What Should We Build Next") ||
-                pageSource.contains("Let's go")) {
-                
-                logger.info("Detected Trust Wallet survey webpage via page content");
-                redirectDetected = true;
-            }
-            
-            // Look for visual indicators of the survey page
-            By webURLBar = By.xpath("//*[contains(@text, 'short.trustwallet.com')]");
-            By nextButton = By.xpath("//*[contains(@text, 'Next')]");
-            By whatShouldWeBuild = By.xpath("//*[contains(@text, 'What Should We Build Next')]");
-            
-            if (isElementPresent(webURLBar) || isElementPresent(nextButton) || isElementPresent(whatShouldWeBuild)) {
-                logger.info("Detected Trust Wallet survey webpage via UI elements");
-                
-                // Press the back button to return to the app
-                driver.navigate().back();
-                logger.info("Navigated back from survey webpage to wallet home page");
-                
-                // Wait for the app to return to wallet home page
-                Thread.sleep(2000);
-                return true;
-            }
-            
-            if (redirectDetected) {
-                // Press the back button to return to the app
-                driver.navigate().back();
-                logger.info("Navigated back from survey webpage to wallet home page");
-                
-                // Wait for the app to return to wallet home page
-                Thread.sleep(2000);
-                return true;
-            }
-            
-            return false;
-        } catch (Exception e) {
-            logger.debug("Error checking for survey webpage redirection: {}", e.getMessage());
-            return false;
+        // We can't easily switch contexts with the current driver, so the survey page is recognised by its
+        // content, with the interstitial registry's survey-specific markers rather than generic texts like "Next"
+        if (InterstitialWatcher.dismissIfPresent(driver, AppInterstitials.WEB_SURVEY)) {
+            // Navigated back to the app; the next wait polls for the home page
+            logger.info("Navigated back from survey webpage to wallet home page");
+            return true;
         }
+        return false;
     }
-} 
\ No newline at end of file
+}
@@ -4,7 +4,6 @@ import com.trustwallet.automation.base.BasePage;
 import io.appium.java_client.AppiumBy;
 import io.appium.java_client.AppiumDriver;
 import org.openqa.selenium.By;
-import org.openqa.selenium.WebElement;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -30,7 +29,7 @@ public class WelcomePage extends BasePage {
      */
     public boolean isPageDisplayed() {
         try {
-            waitForElementToBeVisible(driver.findElement(createNewWalletButton));
+            waitForElementToBeVisible(createNewWalletButton);
             logger.debug("Welcome page is displayed");
             return true;
         } catch (Exception e) {
@@ -46,7 +45,7 @@ public class WelcomePage extends BasePage {
      */
     public PasscodePage clickCreateNewWallet() {
         logger.info("Clicking 'Create new wallet' button");
-        click(driver.findElement(createNewWalletButton));
+        click(createNewWalletButton);
         return new PasscodePage(driver);
     }
 
@@ -57,7 +56,7 @@ public class WelcomePage extends BasePage {
      */
     public Object clickImportWallet() {
         logger.info("Clicking 'I already have a wallet' button");
-        click(driver.findElement(importWalletButton));
+        click(importWalletButton);
         logger.warn("ImportWalletPage not implemented. Returning null.");
         return null;
     }
@@ -1,38 +1,113 @@
 package com.trustwallet.automation.utils;
 
+import com.trustwallet.automation.base.BaseDriver;
 import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
+import com.aventstack.extentreports.model.Log;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 import com.aventstack.extentreports.reporter.configuration.Theme;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.io.File;
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
 
 /**
  * Manager class for ExtentReports
- * Handles the creation and configuration of the HTML report
+ * Handles the creation and configuration of the HTML report.
+ * Extent objects are only touched by one writer thread. Test threads never block on the report:
+ * each thread appends to its own buffer, published to a lock-free queue in batches (and at every
+ * test boundary), which the writer drains into Extent in order. A test's context is bound to the
+ * thread that created it until {@link #endTest()}, so pooled threads never log into a stale test.
+ * The writer also appends every event to report.events.file as JSON lines, synced whenever a test ends,
+ * so a crashed run keeps its finished tests. Extent holds the whole run in memory until it is flushed;
+ * soak runs set report.extent=false and build the HTML from the event log with {@link ReportRenderer}.
  */
 public class ExtentReportManager {
-    private static ExtentReports extentReports;
-    private static Map<Long, ExtentTest> extentTestMap = new HashMap<>();
-    
+    private static final Logger logger = LogManager.getLogger(ExtentReportManager.class);
+
     private static final String REPORT_DIR = "test-output/";
     private static final String REPORT_FILE = "ExtentReport.html";
     private static final String REPORT_NAME = "Trust Wallet Automation Test Report";
     private static final String REPORT_TITLE = "Trust Wallet Mobile Automation Results";
-    
+    private static final int BATCH_SIZE = 64;
+    private static final long WRITER_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    // Generating the Extent HTML of a long run takes a while; a dead writer is noticed at once regardless
+    private static final long WRITER_WAIT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final boolean EXTENT_ENABLED = Boolean.parseBoolean(BaseDriver.getProperty("report.extent", "true"));
+    private static final boolean EVENTS_ENABLED = Boolean.parseBoolean(BaseDriver.getProperty("report.events", "true"));
+    private static final File EVENTS_FILE = new File(BaseDriver.getProperty("report.events.file", REPORT_DIR + "report-events.jsonl"));
+
+    private static final ThreadLocal<TestContext> currentTest = new ThreadLocal<>();
+    private static final ThreadLocal<List<Event>> buffer = ThreadLocal.withInitial(ArrayList::new);
+    private static final ConcurrentLinkedQueue<List<Event>> published = new ConcurrentLinkedQueue<>();
+    private static final AtomicLong publishedEvents = new AtomicLong();
+    private static final AtomicLong testIds = new AtomicLong();
+    private static volatile long appliedEvents;
+    private static volatile Thread writer;
+
+    // Only read and written by the writer thread
+    private static ExtentReports extentReports;
+
     /**
-     * Initialize ExtentReports
+     * A test's report entry. Obtained on the thread running the test and safe to pass to background
+     * work (e.g. screenshot writers) that attaches to the test later.
      */
-    public static synchronized ExtentReports getInstance() {
-        if (extentReports == null) {
-            createInstance();
+    public static final class TestContext {
+        private final long id;
+        private final String name;
+        private final String description;
+        // Only read and written by the writer thread
+        private ExtentTest test;
+
+        private TestContext(long id, String name, String description) {
+            this.id = id;
+            this.name = name;
+            this.description = description;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        ExtentTest getExtentTest() {
+            return test;
         }
-        return extentReports;
     }
-    
+
+    /**
+     * Start the writer thread; the report itself is created by the writer on first use
+     */
+    public static void start() {
+        if (writer == null) {
+            synchronized (ExtentReportManager.class) {
+                if (writer == null) {
+                    Thread thread = new Thread(ExtentReportManager::writeLoop, "extent-report-writer");
+                    thread.setDaemon(true);
+                    thread.start();
+                    writer = thread;
+                }
+            }
+        }
+    }
+
     /**
      * Create an instance of ExtentReports
      */
@@ -42,7 +117,7 @@ public class ExtentReportManager {
         if (!reportDir.exists()) {
             reportDir.mkdirs();
         }
-        
+
         // Configure the HTML reporter
         ExtentSparkReporter sparkReporter = new ExtentSparkReporter(REPORT_DIR + REPORT_FILE);
         sparkReporter.config().setReportName(REPORT_NAME);
@@ -50,57 +125,444 @@ public class ExtentReportManager {
         sparkReporter.config().setTheme(Theme.STANDARD);
         sparkReporter.config().setEncoding("utf-8");
         sparkReporter.config().setTimeStampFormat("MMM dd, yyyy HH:mm:ss");
-        
-        extentReports = new ExtentReports();
-        extentReports.attachReporter(sparkReporter);
-        
+
+        ExtentReports reports = new ExtentReports();
+        reports.attachReporter(sparkReporter);
+
         // Add system info
-        extentReports.setSystemInfo("OS", System.getProperty("os.name"));
-        extentReports.setSystemInfo("Java Version", System.getProperty("java.version"));
-        extentReports.setSystemInfo("Platform", System.getProperty("platformName", "Android"));
-        extentReports.setSystemInfo("Environment", "QA");
-        
-        return extentReports;
+        reports.setSystemInfo("OS", System.getProperty("os.name"));
+        reports.setSystemInfo("Java Version", System.getProperty("java.version"));
+        reports.setSystemInfo("Platform", System.getProperty("platformName", "Android"));
+        reports.setSystemInfo("Environment", "QA");
+
+        return reports;
+    }
+
+    /**
+     * Get the current thread's test
+     * @return The test started on this thread, or null if none is running
+     */
+    public static TestContext getTest() {
+        return currentTest.get();
+    }
+
+    /**
+     * Create a new test and bind it to the current thread
+     */
+    public static TestContext createTest(String testName, String description) {
+        endTest();
+        TestContext context = new TestContext(testIds.incrementAndGet(), testName, description);
+        currentTest.set(context);
+        append(new Event(Type.TEST_START, context).text(description));
+        // Published at once so entries attached from other threads never arrive before the test exists
+        publish();
+        return context;
+    }
+
+    /**
+     * Unbind the current thread's test and publish everything it logged
+     */
+    public static void endTest() {
+        TestContext context = currentTest.get();
+        if (context != null) {
+            currentTest.remove();
+            append(new Event(Type.TEST_END, context));
+        }
+        publish();
     }
-    
+
     /**
-     * Get the current ExtentTest for the thread
+     * Log information to the current thread's test
      */
-    public static synchronized ExtentTest getTest() {
-        return extentTestMap.get(Thread.currentThread().getId());
+    public static void log(Status status, String message) {
+        log(getTest(), status, message);
     }
-    
+
     /**
-     * Create a new ExtentTest and add it to the map
+     * Log information to a given test
      */
-    public static synchronized ExtentTest createTest(String testName, String description) {
-        ExtentTest test = getInstance().createTest(testName, description);
-        extentTestMap.put(Thread.currentThread().getId(), test);
-        return test;
+    public static void log(TestContext context, Status status, String message) {
+        appendTo(context, new Event(Type.LOG, context).status(status).text(message));
     }
-    
+
     /**
-     * Log information to the ExtentTest
+     * Mark the current thread's test as failed with an exception
      */
-    public static synchronized void log(Status status, String message) {
-        getTest().log(status, message);
+    public static void fail(Throwable throwable) {
+        TestContext context = getTest();
+        Event event = new Event(Type.LOG, context).status(Status.FAIL).text(String.valueOf(throwable));
+        event.throwable = throwable;
+        appendTo(context, event);
     }
-    
+
     /**
      * Add a screenshot to the report
      */
-    public static synchronized void addScreenshot(String screenshotPath, String title) {
+    public static void addScreenshot(String screenshotPath, String title) {
+        addScreenshot(getTest(), screenshotPath, title);
+    }
+
+    /**
+     * Add a screenshot to a given test, e.g. once a screenshot written in the background is ready
+     */
+    public static void addScreenshot(TestContext context, String screenshotPath, String title) {
+        appendTo(context, new Event(Type.SCREENSHOT, context).text(screenshotPath).title(title));
+    }
+
+    /**
+     * Add a video player for a recording to a given test
+     */
+    public static void addVideo(TestContext context, String videoPath, String title) {
+        appendTo(context, new Event(Type.VIDEO, context).text(videoPath).title(title));
+    }
+
+    /**
+     * Add a link to a file, e.g. a failed test's log, to a given test
+     */
+    public static void addLink(TestContext context, String path, String title) {
+        appendTo(context, new Event(Type.LINK, context).text(path).title(title));
+    }
+
+    /**
+     * Add a run-level table as its own report entry, e.g. a latency summary
+     */
+    public static void addSummaryTable(String title, String[][] rows) {
+        Event event = new Event(Type.TABLE, null).title(title);
+        event.rows = rows;
+        append(event);
+    }
+
+    /**
+     * Set a run-level value shown on the dashboard, replacing an earlier value with the same name
+     */
+    public static void setSystemInfo(String name, String value) {
+        append(new Event(Type.SYSTEM_INFO, null).title(name).text(value));
+    }
+
+    /**
+     * Write out everything logged so far: flush the event log and, unless report.extent=false,
+     * generate the Extent HTML
+     */
+    public static void flushReport() {
+        Event event = new Event(Type.FLUSH, null);
+        event.done = new CompletableFuture<>();
+        append(event);
+        publish();
+        if (!awaitWriter(event.done::isDone)) {
+            logger.error("Report not flushed: the report writer {}", writer != null && writer.isAlive()
+                    ? "did not finish within " + WRITER_WAIT_MILLIS + " ms" : "has stopped");
+        } else if (event.done.isCompletedExceptionally()) {
+            logger.error("Report flush failed, see the warning above");
+        }
+    }
+
+    /**
+     * @return The append-only event log, or null if report.events=false
+     */
+    public static File getEventLogFile() {
+        return EVENTS_ENABLED ? EVENTS_FILE : null;
+    }
+
+    /**
+     * Wait until everything published so far has been written into the report, without flushing it
+     */
+    static void awaitWritten() {
+        publish();
+        long target = publishedEvents.get();
+        if (!awaitWriter(() -> appliedEvents >= target)) {
+            throw new IllegalStateException("Report writer stopped or stalled with " + (target - appliedEvents)
+                    + " event(s) unwritten");
+        }
+    }
+
+    /**
+     * Wait for the writer to get somewhere, giving up if it dies or WRITER_WAIT_MILLIS pass
+     * @return Whether the condition was met
+     */
+    private static boolean awaitWriter(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WRITER_WAIT_MILLIS);
+        while (!condition.getAsBoolean()) {
+            Thread current = writer;
+            if (current == null || !current.isAlive() || System.nanoTime() - deadline > 0) {
+                return condition.getAsBoolean();
+            }
+            LockSupport.unpark(current);
+            LockSupport.parkNanos(100_000);
+        }
+        return true;
+    }
+
+    /**
+     * Drop a test from the report, e.g. one created by a benchmark. The event log records the removal
+     * and {@link ReportRenderer} leaves the test out.
+     */
+    static void removeTest(TestContext context) {
+        append(new Event(Type.REMOVE_TEST, context));
+    }
+
+    private static void appendTo(TestContext context, Event event) {
+        if (context == null) {
+            logger.debug("No report test on thread {}, entry dropped", Thread.currentThread().getName());
+            return;
+        }
+        append(event);
+    }
+
+    /**
+     * Buffer an event for the writer. Threads that are not running a test (e.g. background
+     * writers attaching a screenshot) publish immediately since their buffer may never fill.
+     */
+    private static void append(Event event) {
+        start();
+        List<Event> pending = buffer.get();
+        pending.add(event);
+        if (pending.size() >= BATCH_SIZE || currentTest.get() == null) {
+            publish();
+        }
+    }
+
+    private static void publish() {
+        List<Event> pending = buffer.get();
+        if (pending.isEmpty()) {
+            return;
+        }
+        buffer.set(new ArrayList<>(BATCH_SIZE));
+        published.add(pending);
+        publishedEvents.addAndGet(pending.size());
+        LockSupport.unpark(writer);
+    }
+
+    private static void writeLoop() {
         try {
-            getTest().addScreenCaptureFromPath(screenshotPath, title);
-        } catch (Exception e) {
-            getTest().log(Status.WARNING, "Failed to add screenshot: " + e.getMessage());
+            extentReports = EXTENT_ENABLED ? createInstance() : null;
+        } catch (Throwable e) {
+            logger.error("Extent report unavailable, only the event log is written: {}", String.valueOf(e));
+        }
+        ReportEventLog eventLog = EVENTS_ENABLED ? openEventLog() : null;
+        try {
+            drain(eventLog);
+        } catch (Throwable e) {
+            // Waiters see the thread die and stop waiting
+            logger.error("Report writer stopped", e);
         }
     }
-    
+
+    private static void drain(ReportEventLog eventLog) {
+        while (true) {
+            List<Event> batch = published.poll();
+            if (batch == null) {
+                if (eventLog != null) {
+                    eventLog.sync();
+                }
+                LockSupport.parkNanos(WRITER_IDLE_NANOS);
+                continue;
+            }
+            for (Event event : batch) {
+                try {
+                    if (eventLog != null && event.type != Type.FLUSH) {
+                        eventLog.append(event.toJson());
+                        if (event.type == Type.TEST_END) {
+                            // A crash loses at most the tests still running
+                            eventLog.sync();
+                        }
+                    }
+                    if (extentReports != null) {
+                        applyToExtent(event);
+                    }
+                    if (event.type == Type.FLUSH) {
+                        if (eventLog != null) {
+                            eventLog.sync();
+                        }
+                        if (extentReports != null) {
+                            extentReports.flush();
+                        }
+                        event.done.complete(null);
+                    }
+                } catch (RuntimeException e) {
+                    logger.warn("Report update failed: {}", e.getMessage());
+                    if (event.done != null) {
+                        event.done.completeExceptionally(e);
+                    }
+                }
+            }
+            appliedEvents += batch.size();
+        }
+    }
+
+    /**
+     * Start the event log with the shard header: which shard (report.shard.id, by default the host name)
+     * and host produced it, so logs from several machines can be merged
+     */
+    private static ReportEventLog openEventLog() {
+        try {
+            ReportEventLog eventLog = new ReportEventLog(EVENTS_FILE);
+            String host = hostName();
+            Map<String, Object> header = new LinkedHashMap<>();
+            header.put("t", System.currentTimeMillis());
+            header.put("type", "shard");
+            String shard = BaseDriver.getProperty("report.shard.id", "").trim();
+            header.put("shard", shard.isEmpty() ? host : shard);
+            header.put("host", host);
+            eventLog.append(header);
+            return eventLog;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Report event log {} unavailable: {}", EVENTS_FILE, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+
+    private static void applyToExtent(Event event) {
+        TestContext context = event.context;
+        ExtentTest test = context != null ? context.test : null;
+        switch (event.type) {
+            case TEST_START:
+                context.test = extentReports.createTest(context.name, event.text);
+                context.test.getModel().setStartTime(new Date(event.timestampMillis));
+                context.test.getModel().setEndTime(new Date(event.timestampMillis));
+                break;
+            case LOG:
+                if (test == null) {
+                    break;
+                }
+                if (event.throwable != null) {
+                    test.fail(event.throwable);
+                } else {
+                    test.log(event.status, event.text);
+                }
+                stampLog(test, event);
+                break;
+            case SCREENSHOT:
+                if (test == null) {
+                    break;
+                }
+                try {
+                    test.addScreenCaptureFromPath(event.text, event.title);
+                } catch (Exception e) {
+                    test.log(Status.WARNING, "Failed to add screenshot: " + e.getMessage());
+                    stampLog(test, event);
+                }
+                break;
+            case VIDEO:
+                if (test != null) {
+                    test.info(event.title + "<br><video controls width='320' src='" + new File(event.text).toURI() + "'></video>");
+                    stampLog(test, event);
+                }
+                break;
+            case LINK:
+                if (test != null) {
+                    test.info("<a href='" + new File(event.text).toURI() + "'>" + event.title + "</a>");
+                    stampLog(test, event);
+                }
+                break;
+            case TEST_END:
+                if (test != null) {
+                    test.getModel().setEndTime(new Date(event.timestampMillis));
+                }
+                break;
+            case TABLE:
+                extentReports.createTest(event.title).info(MarkupHelper.createTable(event.rows));
+                break;
+            case SYSTEM_INFO:
+                extentReports.getReport().getSystemEnvInfo().removeIf(info -> info.getName().equals(event.title));
+                extentReports.setSystemInfo(event.title, event.text);
+                break;
+            case REMOVE_TEST:
+                if (test != null) {
+                    extentReports.removeTest(test);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Events are applied in batches by the writer, and Extent stamps each log (and the test's end time) with the
+     * time it is applied; put back the time the event was logged on the test thread
+     */
+    private static void stampLog(ExtentTest test, Event event) {
+        Date loggedAt = new Date(event.timestampMillis);
+        List<Log> logs = test.getModel().getLogs();
+        if (!logs.isEmpty()) {
+            logs.get(logs.size() - 1).setTimestamp(loggedAt);
+        }
+        test.getModel().setEndTime(loggedAt);
+    }
+
+    private enum Type {
+        TEST_START, LOG, SCREENSHOT, VIDEO, LINK, TEST_END, TABLE, SYSTEM_INFO, REMOVE_TEST, FLUSH
+    }
+
     /**
-     * Flush the ExtentReports instance
+     * One report update, created on the logging thread and applied by the writer
      */
-    public static synchronized void flushReport() {
-        getInstance().flush();
+    private static final class Event {
+        private final Type type;
+        private final TestContext context;
+        private final long timestampMillis = System.currentTimeMillis();
+        private Status status;
+        private String text;
+        private String title;
+        private String[][] rows;
+        private Throwable throwable;
+        private CompletableFuture<Void> done;
+
+        Event(Type type, TestContext context) {
+            this.type = type;
+            this.context = context;
+        }
+
+        Event status(Status status) {
+            this.status = status;
+            return this;
+        }
+
+        Event text(String text) {
+            this.text = text;
+            return this;
+        }
+
+        Event title(String title) {
+            this.title = title;
+            return this;
+        }
+
+        Map<String, Object> toJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("t", timestampMillis);
+            json.put("type", type.name().toLowerCase());
+            if (context != null) {
+                json.put("test", context.id);
+                if (type == Type.TEST_START) {
+                    json.put("name", context.name);
+                }
+            }
+            if (status != null) {
+                json.put("status", status.name());
+            }
+            if (title != null) {
+                json.put("title", title);
+            }
+            if (text != null) {
+                json.put("text", text);
+            }
+            if (rows != null) {
+                json.put("rows", rows);
+            }
+            if (throwable != null) {
+                StringWriter trace = new StringWriter();
+                throwable.printStackTrace(new PrintWriter(trace));
+                json.put("trace", trace.toString());
+            }
+            return json;
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,287 @@
+package com.trustwallet.automation.utils;
+
+import com.trustwallet.automation.base.BaseDriver;
+import com.trustwallet.automation.base.FrameRing;
+import com.trustwallet.automation.base.PendingFiles;
+import com.trustwallet.automation.base.ScreenshotSources;
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.android.AndroidDriver;
+import io.appium.java_client.android.AndroidStartScreenRecordingOptions;
+import io.appium.java_client.ios.IOSDriver;
+import io.appium.java_client.ios.IOSStartScreenRecordingOptions;
+import io.appium.java_client.screenrecording.CanRecordScreen;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Failure-only screen recording. With recording.mode=failure every test records from its start;
+ * a passing test's recording is thrown away without being transferred or written, a failing test's
+ * last seconds are saved and attached to its report entry.
+ * Sessions with an MJPEG stream (screenshot.source=mjpeg) record into an in-memory {@link FrameRing}:
+ * the last recording.window.seconds at recording.fps, never more than recording.max.mb per session,
+ * saved as an animated GIF. Other sessions use the Appium screen recorder, which cannot keep a rolling
+ * window: the whole test up to recording.driver.time.limit seconds is saved as MP4, and a passing test's
+ * recording is stopped and its video dropped unwritten, so the recorder is not left running between tests.
+ * Encoding and decoding run on a background thread; the test thread only takes the frames.
+ */
+public class FailureRecorder {
+    private static final Logger logger = LogManager.getLogger(FailureRecorder.class);
+    private static final String DIRECTORY = "recordings/";
+
+    /**
+     * Whether tests are recorded
+     */
+    public enum Mode {
+        OFF,
+        FAILURE;
+
+        public static Mode fromConfig(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return OFF;
+            }
+            return Mode.valueOf(value.trim().toUpperCase());
+        }
+    }
+
+    private static final Mode mode = Mode.fromConfig(BaseDriver.getProperty("recording.mode", "off"));
+    private static final long windowMillis = (long) (Double.parseDouble(
+            BaseDriver.getProperty("recording.window.seconds", "10")) * 1000);
+    private static final int fps = Integer.parseInt(BaseDriver.getProperty("recording.fps", "4"));
+    private static final long maxBytes = (long) (Double.parseDouble(
+            BaseDriver.getProperty("recording.max.mb", "32")) * 1048576);
+    private static final long driverTimeLimitSeconds = Long.parseLong(
+            BaseDriver.getProperty("recording.driver.time.limit", "180"));
+
+    private static final ThreadLocal<Recording> current = new ThreadLocal<>();
+    private static final ExecutorService encoder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "recording-encoder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final PendingFiles pending = new PendingFiles();
+    private static final LongAdder discarded = new LongAdder();
+    private static final LongAdder saved = new LongAdder();
+    private static final LongAdder savedBytes = new LongAdder();
+
+    public static Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Start recording the current test, discarding any recording still held by the thread
+     * @param driver Session running the test
+     */
+    public static void start(AppiumDriver driver) {
+        if (mode == Mode.OFF || driver == null) {
+            return;
+        }
+        discard();
+        FrameRing ring = new FrameRing(windowMillis, maxBytes, 1000L / Math.max(1, fps));
+        if (ScreenshotSources.record(driver, ring)) {
+            current.set(new Recording(driver, ring));
+            return;
+        }
+        try {
+            Duration timeLimit = Duration.ofSeconds(driverTimeLimitSeconds);
+            if (driver instanceof AndroidDriver) {
+                ((AndroidDriver) driver).startRecordingScreen(AndroidStartScreenRecordingOptions.startScreenRecordingOptions()
+                        .withTimeLimit(timeLimit).enableForcedRestart());
+            } else if (driver instanceof IOSDriver) {
+                ((IOSDriver) driver).startRecordingScreen(IOSStartScreenRecordingOptions.startScreenRecordingOptions()
+                        .withTimeLimit(timeLimit).enableForcedRestart());
+            } else {
+                return;
+            }
+            current.set(new Recording(driver, null));
+        } catch (Exception e) {
+            logger.warn("Screen recording not started: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Throw the current test's recording away without writing anything
+     */
+    public static void discard() {
+        Recording recording = current.get();
+        if (recording == null) {
+            return;
+        }
+        current.remove();
+        if (recording.ring != null) {
+            ScreenshotSources.record(recording.driver, null);
+            recording.ring.clear();
+        } else {
+            try {
+                ((CanRecordScreen) recording.driver).stopRecordingScreen();
+            } catch (Exception e) {
+                logger.debug("Failed to stop discarded screen recording: {}", e.getMessage());
+            }
+        }
+        discarded.increment();
+    }
+
+    /**
+     * Stop the current test's recording and save it in the background
+     * @param name File name without extension
+     * @return Completes with the written file, or null if the test was not recorded
+     */
+    public static CompletableFuture<File> save(String name) {
+        Recording recording = current.get();
+        if (recording == null) {
+            return null;
+        }
+        current.remove();
+        CompletableFuture<File> future;
+        if (recording.ring != null) {
+            ScreenshotSources.record(recording.driver, null);
+            List<FrameRing.Frame> frames = recording.ring.snapshot();
+            if (frames.isEmpty()) {
+                logger.warn("No frames recorded for {}", name);
+                return null;
+            }
+            File file = new File(DIRECTORY + name + ".gif");
+            future = CompletableFuture.supplyAsync(() -> writeGif(frames, file), encoder);
+        } else {
+            String base64;
+            try {
+                base64 = ((CanRecordScreen) recording.driver).stopRecordingScreen();
+            } catch (Exception e) {
+                logger.warn("Failed to stop screen recording: {}", e.getMessage());
+                return null;
+            }
+            File file = new File(DIRECTORY + name + ".mp4");
+            future = CompletableFuture.supplyAsync(() -> writeVideo(base64, file), encoder);
+        }
+        pending.track(future).whenComplete((file, error) -> {
+            if (error != null) {
+                logger.error("Failed to write recording {}: {}", name, error.getMessage());
+            } else {
+                saved.increment();
+                savedBytes.add(file.length());
+                logger.info("Recording saved: {}", file.getPath());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Wait for recordings still being encoded, e.g. before the report is flushed
+     * @param timeoutMillis Maximum time to wait
+     */
+    public static void awaitPending(long timeoutMillis) {
+        pending.await(timeoutMillis, "recording(s) still being encoded");
+    }
+
+    /**
+     * @return Recordings saved for failures vs discarded for passing tests
+     */
+    public static String getSummary() {
+        return String.format("%d saved (%.1f MB), %d discarded", saved.sum(), savedBytes.sum() / 1048576.0, discarded.sum());
+    }
+
+    private static File writeVideo(String base64, File file) {
+        try {
+            file.getAbsoluteFile().getParentFile().mkdirs();
+            Files.write(file.toPath(), Base64.getMimeDecoder().decode(base64));
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write the frames as a looping GIF, each frame shown until the next one was captured
+     */
+    private static File writeGif(List<FrameRing.Frame> frames, File file) {
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        file.delete();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(output);
+            writer.prepareWriteSequence(null);
+            for (int i = 0; i < frames.size(); i++) {
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(frames.get(i).getImage()));
+                if (image == null) {
+                    continue;
+                }
+                long delayMillis = i + 1 < frames.size()
+                        ? frames.get(i + 1).getTimestampMillis() - frames.get(i).getTimestampMillis()
+                        : 1000L / Math.max(1, fps);
+                IIOMetadata metadata = frameMetadata(writer, image, delayMillis, i == 0);
+                writer.writeToSequence(new IIOImage(image, null, metadata), null);
+            }
+            writer.endWriteSequence();
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static IIOMetadata frameMetadata(ImageWriter writer, BufferedImage image, long delayMillis, boolean first)
+            throws IOException {
+        IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), null);
+        String format = metadata.getNativeMetadataFormatName();
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+
+        IIOMetadataNode control = child(root, "GraphicControlExtension");
+        control.setAttribute("disposalMethod", "none");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("transparentColorFlag", "FALSE");
+        control.setAttribute("transparentColorIndex", "0");
+        control.setAttribute("delayTime", String.valueOf(Math.max(1, delayMillis / 10)));
+
+        if (first) {
+            IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+            loop.setAttribute("applicationID", "NETSCAPE");
+            loop.setAttribute("authenticationCode", "2.0");
+            loop.setUserObject(new byte[] {1, 0, 0});
+            child(root, "ApplicationExtensions").appendChild(loop);
+        }
+        metadata.setFromTree(format, root);
+        return metadata;
+    }
+
+    private static IIOMetadataNode child(IIOMetadataNode parent, String name) {
+        for (int i = 0; i < parent.getLength(); i++) {
+            if (parent.item(i).getNodeName().equals(name)) {
+                return (IIOMetadataNode) parent.item(i);
+            }
+        }
+        IIOMetadataNode node = new IIOMetadataNode(name);
+        parent.appendChild(node);
+        return node;
+    }
+
+    private static class Recording {
+        private final AppiumDriver driver;
+        private final FrameRing ring;
+
+        Recording(AppiumDriver driver, FrameRing ring) {
+            this.driver = driver;
+            this.ring = ring;
+        }
+    }
+}
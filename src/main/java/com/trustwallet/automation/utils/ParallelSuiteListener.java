@@ -0,0 +1,29 @@
+package com.trustwallet.automation.utils;
+
+import com.trustwallet.automation.base.DevicePool;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IAlterSuiteListener;
+import org.testng.xml.XmlSuite;
+
+import java.util.List;
+
+/**
+ * Sizes the TestNG thread pool to the device pool before the suite starts,
+ * so parallel="methods" runs exactly one test per configured device.
+ * Must be registered in testng.xml; @Listeners is too late to alter the suite.
+ */
+public class ParallelSuiteListener implements IAlterSuiteListener {
+    private static final Logger logger = LogManager.getLogger(ParallelSuiteListener.class);
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        int deviceCount = DevicePool.getInstance().size();
+        for (XmlSuite suite : suites) {
+            if (suite.getParallel() != null && suite.getParallel().isParallel()) {
+                suite.setThreadCount(deviceCount);
+                logger.info("Suite '{}' runs {} in parallel on {} device(s)", suite.getName(), suite.getParallel(), deviceCount);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.trustwallet.automation.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Append-only report event log: one JSON object per line, written by the report writer thread.
+ * Nothing is kept in memory beyond the write buffer, so the log can grow for a whole soak run
+ * while the heap stays flat. {@link ReportRenderer} turns it into HTML.
+ */
+class ReportEventLog {
+    private static final Logger logger = LogManager.getLogger(ReportEventLog.class);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final File file;
+    private final BufferedWriter writer;
+    private boolean dirty;
+
+    /**
+     * Start a new log, replacing the previous run's
+     * @param file Log file
+     */
+    ReportEventLog(File file) throws IOException {
+        this.file = file;
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, false), StandardCharsets.UTF_8));
+    }
+
+    void append(Map<String, Object> event) {
+        try {
+            writer.write(mapper.writeValueAsString(event));
+            writer.newLine();
+            dirty = true;
+        } catch (IOException e) {
+            logger.warn("Failed to append to report event log {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Hand everything appended so far to the operating system
+     */
+    void sync() {
+        if (!dirty) {
+            return;
+        }
+        try {
+            writer.flush();
+            dirty = false;
+        } catch (IOException e) {
+            logger.warn("Failed to flush report event log {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.trustwallet.automation.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Merges the report event logs of a run spread across machines (one log per shard, see report.shard.id)
+ * into one report with per-shard and combined timings, results and system info. Shards are streamed
+ * one after the other, so memory does not depend on how many there are.
+ * java ... ReportMerger merged.html [--events merged.jsonl] shard-or-directory...
+ * Directories contribute every *.jsonl file in them, in name order.
+ */
+public class ReportMerger {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ReportMerger <merged.html> [--events <merged.jsonl>] <shard.jsonl|directory>...");
+            System.exit(2);
+        }
+        File html = new File(args[0]);
+        File mergedEvents = null;
+        List<File> shards = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if ("--events".equals(args[i]) && i + 1 < args.length) {
+                mergedEvents = new File(args[++i]);
+            } else {
+                shards.addAll(shardFiles(new File(args[i])));
+            }
+        }
+        merge(shards, html, mergedEvents);
+    }
+
+    /**
+     * @param shards Shard event logs
+     * @param html Merged report to write
+     * @param mergedEvents If not null, also write one event log holding all shards
+     */
+    public static void merge(List<File> shards, File html, File mergedEvents) throws IOException {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("No shard event logs to merge");
+        }
+        ReportRenderer.render(shards, html, mergedEvents);
+    }
+
+    private static List<File> shardFiles(File path) {
+        if (!path.isDirectory()) {
+            return Arrays.asList(path);
+        }
+        File[] files = path.listFiles((directory, name) -> name.endsWith(".jsonl"));
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+}
@@ -0,0 +1,428 @@
+package com.trustwallet.automation.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds an HTML report from report event logs in one streaming pass: rows are written to temporary
+ * files as they are read, and only the tests still running and the names of recently finished ones
+ * are kept in memory, so memory does not grow with the size of the log or the number of shards.
+ * Tests removed from the report (remove_test, e.g. a benchmark's) are found in a first pass over each log
+ * and left out.
+ * Several logs (one per shard, e.g. per machine) are rendered into one report; see {@link ReportMerger}.
+ * Runs after the suite (TestListener does this automatically), or on its own while a run is going:
+ * java ... ReportRenderer [events.jsonl] [report.html] [--follow seconds]
+ */
+public class ReportRenderer {
+    private static final Logger logger = LogManager.getLogger(ReportRenderer.class);
+    private static final List<String> STATUS_SEVERITY = Arrays.asList("INFO", "PASS", "WARNING", "SKIP", "FAIL");
+    // Entries attached after a test ended (e.g. screenshots written in the background) still find its name
+    private static final int RECENTLY_ENDED = 1024;
+
+    public static void main(String[] args) throws Exception {
+        File events = new File(args.length > 0 ? args[0] : "test-output/report-events.jsonl");
+        File html = new File(args.length > 1 ? args[1] : "test-output/EventReport.html");
+        long followSeconds = args.length > 3 && "--follow".equals(args[2]) ? Long.parseLong(args[3]) : 0;
+        do {
+            render(events, html);
+            if (followSeconds > 0) {
+                Thread.sleep(followSeconds * 1000);
+            }
+        } while (followSeconds > 0);
+    }
+
+    /**
+     * Render one event log into an HTML report
+     * @param events Event log written by {@link ExtentReportManager}
+     * @param html Report to write
+     */
+    public static void render(File events, File html) throws IOException {
+        render(Collections.singletonList(events), html, null);
+    }
+
+    /**
+     * Render event logs, one after the other, into one HTML report, replacing it atomically so a live
+     * view never sees half a file
+     * @param shards Event logs, one per shard
+     * @param html Report to write
+     * @param mergedEvents If not null, also write all shards' events into this single log, test ids made unique
+     */
+    public static void render(List<File> shards, File html, File mergedEvents) throws IOException {
+        File directory = html.getAbsoluteFile().getParentFile();
+        directory.mkdirs();
+        try (Rendering rendering = new Rendering(directory, mergedEvents)) {
+            for (int index = 0; index < shards.size(); index++) {
+                rendering.readShard(index, shards.get(index));
+            }
+            rendering.write(html);
+            logger.info("Rendered {} event(s) of {} test(s) from {} shard(s) to {}", rendering.events,
+                    rendering.testCount, shards.size(), html.getAbsolutePath());
+        }
+    }
+
+    /**
+     * State of one render: temporary section files and run-level aggregates
+     */
+    private static class Rendering implements AutoCloseable {
+        private final ObjectMapper mapper = new ObjectMapper();
+        private final SimpleDateFormat time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        private final File[] sections;
+        private final BufferedWriter tests;
+        private final BufferedWriter log;
+        private final BufferedWriter tables;
+        private final BufferedWriter shardRows;
+        private final BufferedWriter environment;
+        private final BufferedWriter merged;
+        private final Map<String, Integer> statusCounts = new LinkedHashMap<>();
+        private final Map<String, TestSummary> running = new LinkedHashMap<>();
+        private final Map<String, String> ended = new LinkedHashMap<String, String>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > RECENTLY_ENDED;
+            }
+        };
+        private long events;
+        private long testCount;
+        private long testMillis;
+        private long firstMillis = Long.MAX_VALUE;
+        private long lastMillis;
+
+        Rendering(File directory, File mergedEvents) throws IOException {
+            sections = new File[5];
+            for (int i = 0; i < sections.length; i++) {
+                sections[i] = File.createTempFile("report-section", ".html", directory);
+            }
+            tests = Files.newBufferedWriter(sections[0].toPath(), StandardCharsets.UTF_8);
+            log = Files.newBufferedWriter(sections[1].toPath(), StandardCharsets.UTF_8);
+            tables = Files.newBufferedWriter(sections[2].toPath(), StandardCharsets.UTF_8);
+            shardRows = Files.newBufferedWriter(sections[3].toPath(), StandardCharsets.UTF_8);
+            environment = Files.newBufferedWriter(sections[4].toPath(), StandardCharsets.UTF_8);
+            merged = mergedEvents != null ? Files.newBufferedWriter(mergedEvents.toPath(), StandardCharsets.UTF_8) : null;
+        }
+
+        void readShard(int index, File file) throws IOException {
+            Shard shard = new Shard(file.getName());
+            Set<String> removed = removedTests(file);
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    JsonNode event = parse(line);
+                    if (event == null || event.has("test") && removed.contains(event.path("test").asText())) {
+                        continue;
+                    }
+                    events++;
+                    String testKey = event.has("test") ? index + ":" + event.path("test").asText() : null;
+                    if (merged != null) {
+                        if (testKey != null) {
+                            ((ObjectNode) event).put("test", testKey);
+                        }
+                        merged.write(mapper.writeValueAsString(event));
+                        merged.newLine();
+                    }
+                    renderEvent(event, testKey, shard);
+                }
+            }
+            finishShard(shard);
+        }
+
+        /**
+         * @return Ids of the tests a log removes; only these are held in memory
+         */
+        private Set<String> removedTests(File file) throws IOException {
+            Set<String> removed = new HashSet<>();
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    // Cheap check first: most lines are not removals
+                    if (line.contains("\"remove_test\"")) {
+                        JsonNode event = parse(line);
+                        if (event != null && "remove_test".equals(event.path("type").asText())) {
+                            removed.add(event.path("test").asText());
+                        }
+                    }
+                }
+            }
+            return removed;
+        }
+
+        private JsonNode parse(String line) {
+            try {
+                JsonNode event = mapper.readTree(line);
+                return event != null && event.isObject() ? event : null;
+            } catch (IOException e) {
+                // The last line may still be being written during a live render
+                return null;
+            }
+        }
+
+        private void renderEvent(JsonNode event, String testKey, Shard shard) throws IOException {
+            String type = event.path("type").asText();
+            long timestamp = event.path("t").asLong();
+            if (timestamp > 0) {
+                shard.firstMillis = Math.min(shard.firstMillis, timestamp);
+                shard.lastMillis = Math.max(shard.lastMillis, timestamp);
+            }
+            TestSummary test = testKey != null ? running.get(testKey) : null;
+            String testName = test != null ? test.name : testKey != null ? ended.get(testKey) : null;
+            switch (type) {
+                case "shard":
+                    shard.label = event.path("shard").asText(shard.label);
+                    shard.host = event.path("host").asText("");
+                    break;
+                case "test_start":
+                    test = new TestSummary(event.path("name").asText(), timestamp);
+                    running.put(testKey, test);
+                    log.write(row(timestamp, "<a id='test-" + anchor(testKey) + "'></a>" + escape(test.name), shard.label,
+                            "", "<b>Started</b> " + escape(event.path("text").asText())));
+                    break;
+                case "log":
+                    if (testName == null) {
+                        break;
+                    }
+                    String status = event.path("status").asText("INFO");
+                    if (test != null) {
+                        test.record(status);
+                    }
+                    String entry = escape(event.path("text").asText());
+                    if (event.has("trace")) {
+                        entry += "<pre>" + escape(event.path("trace").asText()) + "</pre>";
+                    }
+                    log.write(row(timestamp, escape(testName), shard.label, status, entry));
+                    break;
+                case "screenshot":
+                case "video":
+                    if (testName == null) {
+                        break;
+                    }
+                    if (test != null) {
+                        test.record("INFO");
+                    }
+                    String uri = new File(event.path("text").asText()).toURI().toString();
+                    String media = "screenshot".equals(type)
+                            ? "<a href='" + uri + "'><img src='" + uri + "' width='180'></a>"
+                            : "<video controls width='320' src='" + uri + "'></video>";
+                    log.write(row(timestamp, escape(testName), shard.label, "",
+                            escape(event.path("title").asText()) + "<br>" + media));
+                    break;
+                case "link":
+                    if (testName == null) {
+                        break;
+                    }
+                    if (test != null) {
+                        test.record("INFO");
+                    }
+                    String link = new File(event.path("text").asText()).toURI().toString();
+                    log.write(row(timestamp, escape(testName), shard.label, "",
+                            "<a href='" + link + "'>" + escape(event.path("title").asText()) + "</a>"));
+                    break;
+                case "test_end":
+                    if (test != null) {
+                        running.remove(testKey);
+                        ended.put(testKey, test.name);
+                        finishTest(testKey, test, shard, timestamp);
+                    }
+                    break;
+                case "system_info":
+                    // Set repeatedly during a run; the last value per shard wins
+                    shard.systemInfo.put(event.path("title").asText(), event.path("text").asText());
+                    break;
+                case "table":
+                    tables.write("<h3>" + escape(event.path("title").asText()) + " (" + escape(shard.label) + ")</h3>\n<table>");
+                    for (JsonNode tableRow : event.path("rows")) {
+                        tables.write("<tr>");
+                        for (JsonNode cell : tableRow) {
+                            tables.write("<td>" + escape(cell.asText()) + "</td>");
+                        }
+                        tables.write("</tr>");
+                    }
+                    tables.write("</table>\n");
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void finishTest(String testKey, TestSummary test, Shard shard, long endMillis) throws IOException {
+            String status = test.status();
+            String duration = endMillis > 0 ? String.format("%.2f", (endMillis - test.startMillis) / 1000.0) : "incomplete";
+            tests.write("<tr><td><a href='#test-" + anchor(testKey) + "'>" + escape(test.name) + "</a></td><td>"
+                    + escape(shard.label) + "</td><td class='" + status + "'>" + status + "</td><td>" + duration
+                    + "</td><td>" + test.entries + "</td></tr>\n");
+            statusCounts.merge(status, 1, Integer::sum);
+            shard.statusCounts.merge(status, 1, Integer::sum);
+            testCount++;
+            shard.tests++;
+            if (endMillis > 0) {
+                testMillis += endMillis - test.startMillis;
+                shard.testMillis += endMillis - test.startMillis;
+            }
+        }
+
+        private void finishShard(Shard shard) throws IOException {
+            // Tests without an end event: the shard crashed or is still running
+            for (Map.Entry<String, TestSummary> open : running.entrySet()) {
+                finishTest(open.getKey(), open.getValue(), shard, 0);
+            }
+            running.clear();
+            if (shard.firstMillis <= shard.lastMillis) {
+                firstMillis = Math.min(firstMillis, shard.firstMillis);
+                lastMillis = Math.max(lastMillis, shard.lastMillis);
+            }
+            String wall = shard.firstMillis <= shard.lastMillis
+                    ? String.format("%.1f", (shard.lastMillis - shard.firstMillis) / 1000.0) : "-";
+            shardRows.write("<tr><td>" + escape(shard.label) + "</td><td>" + escape(shard.host) + "</td><td>"
+                    + (shard.firstMillis <= shard.lastMillis ? time.format(new Date(shard.firstMillis)) : "-") + "</td><td>"
+                    + wall + "</td><td>" + shard.tests + "</td><td>" + counts(shard.statusCounts) + "</td><td>"
+                    + String.format("%.1f", shard.testMillis / 1000.0) + "</td></tr>\n");
+            for (Map.Entry<String, String> info : shard.systemInfo.entrySet()) {
+                environment.write("<tr><td>" + escape(shard.label) + "</td><th>" + escape(info.getKey()) + "</th><td>"
+                        + escape(info.getValue()) + "</td></tr>\n");
+            }
+        }
+
+        void write(File html) throws IOException {
+            for (Writer writer : new Writer[] {tests, log, tables, shardRows, environment}) {
+                writer.flush();
+            }
+            File output = File.createTempFile("report", ".html", html.getAbsoluteFile().getParentFile());
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(output.toPath(), StandardCharsets.UTF_8)) {
+                    writer.write("<!DOCTYPE html>\n<html><head><meta charset='utf-8'><title>Trust Wallet Automation Event Report</title>\n"
+                            + "<style>body{font-family:sans-serif;margin:20px}table{border-collapse:collapse;margin-bottom:16px}"
+                            + "td,th{border:1px solid #ccc;padding:4px 8px;vertical-align:top;text-align:left}"
+                            + ".PASS{color:#2e7d32}.FAIL{color:#c62828}.SKIP{color:#f9a825}.WARNING{color:#ef6c00}</style>\n"
+                            + "</head><body>\n<h1>Trust Wallet Automation Event Report</h1>\n");
+                    String wall = firstMillis <= lastMillis ? String.format("%.1f s", (lastMillis - firstMillis) / 1000.0) : "-";
+                    writer.write("<p>Rendered " + new Date() + ". Tests: " + testCount + " (" + counts(statusCounts)
+                            + "). Wall time: " + wall + ", test time: " + String.format("%.1f s", testMillis / 1000.0) + "</p>\n");
+                    writer.write("<h2>Shards</h2>\n<table><tr><th>Shard</th><th>Host</th><th>Started</th><th>Wall (s)</th>"
+                            + "<th>Tests</th><th>Results</th><th>Test time (s)</th></tr>\n");
+                    copy(sections[3], writer);
+                    writer.write("</table>\n<h2>Tests</h2>\n<table><tr><th>Test</th><th>Shard</th><th>Status</th>"
+                            + "<th>Duration (s)</th><th>Entries</th></tr>\n");
+                    copy(sections[0], writer);
+                    writer.write("</table>\n<h2>Environment</h2>\n<table>\n");
+                    copy(sections[4], writer);
+                    writer.write("</table>\n<h2>Summaries</h2>\n");
+                    copy(sections[2], writer);
+                    writer.write("<h2>Log</h2>\n<table><tr><th>Time</th><th>Test</th><th>Shard</th><th>Status</th><th>Entry</th></tr>\n");
+                    copy(sections[1], writer);
+                    writer.write("</table>\n</body></html>\n");
+                }
+                Files.move(output.toPath(), html.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                output.delete();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Writer writer : new Writer[] {tests, log, tables, shardRows, environment, merged}) {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+            for (File section : sections) {
+                section.delete();
+            }
+        }
+
+        private String row(long timestamp, String test, String shard, String status, String entry) {
+            return "<tr><td>" + time.format(new Date(timestamp)) + "</td><td>" + test + "</td><td>" + escape(shard)
+                    + "</td><td class='" + status + "'>" + status + "</td><td>" + entry + "</td></tr>\n";
+        }
+    }
+
+    private static String counts(Map<String, Integer> counts) {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append("<span class='").append(count.getKey()).append("'>").append(count.getKey()).append(' ')
+                    .append(count.getValue()).append("</span>");
+        }
+        return text.length() > 0 ? text.toString() : "none";
+    }
+
+    private static String anchor(String testKey) {
+        return testKey.replace(':', '-');
+    }
+
+    private static void copy(File file, Writer writer) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            char[] chunk = new char[8192];
+            int read;
+            while ((read = reader.read(chunk)) != -1) {
+                writer.write(chunk, 0, read);
+            }
+        }
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("'", "&#39;");
+    }
+
+    /**
+     * One shard's label, timings and results; dropped once the shard has been read
+     */
+    private static class Shard {
+        private final Map<String, String> systemInfo = new LinkedHashMap<>();
+        private final Map<String, Integer> statusCounts = new LinkedHashMap<>();
+        private String label;
+        private String host = "";
+        private long firstMillis = Long.MAX_VALUE;
+        private long lastMillis;
+        private long tests;
+        private long testMillis;
+
+        Shard(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * Status, start and entry count of a running test
+     */
+    private static class TestSummary {
+        private final String name;
+        private final long startMillis;
+        private int severity;
+        private int entries;
+
+        TestSummary(String name, long startMillis) {
+            this.name = name;
+            this.startMillis = startMillis;
+        }
+
+        void record(String status) {
+            severity = Math.max(severity, STATUS_SEVERITY.indexOf(status));
+            entries++;
+        }
+
+        String status() {
+            return severity <= 1 ? "PASS" : STATUS_SEVERITY.get(severity);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.trustwallet.automation.utils;
+
+import com.trustwallet.automation.base.BaseDriver;
+import com.trustwallet.automation.base.PendingFiles;
+import com.trustwallet.automation.base.ScreenshotSources;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Screenshots captured as raw bytes on the test thread (a stream frame, or one round trip), then downscaled, re-encoded
+ * and written by a small bounded pool. When the pool's queue is full the test thread does the work
+ * itself rather than queueing without limit.
+ * Settings: screenshot.format (jpeg, png8 for a PNG of the screen's 256 most common colours, or png), screenshot.scale
+ * (1.0 keeps the device resolution), screenshot.quality (jpeg only), screenshot.threads and screenshot.queue.
+ */
+public class ScreenshotPipeline {
+    private static final Logger logger = LogManager.getLogger(ScreenshotPipeline.class);
+    private static final String DIRECTORY = "screenshots/";
+
+    private static final String format = BaseDriver.getProperty("screenshot.format", "jpeg").trim().toLowerCase();
+    private static final double scale = Double.parseDouble(BaseDriver.getProperty("screenshot.scale", "0.5"));
+    private static final float quality = Float.parseFloat(BaseDriver.getProperty("screenshot.quality", "0.75"));
+    private static final ThreadPoolExecutor encoders = createEncoders(
+            Integer.parseInt(BaseDriver.getProperty("screenshot.threads", "2")),
+            Integer.parseInt(BaseDriver.getProperty("screenshot.queue", "16")));
+    private static final PendingFiles pending = new PendingFiles();
+    private static final LongAdder captured = new LongAdder();
+    private static final LongAdder capturedBytes = new LongAdder();
+    private static final LongAdder writtenBytes = new LongAdder();
+
+    /**
+     * Capture the screen now and encode and write it in the background. The capture is the session's
+     * latest stream frame when it has one (no round trip), otherwise a screenshot command.
+     * @param driver Session to capture
+     * @param name File name without extension
+     * @return Completes with the written file, or exceptionally if encoding or writing failed
+     */
+    public static CompletableFuture<File> capture(WebDriver driver, String name) {
+        return submit(ScreenshotSources.capture(driver), name);
+    }
+
+    /**
+     * Encode and write an already captured image in the background
+     * @param image PNG or JPEG bytes as returned by the driver or a stream
+     * @param name File name without extension
+     * @return Completes with the written file
+     */
+    public static CompletableFuture<File> submit(byte[] image, String name) {
+        captured.increment();
+        capturedBytes.add(image.length);
+        File file = new File(DIRECTORY + name + extension());
+        CompletableFuture<File> future = CompletableFuture.supplyAsync(() -> write(image, file), encoders);
+        pending.track(future).whenComplete((written, error) -> {
+            if (error != null) {
+                logger.error("Failed to write screenshot {}: {}", file, error.getMessage());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Wait for screenshots still being written, e.g. before the report is flushed
+     * @param timeoutMillis Maximum time to wait
+     */
+    public static void awaitPending(long timeoutMillis) {
+        pending.await(timeoutMillis, "screenshot(s) still being written");
+    }
+
+    /**
+     * @return Screenshots captured, and bytes captured vs bytes written to disk
+     */
+    public static String getSummary() {
+        long raw = capturedBytes.sum();
+        long written = writtenBytes.sum();
+        return String.format("%d screenshot(s), %.1f MB captured, %.1f MB written (%s, scale %.2f)", captured.sum(),
+                raw / 1048576.0, written / 1048576.0, format, scale);
+    }
+
+    private static File write(byte[] encoded, File file) {
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(encoded));
+            if (image == null) {
+                throw new IOException("Screenshot is not a readable image");
+            }
+            file.getAbsoluteFile().getParentFile().mkdirs();
+            encode(resize(image), file);
+            writtenBytes.add(file.length());
+            logger.info("Screenshot saved: {}", file.getPath());
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Downscale and convert to the pixel layout the output format needs: RGB for jpeg, a 256-colour palette for png8
+     */
+    private static BufferedImage resize(BufferedImage image) {
+        int width = Math.max(1, (int) Math.round(image.getWidth() * Math.min(scale, 1.0)));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * Math.min(scale, 1.0)));
+        int type;
+        switch (format) {
+            case "jpeg":
+            case "jpg":
+            case "png8":
+                type = BufferedImage.TYPE_INT_RGB;
+                break;
+            default:
+                if (width == image.getWidth() && height == image.getHeight()) {
+                    return image;
+                }
+                type = BufferedImage.TYPE_INT_ARGB;
+        }
+        BufferedImage resized = new BufferedImage(width, height, type);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return "png8".equals(format) ? quantize(resized) : resized;
+    }
+
+    /**
+     * Reduce to a palette of the image's 256 most common colours, counted at 5 bits per channel; app screens
+     * are mostly flat colours, so this keeps them exact where drawing into the default palette would not
+     */
+    private static BufferedImage quantize(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        int[] counts = new int[1 << 15];
+        long[] sums = new long[3 << 15];
+        for (int pixel : pixels) {
+            int bucket = bucket(pixel);
+            counts[bucket]++;
+            sums[bucket * 3] += (pixel >> 16) & 0xFF;
+            sums[bucket * 3 + 1] += (pixel >> 8) & 0xFF;
+            sums[bucket * 3 + 2] += pixel & 0xFF;
+        }
+        int[] used = new int[counts.length];
+        int usedCount = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            if (counts[bucket] > 0) {
+                used[usedCount++] = bucket;
+            }
+        }
+        // Most common first
+        int[] byCount = Arrays.stream(used, 0, usedCount).boxed()
+                .sorted((a, b) -> Integer.compare(counts[b], counts[a])).mapToInt(Integer::intValue).toArray();
+        int colours = Math.min(256, byCount.length);
+        byte[] reds = new byte[colours];
+        byte[] greens = new byte[colours];
+        byte[] blues = new byte[colours];
+        for (int i = 0; i < colours; i++) {
+            int bucket = byCount[i];
+            reds[i] = (byte) (sums[bucket * 3] / counts[bucket]);
+            greens[i] = (byte) (sums[bucket * 3 + 1] / counts[bucket]);
+            blues[i] = (byte) (sums[bucket * 3 + 2] / counts[bucket]);
+        }
+        // Map each colour present to its nearest palette entry once, then every pixel by lookup
+        byte[] index = new byte[counts.length];
+        for (int i = 0; i < usedCount; i++) {
+            int bucket = used[i];
+            long red = sums[bucket * 3] / counts[bucket];
+            long green = sums[bucket * 3 + 1] / counts[bucket];
+            long blue = sums[bucket * 3 + 2] / counts[bucket];
+            int nearest = 0;
+            long best = Long.MAX_VALUE;
+            for (int entry = 0; entry < colours && best > 0; entry++) {
+                long dr = red - (reds[entry] & 0xFF);
+                long dg = green - (greens[entry] & 0xFF);
+                long db = blue - (blues[entry] & 0xFF);
+                long distance = dr * dr + dg * dg + db * db;
+                if (distance < best) {
+                    best = distance;
+                    nearest = entry;
+                }
+            }
+            index[bucket] = (byte) nearest;
+        }
+        BufferedImage indexed = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED,
+                new IndexColorModel(8, colours, reds, greens, blues));
+        byte[] data = ((DataBufferByte) indexed.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < pixels.length; i++) {
+            data[i] = index[bucket(pixels[i])];
+        }
+        return indexed;
+    }
+
+    private static int bucket(int rgb) {
+        return ((rgb >> 9) & 0x7C00) | ((rgb >> 6) & 0x3E0) | ((rgb >> 3) & 0x1F);
+    }
+
+    private static void encode(BufferedImage image, File file) throws IOException {
+        if (!"jpeg".equals(format) && !"jpg".equals(format)) {
+            ImageIO.write(image, "png", file);
+            return;
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        ImageWriter writer = writers.next();
+        ImageWriteParam parameters = writer.getDefaultWriteParam();
+        parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        parameters.setCompressionQuality(quality);
+        file.delete();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), parameters);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static String extension() {
+        return "jpeg".equals(format) || "jpg".equals(format) ? ".jpg" : ".png";
+    }
+
+    private static ThreadPoolExecutor createEncoders(int threads, int queueSize) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "screenshot-encoder-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -2,8 +2,28 @@ package com.trustwallet.automation.utils;
 
 import io.appium.java_client.AppiumDriver;
 import com.trustwallet.automation.base.BaseDriver;
+import com.trustwallet.automation.base.CommandLatencyRecorder;
+import com.trustwallet.automation.base.DeviceLogs;
+import com.trustwallet.automation.base.ElementCache;
+import com.trustwallet.automation.base.IdleTime;
+import com.trustwallet.automation.base.InterstitialWatcher;
+import com.trustwallet.automation.base.LatencyHistogram;
+import com.trustwallet.automation.base.LocatorStats;
+import com.trustwallet.automation.base.PendingFiles;
+import com.trustwallet.automation.base.ScreenshotSources;
+import com.trustwallet.automation.base.SessionManager;
+import com.trustwallet.automation.base.SessionPrewarmer;
+import com.trustwallet.automation.base.StartupProfiler;
+import com.trustwallet.automation.base.TransportMetrics;
+import com.trustwallet.automation.base.WaitHistory;
+import com.trustwallet.automation.pages.PasscodeEntryMetrics;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ISuiteResult;
 import org.testng.ITestContext;
 import org.testng.ITestListener;
 import org.testng.ITestResult;
@@ -11,31 +31,47 @@ import com.aventstack.extentreports.Status;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
-public class TestListener implements ITestListener {
+public class TestListener implements ITestListener, IInvokedMethodListener, ISuiteListener {
     private static final Logger logger = LogManager.getLogger(TestListener.class);
-    private static AppiumDriver driver;
+    private static final ThreadLocal<AppiumDriver> driver = new ThreadLocal<>();
+    // Report entries added once a file is written in the background
+    private static final PendingFiles attachments = new PendingFiles();
     
     /**
-     * Set the AppiumDriver for screenshot capturing
-     * @param appiumDriver The AppiumDriver instance
+     * Set the AppiumDriver for screenshot capturing on the current test thread
+     * @param appiumDriver The AppiumDriver instance, or null to clear it
      */
     public static void setDriver(AppiumDriver appiumDriver) {
-        driver = appiumDriver;
+        if (appiumDriver == null) {
+            driver.remove();
+        } else {
+            driver.set(appiumDriver);
+        }
     }
     
     /**
-     * Get the AppiumDriver for screenshot capturing
+     * Get the AppiumDriver for screenshot capturing on the current test thread
      * @return The AppiumDriver instance
      */
     public static AppiumDriver getDriver() {
-        return driver;
+        AppiumDriver current = driver.get();
+        if (current == null && BaseDriver.hasDriver()) {
+            current = BaseDriver.getDriver();
+        }
+        return current;
     }
 
     @Override
     public void onTestStart(ITestResult result) {
-        logger.info("Starting test: " + result.getName());
+        TestLogs.start(result.getName());
+        logger.info("Starting test: {}", result.getName());
         
         // Get test method
         Test testMethod = result.getMethod().getConstructorOrMethod().getMethod().getAnnotation(Test.class);
@@ -47,6 +83,15 @@ public class TestListener implements ITestListener {
         // Create test in Extent Reports
         ExtentReportManager.createTest(result.getName(), testDescription);
         ExtentReportManager.log(Status.INFO, "Test started: " + result.getName());
+        CommandLatencyRecorder.getInstance().setCurrentTest(getTestKey(result));
+        IdleTime.startTest(getTestKey(result));
+        ScreenshotSources.drainSteps();
+        FailureRecorder.start(getDriver());
+        
+        // Log how the session was obtained (new or warm reuse)
+        if (SessionManager.getLastAcquisition() != null) {
+            ExtentReportManager.log(Status.INFO, "Session: " + SessionManager.getLastAcquisition());
+        }
         
         // Log test parameters if any
         if (result.getParameters().length > 0) {
@@ -56,94 +101,389 @@ public class TestListener implements ITestListener {
 
     @Override
     public void onTestSuccess(ITestResult result) {
-        logger.info("Test passed: " + result.getName());
+        logger.info("Test passed: {}", result.getName());
         ExtentReportManager.log(Status.PASS, "Test passed: " + result.getName());
         
         // Log test execution time
         long duration = result.getEndMillis() - result.getStartMillis();
         ExtentReportManager.log(Status.INFO, String.format("Test duration: %.2f seconds", duration / 1000.0));
-        
-        // No screenshots for successful tests
+        logCommandSummary(result);
+        attachStepFrames(result);
+        FailureRecorder.discard();
+        TestLogs.discard();
+        ExtentReportManager.endTest();
     }
 
     @Override
     public void onTestFailure(ITestResult result) {
-        logger.error("Test failed: " + result.getName());
+        logger.error("Test failed: {}", result.getName());
         
         // Log error details
         if (result.getThrowable() != null) {
             ExtentReportManager.log(Status.FAIL, "Test failed with exception: " + result.getThrowable().getMessage());
-            ExtentReportManager.getTest().fail(result.getThrowable());
+            ExtentReportManager.fail(result.getThrowable());
             logger.error("Exception: ", result.getThrowable());
         } else {
             ExtentReportManager.log(Status.FAIL, "Test failed");
         }
         
-        // Take screenshot on failure
+        // Take screenshot on failure from the session that ran the failing test; only the capture
+        // runs here, encoding and writing happen in the background and the report entry follows
         try {
-            String screenshotPath = TestUtils.takeScreenshot(
-                BaseDriver.getDriver(),
-                "failure_" + result.getName() + "_" + TestUtils.getCurrentDateTime("yyyyMMdd_HHmmss")
-            );
-            if (screenshotPath != null) {
-                // Make sure the path is absolute for the report
-                File screenshotFile = new File(screenshotPath);
-                String absolutePath = screenshotFile.getAbsolutePath();
-                
-                // Add to the report
-                ExtentReportManager.addScreenshot(absolutePath, "Failure Screenshot");
-                logger.info("Screenshot taken: " + absolutePath);
+            AppiumDriver failedDriver = getDriver();
+            if (failedDriver == null) {
+                throw new IllegalStateException("No driver bound to thread " + Thread.currentThread().getName());
             }
+            ExtentReportManager.TestContext test = ExtentReportManager.getTest();
+            attachLater(ScreenshotPipeline.capture(failedDriver,
+                    "failure_" + result.getName() + "_" + TestUtils.getCurrentDateTime("yyyyMMdd_HHmmss"))
+                .thenAccept(screenshotFile -> {
+                    // Make sure the path is absolute for the report
+                    String absolutePath = screenshotFile.getAbsolutePath();
+                    ExtentReportManager.addScreenshot(test, absolutePath, "Failure Screenshot");
+                    logger.info("Screenshot taken: {}", absolutePath);
+                }));
         } catch (Exception e) {
             logger.error("Failed to take screenshot on test failure", e);
             ExtentReportManager.log(Status.WARNING, "Failed to capture screenshot: " + e.getMessage());
         }
+        attachFailureRecording(result);
+        attachDeviceLog(result);
         
         // Log test execution time
         long duration = result.getEndMillis() - result.getStartMillis();
         ExtentReportManager.log(Status.INFO, String.format("Test duration: %.2f seconds", duration / 1000.0));
+        logCommandSummary(result);
+        attachStepFrames(result);
+        attachTestLog();
+        ExtentReportManager.endTest();
     }
 
     @Override
     public void onTestSkipped(ITestResult result) {
-        logger.info("Test skipped: " + result.getName());
+        logger.info("Test skipped: {}", result.getName());
         ExtentReportManager.log(Status.SKIP, "Test skipped: " + result.getName());
+        FailureRecorder.discard();
+        CommandLatencyRecorder.getInstance().setCurrentTest(null);
+        IdleTime.finishTest();
         
         // Log reason for skipping if available
         if (result.getThrowable() != null) {
             ExtentReportManager.log(Status.SKIP, "Reason: " + result.getThrowable().getMessage());
         }
+        TestLogs.discard();
+        ExtentReportManager.endTest();
+    }
+
+    /**
+     * Enforce the idle budget right after the test method returns, before its result is reported,
+     * so a passing test that was idle for too long is reported as failed
+     */
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult result) {
+        if (!method.isTestMethod() || result.getStatus() != ITestResult.SUCCESS) {
+            return;
+        }
+        IdleTime.TestIdle idle = IdleTime.currentTest();
+        String overBudget = idle != null ? idle.checkBudget() : null;
+        if (overBudget == null) {
+            return;
+        }
+        if (IdleTime.getBudgetAction() == IdleTime.BudgetAction.FAIL) {
+            result.setStatus(ITestResult.FAILURE);
+            result.setThrowable(new AssertionError("Idle budget exceeded: " + overBudget));
+        } else {
+            logger.warn("Idle budget exceeded: {}", overBudget);
+            ExtentReportManager.log(Status.WARNING, "Idle budget exceeded: " + overBudget);
+        }
     }
 
     @Override
     public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
-        logger.info("Test failed but within success percentage: " + result.getName());
+        logger.info("Test failed but within success percentage: {}", result.getName());
         ExtentReportManager.log(Status.WARNING, "Test failed but within success percentage: " + result.getName());
+        logCommandSummary(result);
+        FailureRecorder.discard();
+        // It did fail, so its log is kept like a failure's
+        attachTestLog();
+        ExtentReportManager.endTest();
+    }
+
+    @Override
+    public void onStart(ISuite suite) {
+        logger.info("Starting test suite: {}", suite.getName());
+        // Start the report writer
+        ExtentReportManager.start();
     }
 
     @Override
     public void onStart(ITestContext context) {
-        logger.info("Starting test suite: " + context.getName());
-        // Initialize the ExtentReports instance
-        ExtentReportManager.getInstance();
+        logger.info("Starting test block: {}", context.getName());
     }
 
     @Override
     public void onFinish(ITestContext context) {
-        logger.info("Test suite finished: " + context.getName());
-        logger.info("Passed tests: " + context.getPassedTests().size());
-        logger.info("Failed tests: " + context.getFailedTests().size());
-        logger.info("Skipped tests: " + context.getSkippedTests().size());
+        logger.info("Test block finished: {} ({} passed, {} failed, {} skipped)", context.getName(),
+                context.getPassedTests().size(), context.getFailedTests().size(), context.getSkippedTests().size());
+    }
+
+    /**
+     * Add the run-level summary to the report and generate it, once per suite rather than once per &lt;test&gt;
+     */
+    @Override
+    public void onFinish(ISuite suite) {
+        int total = 0;
+        int passed = 0;
+        int failed = 0;
+        int skipped = 0;
+        for (ISuiteResult result : suite.getResults().values()) {
+            ITestContext context = result.getTestContext();
+            total += context.getAllTestMethods().length;
+            passed += context.getPassedTests().size();
+            failed += context.getFailedTests().size();
+            skipped += context.getSkippedTests().size();
+        }
+        logger.info("Test suite finished: {}", suite.getName());
+        logger.info("Passed tests: {}", passed);
+        logger.info("Failed tests: {}", failed);
+        logger.info("Skipped tests: {}", skipped);
         
         // Add summary to the report
-        ExtentReportManager.getInstance().setSystemInfo("Total Tests", String.valueOf(context.getAllTestMethods().length));
-        ExtentReportManager.getInstance().setSystemInfo("Passed Tests", String.valueOf(context.getPassedTests().size()));
-        ExtentReportManager.getInstance().setSystemInfo("Failed Tests", String.valueOf(context.getFailedTests().size()));
-        ExtentReportManager.getInstance().setSystemInfo("Skipped Tests", String.valueOf(context.getSkippedTests().size()));
+        ExtentReportManager.setSystemInfo("Total Tests", String.valueOf(total));
+        ExtentReportManager.setSystemInfo("Passed Tests", String.valueOf(passed));
+        ExtentReportManager.setSystemInfo("Failed Tests", String.valueOf(failed));
+        ExtentReportManager.setSystemInfo("Skipped Tests", String.valueOf(skipped));
+        ExtentReportManager.setSystemInfo("Session Lifecycle", SessionManager.getLifecycle().name());
+        ExtentReportManager.setSystemInfo("Warm Session Reuses", String.valueOf(SessionManager.getWarmReuseCount()));
+        ExtentReportManager.setSystemInfo("Session Time Saved",
+                String.format("%.1f seconds", SessionManager.getTotalSavedMillis() / 1000.0));
+        if (SessionPrewarmer.isEnabled()) {
+            SessionPrewarmer prewarmer = SessionPrewarmer.getInstance();
+            ExtentReportManager.setSystemInfo("Pre-warm Wait (avg / max)",
+                    String.format("%d ms / %d ms", prewarmer.getAverageWaitMillis(), prewarmer.getMaxWaitMillis()));
+            ExtentReportManager.setSystemInfo("Pre-warm Starved Takes", String.valueOf(prewarmer.getStarvedTakes()));
+        }
+        StartupProfiler.getSummary().forEach((profile, summary) ->
+                ExtentReportManager.setSystemInfo("Session Startup (" + profile + ")", summary));
+        TransportMetrics transportMetrics = TransportMetrics.getInstance();
+        ExtentReportManager.setSystemInfo("WebDriver Commands",
+                String.format("%d commands, %.1f s network, %.1f s client overhead", transportMetrics.getCommandCount(),
+                        transportMetrics.getNetworkMillis() / 1000.0, transportMetrics.getClientOverheadMillis() / 1000.0));
+        transportMetrics.getSummary().forEach((command, summary) -> logger.info("Command {}: {}", command, summary));
+        addCommandLatencyTable();
+        saveWaitHistory();
+        saveLocatorStats();
+        ExtentReportManager.setSystemInfo("Element Cache", ElementCache.getInstance().getSummary());
+        addIdleTimeSummary();
+        PasscodeEntryMetrics.getInstance().getBenchmark().forEach((mode, benchmark) ->
+                ExtentReportManager.setSystemInfo("Passcode Entry (" + mode + ")", benchmark));
+        InterstitialWatcher.getSummary().forEach((name, summary) -> logger.info("Interstitial {}: {}", name, summary));
+        ExtentReportManager.setSystemInfo("Interstitials Time Saved",
+                String.format("%.1f seconds", InterstitialWatcher.getTotalSavedMillis() / 1000.0));
+        
+        // Screenshots still being written must be attached before the report is generated
+        ScreenshotPipeline.awaitPending(30_000);
+        FailureRecorder.awaitPending(60_000);
+        TestLogs.awaitPending(10_000);
+        DeviceLogs.awaitPending(30_000);
+        attachments.await(10_000, "attachment(s) still not in the report");
+        logger.info("Screenshots: {}", ScreenshotPipeline.getSummary());
+        if (FailureRecorder.getMode() != FailureRecorder.Mode.OFF) {
+            ExtentReportManager.setSystemInfo("Failure Recordings", FailureRecorder.getSummary());
+        }
+        ExtentReportManager.setSystemInfo("Screenshot Sources", ScreenshotSources.getSummary());
+        ExtentReportManager.setSystemInfo("Test Logs", TestLogs.getSummary());
+        if (DeviceLogs.isEnabled()) {
+            ExtentReportManager.setSystemInfo("Device Logs", DeviceLogs.getSummary());
+        }
         
         // Flush the report to generate HTML
         ExtentReportManager.flushReport();
         
-        logger.info("Extent Report generated successfully at: " + new File("test-output/ExtentReport.html").getAbsolutePath());
+        logger.info("Extent Report generated successfully at: {}", new File("test-output/ExtentReport.html").getAbsolutePath());
+        File eventLog = ExtentReportManager.getEventLogFile();
+        if (eventLog != null) {
+            try {
+                ReportRenderer.render(eventLog, new File("test-output/EventReport.html"));
+            } catch (IOException e) {
+                logger.warn("Failed to render event report: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Log the test's WebDriver round trips and idle time and stop attributing to it
+     */
+    private void logCommandSummary(ITestResult result) {
+        CommandLatencyRecorder recorder = CommandLatencyRecorder.getInstance();
+        ExtentReportManager.log(Status.INFO, "WebDriver commands: " + recorder.getTestSummary(getTestKey(result)));
+        recorder.setCurrentTest(null);
+        IdleTime.TestIdle idle = IdleTime.finishTest();
+        if (idle != null) {
+            ExtentReportManager.log(Status.INFO, "Time: " + idle);
+            logger.info("{}: {}", idle.getTestName(), idle);
+        }
+    }
+
+    /**
+     * Save the failed test's recording in the background and attach it once written:
+     * GIFs show inline like screenshots, MP4s get a video player
+     */
+    private void attachFailureRecording(ITestResult result) {
+        ExtentReportManager.TestContext test = ExtentReportManager.getTest();
+        CompletableFuture<File> recording = FailureRecorder.save(
+                "failure_" + result.getName() + "_" + TestUtils.getCurrentDateTime("yyyyMMdd_HHmmss"));
+        if (recording == null) {
+            return;
+        }
+        attachLater(recording.thenAccept(file -> {
+            if (file.getName().endsWith(".gif")) {
+                ExtentReportManager.addScreenshot(test, file.getAbsolutePath(), "Failure Recording");
+            } else {
+                ExtentReportManager.addVideo(test, file.getAbsolutePath(), "Failure Recording");
+            }
+        }));
+    }
+
+    /**
+     * Save the app's device log around the failure in the background and link it from the report entry
+     */
+    private void attachDeviceLog(ITestResult result) {
+        ExtentReportManager.TestContext test = ExtentReportManager.getTest();
+        CompletableFuture<File> deviceLog = DeviceLogs.save(getDriver(), result.getEndMillis(),
+                "failure_" + result.getName() + "_" + TestUtils.getCurrentDateTime("yyyyMMdd_HHmmss"));
+        if (deviceLog == null) {
+            return;
+        }
+        attachLater(deviceLog.thenAccept(file -> {
+            if (file != null) {
+                ExtentReportManager.addLink(test, file.getAbsolutePath(), "Device Log");
+            }
+        }));
+    }
+
+    /**
+     * Write the failed test's buffered log to its own file and link it from the report entry
+     */
+    private void attachTestLog() {
+        ExtentReportManager.TestContext test = ExtentReportManager.getTest();
+        CompletableFuture<File> log = TestLogs.save();
+        if (log == null) {
+            return;
+        }
+        attachLater(log.thenAccept(file -> {
+            if (file != null) {
+                ExtentReportManager.addLink(test, file.getAbsolutePath(), "Test Log");
+            }
+        }));
+    }
+
+    /**
+     * Attach the frames recorded at each page of the test (screenshot.steps) to its report entry
+     */
+    private void attachStepFrames(ITestResult result) {
+        Map<String, byte[]> steps = ScreenshotSources.drainSteps();
+        if (steps.isEmpty()) {
+            return;
+        }
+        ExtentReportManager.TestContext test = ExtentReportManager.getTest();
+        steps.forEach((step, frame) -> attachLater(ScreenshotPipeline.submit(frame, "step_" + result.getName() + "_"
+                        + step + "_" + TestUtils.getCurrentDateTime("yyyyMMdd_HHmmss"))
+                .thenAccept(file -> ExtentReportManager.addScreenshot(test, file.getAbsolutePath(), "Step " + step))));
+    }
+
+    /**
+     * Track a stage that adds a written file to the report, so the report is not flushed before it runs
+     */
+    private static void attachLater(CompletableFuture<?> attachment) {
+        attachments.track(attachment);
+    }
+
+    /**
+     * Report active vs idle time over all tests and the page methods that sleep or poll the most
+     */
+    private void addIdleTimeSummary() {
+        IdleTime.Totals testTotals = IdleTime.getTestTotals();
+        long testMillis = IdleTime.getTestMillis();
+        double idlePercent = testMillis == 0 ? 0 : Math.min(100, testTotals.getIdleMillis() * 100.0 / testMillis);
+        ExtentReportManager.setSystemInfo("Active vs Idle",
+                String.format("%.0f%% active / %.0f%% idle (sleeps %.1f s, wait polling %.1f s)", 100 - idlePercent,
+                        idlePercent, testTotals.getSleepMillis() / 1000.0, testTotals.getPollingMillis() / 1000.0));
+
+        Map<String, IdleTime.Totals> pageMethods = IdleTime.getPageMethodTotals();
+        if (pageMethods.isEmpty()) {
+            return;
+        }
+        String[][] rows = new String[pageMethods.size() + 1][];
+        rows[0] = new String[] {"Page Method", "Sleeps (s)", "Wait Polling (s)", "Idle (s)"};
+        int row = 1;
+        for (Map.Entry<String, IdleTime.Totals> entry : pageMethods.entrySet()) {
+            IdleTime.Totals totals = entry.getValue();
+            rows[row++] = new String[] {
+                entry.getKey(),
+                String.format("%.2f", totals.getSleepMillis() / 1000.0),
+                String.format("%.2f", totals.getPollingMillis() / 1000.0),
+                String.format("%.2f", totals.getIdleMillis() / 1000.0)
+            };
+        }
+        ExtentReportManager.addSummaryTable("Idle Time", rows);
+    }
+
+    /**
+     * Write the latency histograms and add the per-command table to the report
+     */
+    private void addCommandLatencyTable() {
+        CommandLatencyRecorder recorder = CommandLatencyRecorder.getInstance();
+        recorder.writeJson();
+        Map<String, LatencyHistogram> histograms = recorder.getCommandHistograms();
+        if (histograms.isEmpty()) {
+            return;
+        }
+        String[][] rows = new String[histograms.size() + 1][];
+        rows[0] = new String[] {"Command", "Count", "Total (s)", "p50 (ms)", "p90 (ms)", "p99 (ms)", "Max (ms)"};
+        int row = 1;
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            rows[row++] = new String[] {
+                entry.getKey(),
+                String.valueOf(histogram.getCount()),
+                String.format("%.2f", histogram.getTotalMillis() / 1000.0),
+                String.format("%.1f", histogram.getPercentileMillis(50)),
+                String.format("%.1f", histogram.getPercentileMillis(90)),
+                String.format("%.1f", histogram.getPercentileMillis(99)),
+                String.format("%.1f", histogram.getMaxMillis())
+            };
+        }
+        ExtentReportManager.addSummaryTable("Command Latency", rows);
+    }
+
+    /**
+     * Persist the locator latencies and report the learned timeouts
+     */
+    private void saveWaitHistory() {
+        WaitHistory waitHistory = WaitHistory.getInstance();
+        waitHistory.save();
+        Map<String, String> suggestions = waitHistory.getSuggestions();
+        suggestions.forEach((locator, suggestion) -> logger.info("Wait {}: {}", locator, suggestion));
+        ExtentReportManager.setSystemInfo("Learned Wait Timeouts",
+                String.format("%d locator(s), mode %s", suggestions.size(), waitHistory.getTimeoutMode()));
+    }
+
+    /**
+     * Persist which alternative of each locator group resolved and report dead alternatives
+     */
+    private void saveLocatorStats() {
+        LocatorStats locatorStats = LocatorStats.getInstance();
+        locatorStats.save();
+        locatorStats.getSummary().forEach((group, summary) -> logger.info("Locator group {}: {}", group, summary));
+        Map<String, List<String>> dead = locatorStats.getDeadAlternatives();
+        dead.forEach((group, locators) -> logger.warn("Locator group {} has alternatives that never matched on app {}: {}",
+                group, locatorStats.getAppVersion(), locators));
+        ExtentReportManager.setSystemInfo("Dead Locator Alternatives",
+                dead.isEmpty() ? "none" : dead.toString());
+    }
+
+    private static String getTestKey(ITestResult result) {
+        return result.getTestClass().getRealClass().getSimpleName() + "." + result.getName();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,184 @@
+package com.trustwallet.automation.utils;
+
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.Core;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.AppenderControl;
+import org.apache.logging.log4j.core.config.AppenderRef;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginConfiguration;
+import org.apache.logging.log4j.core.config.plugins.PluginElement;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds each running test's log events in memory, formatted by the layout, up to maxKb per test
+ * (the oldest lines are dropped beyond that). Events logged outside a test, i.e. without
+ * {@link TestLogs#CONTEXT_KEY} in their context, go straight to the referenced appenders.
+ * A failed test's buffer is written to directory/&lt;test id&gt;.log, a passing test's is dropped.
+ * maxKb=0 switches buffering off: every event goes to the referenced appenders.
+ */
+@Plugin(name = "TestLog", category = Core.CATEGORY_NAME, elementType = Appender.ELEMENT_TYPE, printObject = true)
+public final class TestLogAppender extends AbstractAppender {
+    private final Configuration configuration;
+    private final AppenderRef[] refs;
+    private final List<AppenderControl> forward = new ArrayList<>();
+    private final long maxBytes;
+    private final File directory;
+    private final Map<String, Buffer> buffers = new ConcurrentHashMap<>();
+
+    private TestLogAppender(String name, Filter filter, Layout<? extends Serializable> layout, Configuration configuration,
+                            AppenderRef[] refs, long maxBytes, File directory) {
+        super(name, filter, layout, true, Property.EMPTY_ARRAY);
+        this.configuration = configuration;
+        this.refs = refs;
+        this.maxBytes = maxBytes;
+        this.directory = directory;
+    }
+
+    @PluginFactory
+    public static TestLogAppender createAppender(@PluginAttribute("name") String name,
+                                                 @PluginAttribute(value = "maxKb", defaultLong = 512) long maxKb,
+                                                 @PluginAttribute(value = "directory", defaultString = "logs/tests") String directory,
+                                                 @PluginElement("Layout") Layout<? extends Serializable> layout,
+                                                 @PluginElement("Filter") Filter filter,
+                                                 @PluginElement("AppenderRef") AppenderRef[] refs,
+                                                 @PluginConfiguration Configuration configuration) {
+        if (name == null) {
+            LOGGER.error("No name provided for TestLogAppender");
+            return null;
+        }
+        return new TestLogAppender(name, filter, layout != null ? layout : PatternLayout.createDefaultLayout(),
+                configuration, refs != null ? refs : new AppenderRef[0], maxKb * 1024, new File(directory));
+    }
+
+    @Override
+    public void start() {
+        for (AppenderRef ref : refs) {
+            Appender appender = configuration.getAppender(ref.getRef());
+            if (appender == null) {
+                LOGGER.error("Appender {} referenced by {} not found", ref.getRef(), getName());
+                continue;
+            }
+            forward.add(new AppenderControl(appender, ref.getLevel(), ref.getFilter()));
+        }
+        TestLogs.appenderStarted();
+        super.start();
+    }
+
+    @Override
+    public boolean stop(long timeout, TimeUnit timeUnit) {
+        boolean stopped = super.stop(timeout, timeUnit);
+        TestLogs.appenderStopped();
+        buffers.clear();
+        return stopped;
+    }
+
+    @Override
+    public void append(LogEvent event) {
+        String test = event.getContextData().getValue(TestLogs.CONTEXT_KEY);
+        if (test == null) {
+            forward(event);
+            return;
+        }
+        Marker marker = event.getMarker();
+        if (marker != null && (marker.isInstanceOf(TestLogs.KEEP) || marker.isInstanceOf(TestLogs.DROP))) {
+            finish(test, marker.isInstanceOf(TestLogs.KEEP));
+            return;
+        }
+        if (maxBytes <= 0) {
+            forward(event);
+            return;
+        }
+        buffers.computeIfAbsent(test, key -> new Buffer()).add(getLayout().toByteArray(event), maxBytes);
+    }
+
+    /**
+     * @return Tests whose log is currently buffered
+     */
+    int getBufferedTests() {
+        return buffers.size();
+    }
+
+    private void forward(LogEvent event) {
+        for (AppenderControl control : forward) {
+            control.callAppender(event);
+        }
+    }
+
+    private void finish(String test, boolean keep) {
+        Buffer buffer = buffers.remove(test);
+        if (!keep) {
+            if (buffer != null) {
+                TestLogs.dropped(buffer.bytes);
+            }
+            return;
+        }
+        if (maxBytes <= 0) {
+            TestLogs.written(test, null, null);
+            return;
+        }
+        File file = new File(directory, test + ".log");
+        try {
+            directory.mkdirs();
+            try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file))) {
+                if (buffer != null) {
+                    buffer.writeTo(output);
+                }
+            }
+            TestLogs.written(test, file, null);
+        } catch (IOException e) {
+            error("Failed to write test log " + file, e);
+            TestLogs.written(test, null, e);
+        }
+    }
+
+    /**
+     * One test's formatted lines, oldest first
+     */
+    private static final class Buffer {
+        private final ArrayDeque<byte[]> lines = new ArrayDeque<>();
+        private long bytes;
+        private long droppedLines;
+
+        synchronized void add(byte[] line, long maxBytes) {
+            lines.addLast(line);
+            bytes += line.length;
+            while (bytes > maxBytes && lines.size() > 1) {
+                bytes -= lines.removeFirst().length;
+                droppedLines++;
+            }
+        }
+
+        synchronized void writeTo(OutputStream output) throws IOException {
+            if (droppedLines > 0) {
+                output.write(String.format("[%d earlier line(s) dropped, log.test.buffer.kb reached]%n", droppedLines)
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+            for (byte[] line : lines) {
+                output.write(line);
+            }
+        }
+    }
+}
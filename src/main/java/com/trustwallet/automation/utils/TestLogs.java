@@ -0,0 +1,137 @@
+package com.trustwallet.automation.utils;
+
+import com.trustwallet.automation.base.PendingFiles;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
+import org.apache.logging.log4j.ThreadContext;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-test logs. Every log event of a running test carries the test's id in the thread context, and
+ * {@link TestLogAppender} holds those events in a per-test buffer in memory instead of writing them to
+ * logs/test.log. When the test passes the buffer is dropped unwritten; when it fails the buffer is written
+ * to its own file and linked from the test's report entry.
+ * The end of a test is itself a log event, so with async loggers it reaches the appender after every
+ * event the test logged before it.
+ */
+public class TestLogs {
+    /**
+     * Thread context key holding the id of the test running on the thread
+     */
+    public static final String CONTEXT_KEY = "test";
+    static final Marker KEEP = MarkerManager.getMarker("TEST_LOG_KEEP");
+    static final Marker DROP = MarkerManager.getMarker("TEST_LOG_DROP");
+
+    private static final AtomicLong sequence = new AtomicLong();
+    private static final AtomicInteger activeAppenders = new AtomicInteger();
+    // Futures of failed tests' logs by test, completed by the appender
+    private static final Map<String, CompletableFuture<File>> waiting = new ConcurrentHashMap<>();
+    private static final PendingFiles pending = new PendingFiles();
+    private static final LongAdder kept = new LongAdder();
+    private static final LongAdder dropped = new LongAdder();
+    private static final LongAdder droppedBytes = new LongAdder();
+    // Last: getting the first logger configures log4j, which starts the appender and calls back into this class
+    private static final Logger logger = LogManager.getLogger(TestLogs.class);
+
+    /**
+     * Tag everything the current thread logs from now on as belonging to a new test; a previous test's
+     * buffer still open on the thread is dropped
+     * @param testName Test name, used in the log file name
+     */
+    public static void start(String testName) {
+        // A test whose end was never reported must not keep its buffer in the appender
+        discard();
+        ThreadContext.put(CONTEXT_KEY, testName.replaceAll("[^A-Za-z0-9_.-]", "_") + "-" + sequence.incrementAndGet());
+    }
+
+    /**
+     * Drop the current test's buffered log, e.g. because it passed
+     */
+    public static void discard() {
+        String test = ThreadContext.get(CONTEXT_KEY);
+        if (test == null) {
+            return;
+        }
+        logger.info(DROP, "Dropping buffered log of {}", test);
+        ThreadContext.remove(CONTEXT_KEY);
+    }
+
+    /**
+     * Write the current test's buffered log to its own file
+     * @return Completes with the written file once the appender has written it (null if per-test
+     *         buffering is switched off), or null if the test was not tagged or no appender buffers logs
+     */
+    public static CompletableFuture<File> save() {
+        String test = ThreadContext.get(CONTEXT_KEY);
+        if (test == null) {
+            return null;
+        }
+        CompletableFuture<File> future = null;
+        if (activeAppenders.get() > 0) {
+            future = pending.track(new CompletableFuture<>());
+            waiting.put(test, future);
+        }
+        logger.info(KEEP, "Saving buffered log of {}", test);
+        ThreadContext.remove(CONTEXT_KEY);
+        return future;
+    }
+
+    /**
+     * Wait for failed tests' logs still being written, e.g. before the report is flushed
+     * @param timeoutMillis Maximum time to wait
+     */
+    public static void awaitPending(long timeoutMillis) {
+        pending.await(timeoutMillis, "test log(s) still being written");
+    }
+
+    /**
+     * @return Test logs written for failures vs dropped for passing tests
+     */
+    public static String getSummary() {
+        return String.format("%d written, %d dropped (%.1f MB never written)", kept.sum(), dropped.sum(),
+                droppedBytes.sum() / 1048576.0);
+    }
+
+    static void appenderStarted() {
+        activeAppenders.incrementAndGet();
+    }
+
+    static void appenderStopped() {
+        activeAppenders.decrementAndGet();
+    }
+
+    /**
+     * Called by the appender once a failed test's log is written
+     */
+    static void written(String test, File file, Throwable error) {
+        CompletableFuture<File> future = waiting.remove(test);
+        if (error == null && file != null) {
+            kept.increment();
+        }
+        if (future == null) {
+            return;
+        }
+        if (error != null) {
+            future.completeExceptionally(error);
+        } else {
+            future.complete(file);
+        }
+    }
+
+    /**
+     * Called by the appender when a passing test's buffer is dropped
+     */
+    static void dropped(long bytes) {
+        dropped.increment();
+        droppedBytes.add(bytes);
+    }
+}
@@ -1,14 +1,10 @@
 package com.trustwallet.automation.utils;
 
+import com.trustwallet.automation.base.IdleTime;
 import io.appium.java_client.AppiumDriver;
-import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.openqa.selenium.OutputType;
-import org.openqa.selenium.TakesScreenshot;
 
-import java.io.File;
-import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.util.Date;
@@ -17,40 +13,33 @@ public class TestUtils {
     private static final Logger logger = LogManager.getLogger(TestUtils.class);
     
     /**
-     * Take a screenshot and save it to the screenshots directory
+     * Take a screenshot and save it to the screenshots directory, waiting until it is written.
+     * Use {@link ScreenshotPipeline#capture} to leave the encoding and writing to the background.
      * @param driver AppiumDriver instance
      * @param screenshotName Name of the screenshot
      * @return Path to the screenshot file
      */
     public static String takeScreenshot(AppiumDriver driver, String screenshotName) {
+        try {
+            return ScreenshotPipeline.capture(driver, screenshotFileName(screenshotName)).join().getPath();
+        } catch (RuntimeException e) {
+            logger.error("Failed to take screenshot", e);
+            return null;
+        }
+    }
+
+    /**
+     * @param screenshotName Name of the screenshot
+     * @return The name with a timestamp appended unless it already contains one
+     */
+    public static String screenshotFileName(String screenshotName) {
         String timestamp = getCurrentDateTime("yyyyMMdd_HHmmss");
-        String fileName = screenshotName;
         
         // Add timestamp if not already included in the name
         if (!screenshotName.contains(timestamp)) {
-            fileName = screenshotName + "_" + timestamp;
-        }
-        fileName += ".png";
-        
-        String directory = "screenshots/";
-        File directory_path = new File(directory);
-        
-        // Create screenshots directory if it doesn't exist
-        if (!directory_path.exists()) {
-            directory_path.mkdir();
-        }
-        
-        String filePath = directory + fileName;
-        
-        try {
-            File screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
-            FileUtils.copyFile(screenshot, new File(filePath));
-            logger.info("Screenshot saved: " + filePath);
-            return filePath;
-        } catch (IOException e) {
-            logger.error("Failed to take screenshot", e);
-            return null;
+            return screenshotName + "_" + timestamp;
         }
+        return screenshotName;
     }
     
     /**
@@ -58,13 +47,8 @@ public class TestUtils {
      * @param seconds Number of seconds to wait
      */
     public static void wait(int seconds) {
-        try {
-            logger.debug("Waiting for " + seconds + " seconds");
-            Thread.sleep(seconds * 1000L);
-        } catch (InterruptedException e) {
-            logger.error("Thread sleep interrupted", e);
-            Thread.currentThread().interrupt();
-        }
+        logger.debug("Waiting for {} seconds", seconds);
+        IdleTime.pause(seconds * 1000L);
     }
     
     /**
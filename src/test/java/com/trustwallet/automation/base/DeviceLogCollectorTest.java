@@ -0,0 +1,166 @@
+package com.trustwallet.automation.base;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Device log collection against a canned logcat capture (an app start, a crash and a service restart
+ * among other processes' lines) standing in for a device. No device needed.
+ */
+public class DeviceLogCollectorTest {
+    private static final String APP_PACKAGE = "com.wallet.crypto.trustapp";
+    private static final String CANNED = "/logcat/app-crash-threadtime.txt";
+
+    @Test(description = "Threadtime lines are split into pid, level, tag and message; other lines are skipped")
+    public void parsesThreadtimeLines() {
+        LogcatLine line = LogcatLine.parse(
+                "10-17 09:14:05.640  4321  4321 E AndroidRuntime: Process: com.wallet.crypto.trustapp, PID: 4321");
+        Assert.assertNotNull(line);
+        Assert.assertEquals(line.getPid(), 4321);
+        Assert.assertEquals(line.getLevel(), 'E');
+        Assert.assertEquals(line.getTag(), "AndroidRuntime");
+        Assert.assertEquals(line.getMessage(), "Process: com.wallet.crypto.trustapp, PID: 4321");
+        Assert.assertEquals(LogcatLine.parse("10-17 09:14:04.902  3015  3015 I chatty  : identical 4 lines").getTag(), "chatty");
+        Assert.assertNull(LogcatLine.parse("--------- beginning of main"));
+        Assert.assertNull(LogcatLine.parse("10-17 09:14:04.902 garbage"));
+    }
+
+    @Test(description = "Only the app's processes and lines naming the app are kept, including a process started after a crash")
+    public void keepsOnlyTheAppsLines() throws Exception {
+        DeviceLogCollector collector = new DeviceLogCollector("canned", cannedStream(), APP_PACKAGE, 1000, 0);
+        collector.start();
+        awaitEnd(collector);
+
+        List<String> canned = cannedLines();
+        List<String> window = collector.capture(0, System.currentTimeMillis()).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(collector.getLinesRead(), canned.size(), "Lines read");
+        Assert.assertEquals(window.size(), 19, "App lines kept: " + window);
+        Assert.assertEquals(window, canned.stream().filter(window::contains).collect(Collectors.toList()), "Order kept");
+        Assert.assertTrue(window.stream().anyMatch(line -> line.contains("FATAL EXCEPTION")), "Crash header");
+        Assert.assertTrue(window.stream().anyMatch(line -> line.contains("PasscodeFragment.onConfirm")), "Crash stack");
+        Assert.assertTrue(window.stream().anyMatch(line -> line.contains("Restored after crash")), "Restarted process");
+        for (String other : new String[] {"GoogleApiManager", "gms.unstable", "SurfaceFlinger", "GCoreFlp", "chatty"}) {
+            Assert.assertTrue(window.stream().noneMatch(line -> line.contains(other)), "Kept a line of " + other);
+        }
+    }
+
+    @Test(description = "An app already running when reading starts is found by pid lookup, not only by its next start")
+    public void keepsTheLinesOfAnAppAlreadyRunning() throws Exception {
+        // Reading starts after the app's start: its "Start proc" line is not in the log
+        String midSession = cannedLines().stream()
+                .filter(line -> !line.contains("Start proc 4321:"))
+                .collect(Collectors.joining("\n"));
+        byte[] bytes = midSession.getBytes(StandardCharsets.UTF_8);
+
+        DeviceLogCollector unresolved = new DeviceLogCollector("unresolved",
+                new StreamDeviceLogSource(() -> new ByteArrayInputStream(bytes)), APP_PACKAGE, 1000, 0);
+        DeviceLogCollector resolved = new DeviceLogCollector("resolved",
+                new StreamDeviceLogSource(() -> new ByteArrayInputStream(bytes)),
+                appPackage -> List.of(4321), APP_PACKAGE, 1000, 0);
+        unresolved.start();
+        resolved.start();
+        awaitEnd(unresolved);
+        awaitEnd(resolved);
+
+        List<String> window = resolved.capture(0, System.currentTimeMillis()).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(window.size(), 18, "App lines kept: " + window);
+        Assert.assertTrue(window.stream().anyMatch(line -> line.contains("WalletApplication: onCreate")), "Early app line");
+        List<String> learnedLate = unresolved.capture(0, System.currentTimeMillis()).get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(learnedLate.stream().noneMatch(line -> line.contains("WalletApplication: onCreate")),
+                "Without the lookup the pid is only learned from the crash");
+    }
+
+    @Test(description = "A failing pid lookup falls back to learning pids from the log")
+    public void failedPidLookupStillCollects() throws Exception {
+        DeviceLogCollector collector = new DeviceLogCollector("lookup-fails", cannedStream(), appPackage -> {
+            throw new IllegalStateException("adb_shell is not allowed");
+        }, APP_PACKAGE, 1000, 0);
+        collector.start();
+        awaitEnd(collector);
+        Assert.assertEquals(collector.getLinesKept(), 19, "App lines kept");
+    }
+
+    @Test(description = "The buffer keeps the newest lines up to its size however much the device logs")
+    public void bufferIsBounded() throws Exception {
+        int lines = 50_000;
+        StringBuilder log = new StringBuilder("10-17 09:14:02.164  1380  1419 I ActivityManager: Start proc 4321:"
+                + APP_PACKAGE + "/u0a150 for activity\n");
+        for (int i = 0; i < lines; i++) {
+            log.append("10-17 09:14:05.117  4321  4321 D Tag: line ").append(i).append('\n');
+        }
+        byte[] bytes = log.toString().getBytes(StandardCharsets.UTF_8);
+        DeviceLogCollector collector = new DeviceLogCollector("bounded",
+                new StreamDeviceLogSource(() -> new ByteArrayInputStream(bytes)), APP_PACKAGE, 1000, 0);
+        collector.start();
+        awaitEnd(collector);
+
+        Assert.assertEquals(collector.size(), 1000, "Lines buffered");
+        Assert.assertEquals(collector.getDropped(), collector.getLinesKept() - 1000, "Lines dropped");
+        List<String> window = collector.capture(0, System.currentTimeMillis()).get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(window.get(0).endsWith("line " + (lines - 1000)), "Oldest kept line");
+        Assert.assertTrue(window.get(window.size() - 1).endsWith("line " + (lines - 1)), "Newest line");
+    }
+
+    @Test(description = "Asking for a failure window returns at once; a slow driver log read is flushed in the background")
+    public void captureDoesNotBlockTheTestThread() throws Exception {
+        List<String> canned = cannedLines();
+        List<List<String>> batches = new ArrayList<>();
+        batches.add(canned.subList(0, canned.size() / 2));
+        batches.add(canned.subList(canned.size() / 2, canned.size()));
+        // Regular reads never come within the test: the second batch only arrives because of a flush
+        PollingDeviceLogSource source = new PollingDeviceLogSource(() -> {
+            Thread.sleep(200);
+            synchronized (batches) {
+                return batches.isEmpty() ? Collections.emptyList() : batches.remove(0);
+            }
+        }, 60_000);
+        DeviceLogCollector collector = new DeviceLogCollector("polling", source, APP_PACKAGE, 1000, 1000);
+        collector.start();
+        try {
+            long failure = System.currentTimeMillis();
+            long start = System.nanoTime();
+            CompletableFuture<List<String>> window = collector.capture(failure - 30_000, failure + 1000);
+            long callMillis = (System.nanoTime() - start) / 1_000_000;
+            Assert.assertTrue(callMillis < 100, "capture() took " + callMillis + " ms");
+            Assert.assertFalse(window.isDone(), "Window cut before the lines after it could arrive");
+
+            List<String> lines = window.get(10, TimeUnit.SECONDS);
+            Assert.assertEquals(lines.size(), 19, "App lines from both reads: " + lines);
+            Assert.assertTrue(lines.stream().anyMatch(line -> line.contains("Restored after crash")), "Flushed batch");
+        } finally {
+            collector.close();
+        }
+        awaitEnd(collector);
+    }
+
+    private static StreamDeviceLogSource cannedStream() {
+        return new StreamDeviceLogSource(() -> DeviceLogCollectorTest.class.getResourceAsStream(CANNED));
+    }
+
+    private static List<String> cannedLines() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                DeviceLogCollectorTest.class.getResourceAsStream(CANNED), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+
+    private static void awaitEnd(DeviceLogCollector collector) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (collector.isRunning() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertFalse(collector.isRunning(), "Collector still reading");
+    }
+}
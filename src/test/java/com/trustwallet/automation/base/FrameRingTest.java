@@ -0,0 +1,67 @@
+package com.trustwallet.automation.base;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Window, byte cap and frame rate of the in-memory recording ring. No device needed.
+ */
+public class FrameRingTest {
+
+    @Test(description = "Frames older than the window are dropped, newest kept")
+    public void keepsOnlyTheWindow() {
+        FrameRing ring = new FrameRing(1000, 1_000_000, 0);
+        for (long t = 0; t <= 3000; t += 250) {
+            ring.add(new byte[10], t);
+        }
+        Assert.assertEquals(timestamps(ring), List.of(2000L, 2250L, 2500L, 2750L, 3000L));
+        Assert.assertEquals(ring.getBytes(), 50);
+        Assert.assertEquals(ring.getDropped(), 8);
+    }
+
+    @Test(description = "The oldest frames are evicted so the total never exceeds the byte cap")
+    public void evictsOldestOverTheByteCap() {
+        FrameRing ring = new FrameRing(60_000, 100, 0);
+        for (int i = 0; i < 5; i++) {
+            ring.add(new byte[30], i * 100L);
+        }
+        Assert.assertEquals(timestamps(ring), List.of(200L, 300L, 400L));
+        Assert.assertEquals(ring.getBytes(), 90);
+        Assert.assertEquals(ring.getDropped(), 2);
+    }
+
+    @Test(description = "A frame larger than the cap is dropped without evicting the frames held")
+    public void dropsAFrameLargerThanTheCap() {
+        FrameRing ring = new FrameRing(60_000, 100, 0);
+        ring.add(new byte[40], 0);
+        ring.add(new byte[101], 100);
+        Assert.assertEquals(timestamps(ring), List.of(0L));
+        Assert.assertEquals(ring.getBytes(), 40);
+        Assert.assertEquals(ring.getDropped(), 1);
+    }
+
+    @Test(description = "Frames closer together than the minimum interval are skipped")
+    public void skipsFramesAboveTheFrameRate() {
+        FrameRing ring = new FrameRing(60_000, 1_000_000, 250);
+        for (long t = 0; t <= 1000; t += 100) {
+            ring.add(new byte[1], t);
+        }
+        Assert.assertEquals(timestamps(ring), List.of(0L, 300L, 600L, 900L));
+    }
+
+    @Test(description = "Clearing empties the ring and its byte count")
+    public void clears() {
+        FrameRing ring = new FrameRing(1000, 1000, 0);
+        ring.add(new byte[10], 0);
+        ring.clear();
+        Assert.assertTrue(ring.snapshot().isEmpty());
+        Assert.assertEquals(ring.getBytes(), 0);
+    }
+
+    private static List<Long> timestamps(FrameRing ring) {
+        return ring.snapshot().stream().map(FrameRing.Frame::getTimestampMillis).collect(Collectors.toList());
+    }
+}
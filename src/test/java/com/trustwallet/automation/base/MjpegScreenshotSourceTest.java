@@ -0,0 +1,147 @@
+package com.trustwallet.automation.base;
+
+import com.sun.net.httpserver.HttpServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Drives {@link MjpegScreenshotSource} with a local stand-in MJPEG server, no device needed
+ */
+public class MjpegScreenshotSourceTest {
+    private static final int WIDTH = 180;
+    private static final int HEIGHT = 320;
+
+    private HttpServer server;
+    private MjpegScreenshotSource source;
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+        if (source != null) {
+            source.close();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test(description = "Latest frame is served from memory while the stream runs")
+    public void servesLatestFrame() throws Exception {
+        URL url = startServer(true);
+        source = new MjpegScreenshotSource("stand-in", MjpegScreenshotSource.forUrl(url), 1000);
+
+        Assert.assertTrue(waitUntil(() -> source.getFrameCount() >= 3, 5000), "No frames read from the stream");
+        byte[] frame = source.capture();
+        Assert.assertNotNull(frame, "No fresh frame");
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(frame));
+        Assert.assertNotNull(image, "Frame is not a decodable JPEG");
+        Assert.assertEquals(image.getWidth(), WIDTH);
+        Assert.assertEquals(image.getHeight(), HEIGHT);
+
+        long frames = source.getFrameCount();
+        Assert.assertTrue(waitUntil(() -> source.getFrameCount() > frames, 5000), "Stream did not advance");
+    }
+
+    @Test(description = "Parts without Content-Length are split on the JPEG end-of-image marker")
+    public void readsFramesWithoutContentLength() throws Exception {
+        URL url = startServer(false);
+        source = new MjpegScreenshotSource("stand-in", MjpegScreenshotSource.forUrl(url), 1000);
+
+        Assert.assertTrue(waitUntil(() -> source.getFrameCount() >= 3, 5000), "No frames read from the stream");
+        Assert.assertNotNull(ImageIO.read(new ByteArrayInputStream(source.capture())), "Frame is not a decodable JPEG");
+    }
+
+    @Test(description = "A part with a malformed Content-Length is read to its end-of-image marker and the next part follows")
+    public void skipsMalformedContentLength() throws Exception {
+        byte[] first = frame(0);
+        byte[] second = frame(1);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(("--BoundaryString\r\nContent-type: image/jpg\r\nContent-Length: 12ab\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        stream.write(first);
+        stream.write(("\r\n\r\n--BoundaryString\r\nContent-type: image/jpg\r\nContent-Length: " + second.length
+                + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        stream.write(second);
+        ByteArrayInputStream input = new ByteArrayInputStream(stream.toByteArray());
+
+        Assert.assertEquals(MjpegScreenshotSource.readFrame(input), first);
+        Assert.assertEquals(MjpegScreenshotSource.readFrame(input), second);
+    }
+
+    @Test(description = "Stale frames are not served once the stream stops")
+    public void stopsServingStaleFrames() throws Exception {
+        URL url = startServer(true);
+        source = new MjpegScreenshotSource("stand-in", MjpegScreenshotSource.forUrl(url), 300);
+        Assert.assertTrue(waitUntil(() -> source.capture() != null, 5000), "No frames read from the stream");
+
+        server.stop(0);
+        server = null;
+        Assert.assertTrue(waitUntil(() -> source.capture() == null, 5000), "Stale frame still served");
+    }
+
+    /**
+     * Serve multipart/x-mixed-replace JPEG frames, each a different colour, about 20 per second
+     */
+    private URL startServer(boolean contentLength) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "multipart/x-mixed-replace; boundary=--BoundaryString");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                for (int i = 0; i < 1000; i++) {
+                    byte[] jpeg = frame(i);
+                    StringBuilder headers = new StringBuilder("--BoundaryString\r\nContent-type: image/jpg\r\n");
+                    if (contentLength) {
+                        headers.append("Content-Length: ").append(jpeg.length).append("\r\n");
+                    }
+                    body.write(headers.append("\r\n").toString().getBytes(StandardCharsets.US_ASCII));
+                    body.write(jpeg);
+                    body.write("\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                    body.flush();
+                    Thread.sleep(50);
+                }
+            } catch (IOException | InterruptedException e) {
+                // Client disconnected or server stopped
+            }
+        });
+        server.start();
+        return new URL("http", "127.0.0.1", server.getAddress().getPort(), "/");
+    }
+
+    private static byte[] frame(int index) throws IOException {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.getHSBColor((index % 20) / 20f, 0.6f, 0.9f));
+        graphics.fillRect(0, 0, WIDTH, HEIGHT);
+        graphics.setColor(Color.BLACK);
+        graphics.drawString("frame " + index, 20, 40);
+        graphics.dispose();
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", jpeg);
+        return jpeg.toByteArray();
+    }
+
+    private static boolean waitUntil(BooleanSupplier condition, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return condition.getAsBoolean();
+    }
+}
@@ -0,0 +1,95 @@
+package com.trustwallet.automation.base;
+
+import io.appium.java_client.AppiumBy;
+import org.openqa.selenium.By;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Locators evaluated on a canned UI hierarchy (the create wallet screen) instead of a device. No device needed.
+ */
+public class SnapshotQueryTest {
+    private static final String CANNED = "/hierarchy/create-wallet.xml";
+
+    private HierarchySnapshot snapshot;
+
+    @BeforeClass
+    public void parseCannedHierarchy() throws IOException {
+        try (InputStream input = SnapshotQueryTest.class.getResourceAsStream(CANNED)) {
+            snapshot = HierarchySnapshot.parse(new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test(description = "Attribute predicates, functions and and-joined terms")
+    public void evaluatesAttributePredicates() {
+        Assert.assertEquals(texts(By.xpath("//android.widget.TextView[@text='Create new wallet']")),
+                List.of("Create new wallet"));
+        Assert.assertEquals(texts(By.xpath("//*[contains(@text, 'wallet') and @class='android.widget.TextView']")),
+                List.of("Set up [new] wallet", "Create new wallet", "Add existing wallet"));
+        Assert.assertEquals(texts(By.xpath("//*[starts-with(@resource-id, \"com.wallet.crypto.trustapp:id/\")]")),
+                List.of("Set up [new] wallet"));
+        Assert.assertEquals(snapshot.findAll(By.xpath("//android.view.View[@content-desc='Create new wallet']")).size(), 1);
+    }
+
+    @Test(description = "Quoted values may contain \"and\" and brackets")
+    public void keepsQuotedValuesWhole() {
+        Assert.assertEquals(texts(By.xpath("//*[@text='Terms and Conditions']")), List.of("Terms and Conditions"));
+        Assert.assertEquals(texts(By.xpath("//*[contains(@text, 'and Cond') and @index='1']")), List.of("Terms and Conditions"));
+        Assert.assertEquals(texts(By.xpath("//*[@text='Set up [new] wallet']")), List.of("Set up [new] wallet"));
+        Assert.assertTrue(snapshot.findAll(By.xpath("//*[@text='Terms' and @text='Conditions']")).isEmpty());
+    }
+
+    @Test(description = "A position counts among siblings under the same parent, after the predicates before it")
+    public void evaluatesSiblingPositions() {
+        // The second TextView child of each parent, not the second TextView of the screen
+        Assert.assertEquals(texts(By.xpath("//android.widget.TextView[2]")), List.of("Terms and Conditions", "Done"));
+        Assert.assertEquals(texts(By.xpath("//android.widget.TextView[1]")),
+                List.of("Set up [new] wallet", "Create new wallet", "Add existing wallet"));
+        Assert.assertEquals(texts(By.xpath("//android.widget.TextView[@enabled='true'][2]")), List.of("Terms and Conditions", "Done"));
+        Assert.assertEquals(texts(By.xpath("//android.widget.TextView[2][@text='Done']")), List.of("Done"));
+        // No parent has two TextViews containing "wallet"; a screen-wide index would have returned "Create new wallet"
+        Assert.assertTrue(snapshot.findAll(By.xpath("//android.widget.TextView[contains(@text, 'wallet')][2]")).isEmpty());
+        Assert.assertTrue(snapshot.findAll(By.xpath("//android.widget.TextView[3]")).isEmpty());
+    }
+
+    @Test(description = "parent:: returns the matches' parents")
+    public void evaluatesParentAxis() {
+        List<HierarchySnapshot.Node> parents = snapshot.findAll(
+                By.xpath("//android.widget.TextView[@text='Done']/parent::android.view.View"));
+        Assert.assertEquals(parents.size(), 1);
+        Assert.assertEquals(parents.get(0).getAttribute("bounds"), "[60,2080][1020,2220]");
+    }
+
+    @Test(description = "UiSelector instance counts matches across the whole screen")
+    public void evaluatesUiSelectorInstance() {
+        Assert.assertEquals(texts(AppiumBy.androidUIAutomator("new UiSelector().className(\"android.widget.TextView\").instance(2)")),
+                List.of("Create new wallet"));
+    }
+
+    @Test(description = "Syntax the snapshot cannot evaluate is left to the driver")
+    public void rejectsUnsupportedXPath() {
+        Assert.assertFalse(HierarchySnapshot.supports(By.xpath("//*[@text='a' or @text='b']")));
+        Assert.assertFalse(HierarchySnapshot.supports(By.xpath("//*[contains(text(), 'wallet')]")));
+        Assert.assertFalse(HierarchySnapshot.supports(By.xpath("//android.view.View[last()]")));
+        Assert.assertFalse(HierarchySnapshot.supports(By.xpath("//android.view.View/android.widget.TextView")));
+        Assert.assertFalse(HierarchySnapshot.supports(By.xpath("//*[@text='unterminated]")));
+    }
+
+    @Test(description = "Text search covers text and content description only; attribute search covers every attribute")
+    public void searchesTextOrEveryAttribute() {
+        Assert.assertTrue(snapshot.containsText("Create new"));
+        Assert.assertFalse(snapshot.containsText("com.wallet.crypto.trustapp:id/title"));
+        Assert.assertTrue(snapshot.containsInAnyAttribute("com.wallet.crypto.trustapp:id/title"));
+    }
+
+    private List<String> texts(By locator) {
+        return snapshot.findAll(locator).stream().map(HierarchySnapshot.Node::getText).collect(Collectors.toList());
+    }
+}
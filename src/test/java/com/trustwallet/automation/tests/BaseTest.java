@@ -1,57 +1,77 @@
 package com.trustwallet.automation.tests;
 
+import com.trustwallet.automation.base.AppiumServerManager;
 import com.trustwallet.automation.base.BaseDriver;
+import com.trustwallet.automation.base.SessionLifecycle;
+import com.trustwallet.automation.base.SessionManager;
+import com.trustwallet.automation.pages.AppInterstitials;
 import io.appium.java_client.AppiumDriver;
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Listeners;
+import org.testng.annotations.Optional;
 import org.testng.annotations.Parameters;
 import com.trustwallet.automation.utils.TestListener;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.FileInputStream;
-import java.io.IOException;
 import java.util.Properties;
-import java.util.concurrent.TimeUnit;
 
+/**
+ * Base class for all tests. Test methods may run in parallel on the same instance,
+ * so the driver is never stored in a field: each thread reads its own session via getDriver().
+ */
 @Listeners(TestListener.class)
 public abstract class BaseTest {
 
-    protected AppiumDriver driver;
     protected Properties props;
     private static final Logger logger = LogManager.getLogger(BaseTest.class);
 
     @Parameters({"platformName"})
     @BeforeMethod
-    public void setUp(String platformName) throws IOException {
+    public void setUp(@Optional String platformName) {
         // Load properties
-        props = new Properties();
-        FileInputStream fis = new FileInputStream(System.getProperty("user.dir") + "/src/test/resources/config.properties");
-        props.load(fis);
+        props = BaseDriver.getConfig();
 
         // Use parameter from testng.xml if provided, otherwise use from config.properties
-        String platform = platformName != null ? platformName : props.getProperty("platform.name", "Android");
+        String platform = platformName != null ? platformName : BaseDriver.getProperty("platform.name", "Android");
         logger.info("Setting up test on platform: {}", platform);
-        
-        // Initialize driver from BaseDriver
-        BaseDriver baseDriver = new BaseDriver();
-        driver = baseDriver.initializeDriver(platform);
-        logger.info("Driver initialized successfully");
 
-        // Set implicit wait
-        driver.manage().timeouts().implicitlyWait(10, TimeUnit.SECONDS);
+        // Take a new or warm session according to session.lifecycle; the session is bound to this thread
+        AppiumDriver driver = SessionManager.acquireSession(platform);
+        logger.info("Driver ready on device {} ({})", BaseDriver.getDevice(), SessionManager.getLastAcquisition());
 
         // Add driver to listener context
         TestListener.setDriver(driver);
+
+        // Popups that may cover any page are dismissed by the waits instead of fixed sleeps
+        AppInterstitials.registerAll();
+    }
+
+    /**
+     * Get the session bound to the current test thread
+     * @return AppiumDriver instance
+     */
+    protected AppiumDriver getDriver() {
+        return BaseDriver.getDriver();
     }
 
-    @AfterMethod
+    @AfterMethod(alwaysRun = true)
     public void tearDown() {
-        if (driver != null) {
-            driver.quit();
-            logger.info("Driver quit successfully");
-        }
+        SessionManager.releaseSession();
         TestListener.setDriver(null);
     }
-} 
\ No newline at end of file
+
+    @AfterClass(alwaysRun = true)
+    public void closeClassSessions() {
+        SessionManager.closeSessions(SessionLifecycle.CLASS);
+    }
+
+    @AfterSuite(alwaysRun = true)
+    public void closeSuiteSessions() {
+        SessionManager.closeSessions(SessionLifecycle.SUITE);
+        AppiumServerManager.shutdown();
+    }
+}
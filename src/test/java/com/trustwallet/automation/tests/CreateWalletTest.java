@@ -23,7 +23,7 @@ public class CreateWalletTest extends BaseTest {
         logger.info("Starting test: Create Secret Phrase Wallet");
 
         // Act & Assert
-        WelcomePage welcomePage = new WelcomePage(driver);
+        WelcomePage welcomePage = new WelcomePage(getDriver());
         Assert.assertTrue(welcomePage.isPageDisplayed(), "Welcome page is not displayed.");
         logger.info("Welcome page verified");
 
@@ -75,7 +75,7 @@ public class CreateWalletTest extends BaseTest {
         logger.info("Starting test: Verify passcode mismatch handling");
         
         // Act & Assert
-        WelcomePage welcomePage = new WelcomePage(driver);
+        WelcomePage welcomePage = new WelcomePage(getDriver());
         Assert.assertTrue(welcomePage.isPageDisplayed(), "Welcome page is not displayed.");
         logger.info("Welcome page verified");
         
@@ -103,7 +103,7 @@ public class CreateWalletTest extends BaseTest {
         logger.info("Starting test: Verify Swift safety tips validation");
         
         // Act & Assert
-        WelcomePage welcomePage = new WelcomePage(driver);
+        WelcomePage welcomePage = new WelcomePage(getDriver());
         Assert.assertTrue(welcomePage.isPageDisplayed(), "Welcome page is not displayed.");
         logger.info("Welcome page verified");
         
@@ -162,7 +162,7 @@ public class CreateWalletTest extends BaseTest {
         
         // Act & Assert
         // Launch app and navigate to passcode screen
-        WelcomePage welcomePage = new WelcomePage(driver);
+        WelcomePage welcomePage = new WelcomePage(getDriver());
         Assert.assertTrue(welcomePage.isPageDisplayed(), "Welcome page is not displayed.");
         logger.info("Welcome page verified");
         
@@ -221,7 +221,7 @@ public class CreateWalletTest extends BaseTest {
         
         // Act & Assert
         // Launch app and navigate to passcode screen
-        WelcomePage welcomePage = new WelcomePage(driver);
+        WelcomePage welcomePage = new WelcomePage(getDriver());
         Assert.assertTrue(welcomePage.isPageDisplayed(), "Welcome page is not displayed.");
         logger.info("Welcome page verified");
         
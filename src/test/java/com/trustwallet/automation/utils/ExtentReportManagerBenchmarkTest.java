@@ -0,0 +1,141 @@
+package com.trustwallet.automation.utils;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.Status;
+import com.trustwallet.automation.base.BaseDriver;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Log throughput of {@link ExtentReportManager} with many concurrent test threads, against the
+ * previous design (one monitor around Extent, tests in a HashMap by thread id). No device needed.
+ * Threads and lines per thread: report.benchmark.threads and report.benchmark.lines.
+ * Runs in testng-benchmarks.xml (mvn test -Pbenchmarks), not the default suite.
+ */
+public class ExtentReportManagerBenchmarkTest {
+    private static final Logger logger = LogManager.getLogger(ExtentReportManagerBenchmarkTest.class);
+    private static final int THREADS = Integer.parseInt(BaseDriver.getProperty("report.benchmark.threads", "16"));
+    private static final int LINES = Integer.parseInt(BaseDriver.getProperty("report.benchmark.lines", "2000"));
+
+    @Test(description = "Every line logged by concurrent test threads lands in its own test")
+    public void concurrentLogsReachTheirTests() throws Exception {
+        List<ExtentReportManager.TestContext> contexts = runManager(THREADS, LINES);
+        ExtentReportManager.awaitWritten();
+        try {
+            for (ExtentReportManager.TestContext context : contexts) {
+                Assert.assertNotNull(context.getExtentTest(), "Test not created: " + context.getName());
+                Assert.assertEquals(context.getExtentTest().getModel().getLogs().size(), LINES,
+                        "Lines in " + context.getName());
+                for (int i = 0; i < LINES; i += LINES / 10) {
+                    Assert.assertTrue(context.getExtentTest().getModel().getLogs().get(i).getDetails()
+                            .startsWith(context.getName() + " line " + i + " "), "Line order in " + context.getName());
+                }
+            }
+        } finally {
+            contexts.forEach(ExtentReportManager::removeTest);
+            ExtentReportManager.awaitWritten();
+        }
+    }
+
+    @Test(description = "Log throughput with 16+ threads: thread-confined buffers vs one shared monitor")
+    public void logThroughput() throws Exception {
+        // Warm up both paths so the comparison is not dominated by class loading and JIT
+        runLegacy(THREADS, LINES / 5);
+        ExtentReportManager.awaitWritten();
+        runManager(THREADS, LINES / 5).forEach(ExtentReportManager::removeTest);
+        ExtentReportManager.awaitWritten();
+
+        long legacyStart = System.nanoTime();
+        runLegacy(THREADS, LINES);
+        long legacyNanos = System.nanoTime() - legacyStart;
+
+        long start = System.nanoTime();
+        List<ExtentReportManager.TestContext> contexts = runManager(THREADS, LINES);
+        long appendNanos = System.nanoTime() - start;
+        ExtentReportManager.awaitWritten();
+        long writtenNanos = System.nanoTime() - start;
+        contexts.forEach(ExtentReportManager::removeTest);
+        ExtentReportManager.awaitWritten();
+
+        long lines = (long) THREADS * LINES;
+        String result = String.format("%d threads x %d lines: synchronized %.0f lines/s; buffered %.0f lines/s on the test "
+                        + "threads, %.0f lines/s until written", THREADS, LINES, lines * 1e9 / legacyNanos,
+                lines * 1e9 / appendNanos, lines * 1e9 / writtenNanos);
+        logger.info(result);
+    }
+
+    /**
+     * Each thread creates a test, logs its lines and ends the test, all through ExtentReportManager
+     */
+    private static List<ExtentReportManager.TestContext> runManager(int threads, int lines) throws Exception {
+        return runThreads(threads, index -> {
+            String name = "benchmark-" + index;
+            ExtentReportManager.TestContext context = ExtentReportManager.createTest(name, "Report benchmark");
+            for (int i = 0; i < lines; i++) {
+                ExtentReportManager.log(Status.INFO, name + " line " + i + " of the benchmark");
+            }
+            ExtentReportManager.endTest();
+            return context;
+        });
+    }
+
+    /**
+     * The previous design: every call synchronized on one monitor, tests looked up by thread id
+     */
+    private static void runLegacy(int threads, int lines) throws Exception {
+        ExtentReports reports = new ExtentReports();
+        Map<Long, ExtentTest> tests = new HashMap<>();
+        Object monitor = new Object();
+        runThreads(threads, index -> {
+            String name = "legacy-" + index;
+            synchronized (monitor) {
+                tests.put(Thread.currentThread().getId(), reports.createTest(name, "Report benchmark"));
+            }
+            for (int i = 0; i < lines; i++) {
+                synchronized (monitor) {
+                    tests.get(Thread.currentThread().getId()).log(Status.INFO, name + " line " + i + " of the benchmark");
+                }
+            }
+            return null;
+        });
+    }
+
+    private interface Worker<T> {
+        T run(int index) throws Exception;
+    }
+
+    private static <T> List<T> runThreads(int threads, Worker<T> worker) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch startGate = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int index = t;
+                futures.add(pool.submit(() -> {
+                    startGate.await();
+                    return worker.run(index);
+                }));
+            }
+            startGate.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.trustwallet.automation.utils;
+
+import com.trustwallet.automation.base.BaseDriver;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.openqa.selenium.By;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * What logging adds to each page action (a click logs "waiting for" and "clicked" at debug) with the
+ * previous synchronous configuration against log4j2.xml with async loggers. Both runs make exactly the
+ * same logging calls, so the difference is the configuration alone. Actions are paced by a pause standing
+ * in for the device round trip, and only the time spent logging is counted. Each configuration runs in its
+ * own logger context writing to a temporary directory, with the console switched off in both. No device needed.
+ * Threads, actions per thread and the pause: logging.benchmark.threads, logging.benchmark.actions and
+ * logging.benchmark.pause.micros. Runs in testng-benchmarks.xml (mvn test -Pbenchmarks), not the default suite.
+ */
+public class LoggingOverheadBenchmarkTest {
+    private static final Logger logger = LogManager.getLogger(LoggingOverheadBenchmarkTest.class);
+    private static final int THREADS = Integer.parseInt(BaseDriver.getProperty("logging.benchmark.threads", "4"));
+    private static final int ACTIONS = Integer.parseInt(BaseDriver.getProperty("logging.benchmark.actions", "2000"));
+    private static final long PAUSE_NANOS = Long.parseLong(BaseDriver.getProperty("logging.benchmark.pause.micros", "500")) * 1000;
+    private static final String PAGE_LOGGER = "com.trustwallet.automation.base.BasePage";
+
+    private File directory;
+
+    @BeforeClass
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("logging-benchmark").toFile();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test(description = "Per-action logging overhead: synchronous appenders vs async loggers")
+    public void perActionOverhead() throws Exception {
+        URI sync = getClass().getResource("/log4j2-sync-benchmark.xml").toURI();
+        URI async = getClass().getResource("/log4j2.xml").toURI();
+        // Warm up every path so the comparison is not dominated by class loading and JIT
+        run("warmup-sync", sync, ACTIONS / 4);
+        run("warmup-async", async, ACTIONS / 4);
+
+        Result before = run("sync", sync, ACTIONS);
+        Result after = run("async", async, ACTIONS);
+
+        long lines = 2L * THREADS * ACTIONS;
+        Assert.assertEquals(before.lines, lines, "Lines written by the synchronous configuration");
+        Assert.assertEquals(after.lines, lines, "Lines written by the async configuration");
+
+        String result = String.format("%d threads x %d actions, %d us apart: logging adds %.2f us/action synchronous "
+                        + "(p99 %.1f us), %.2f us/action async (p99 %.1f us)", THREADS, ACTIONS, PAUSE_NANOS / 1000,
+                before.meanMicros(), before.p99Micros(), after.meanMicros(), after.p99Micros());
+        logger.info(result);
+    }
+
+    /**
+     * Run paced actions on THREADS threads against one logger context
+     */
+    private Result run(String name, URI config, int actions) throws Exception {
+        File logDirectory = new File(directory, name);
+        String previousDirectory = System.getProperty("log.dir");
+        String previousConsoleLevel = System.getProperty("log.console.level");
+        System.setProperty("log.dir", logDirectory.getPath());
+        System.setProperty("log.console.level", "off");
+        LoggerContext context = new LoggerContext(name, null, config);
+        try {
+            context.start();
+            Logger pageLogger = context.getLogger(PAGE_LOGGER);
+            By[] locators = new By[16];
+            for (int i = 0; i < locators.length; i++) {
+                locators[i] = By.id("com.wallet.crypto.trustapp:id/button_" + i);
+            }
+            List<long[]> perThread = runThreads(THREADS, index -> {
+                long[] nanos = new long[actions];
+                for (int i = 0; i < actions; i++) {
+                    LockSupport.parkNanos(PAUSE_NANOS);
+                    By locator = locators[(index + i) % locators.length];
+                    long start = System.nanoTime();
+                    pageLogger.debug("Waiting for element clickability: {}", locator);
+                    pageLogger.debug("Clicked on element: {}", locator);
+                    nanos[i] = System.nanoTime() - start;
+                }
+                return nanos;
+            });
+            context.stop();
+            return new Result(perThread, logDirectory);
+        } finally {
+            context.stop();
+            restoreProperty("log.dir", previousDirectory);
+            restoreProperty("log.console.level", previousConsoleLevel);
+        }
+    }
+
+    private static void restoreProperty(String key, String value) {
+        if (value == null) {
+            System.clearProperty(key);
+        } else {
+            System.setProperty(key, value);
+        }
+    }
+
+    private interface Worker<T> {
+        T run(int index) throws Exception;
+    }
+
+    private static <T> List<T> runThreads(int threads, Worker<T> worker) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch startGate = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int index = t;
+                futures.add(pool.submit(() -> {
+                    startGate.await();
+                    return worker.run(index);
+                }));
+            }
+            startGate.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static class Result {
+        private final long[] nanos;
+        private long lines;
+
+        Result(List<long[]> perThread, File logDirectory) throws IOException {
+            nanos = perThread.stream().flatMapToLong(LongStream::of).sorted().toArray();
+            File[] files = logDirectory.listFiles();
+            if (files == null) {
+                return;
+            }
+            for (File file : files) {
+                try (InputStream input = file.getName().endsWith(".gz")
+                        ? new GZIPInputStream(new FileInputStream(file)) : new FileInputStream(file);
+                     BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+                    while (reader.readLine() != null) {
+                        lines++;
+                    }
+                }
+            }
+        }
+
+        double meanMicros() {
+            return LongStream.of(nanos).average().orElse(0) / 1e3;
+        }
+
+        double p99Micros() {
+            return nanos.length == 0 ? 0 : nanos[(int) (nanos.length * 0.99)] / 1e3;
+        }
+    }
+}
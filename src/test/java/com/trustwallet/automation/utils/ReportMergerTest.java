@@ -0,0 +1,181 @@
+package com.trustwallet.automation.utils;
+
+import com.aventstack.extentreports.Status;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs report shards in separate JVMs standing in for separate machines, then merges their event logs.
+ * No device needed.
+ */
+public class ReportMergerTest {
+    private static final int SHARDS = 3;
+    private static final int TESTS_PER_SHARD = 4;
+
+    private File directory;
+
+    @BeforeClass
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("report-shards").toFile();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void deleteDirectory() throws IOException {
+        try (Stream<java.nio.file.Path> paths = Files.walk(directory.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(java.nio.file.Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test(description = "Shards run in separate JVMs merge into one report with combined results and per-shard info")
+    public void mergesShardsFromSeparateProcesses() throws Exception {
+        File shardDirectory = new File(directory, "shards");
+        shardDirectory.mkdirs();
+        List<Process> processes = new ArrayList<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            processes.add(new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(),
+                    "-cp", System.getProperty("java.class.path"),
+                    "-Dreport.extent=false",
+                    "-Dreport.shard.id=shard-" + shard,
+                    "-Dreport.events.file=" + new File(shardDirectory, "shard-" + shard + ".jsonl").getPath(),
+                    ShardRun.class.getName(), String.valueOf(TESTS_PER_SHARD))
+                    .inheritIO().start());
+        }
+        for (Process process : processes) {
+            Assert.assertTrue(process.waitFor(60, TimeUnit.SECONDS), "Shard did not finish");
+            Assert.assertEquals(process.exitValue(), 0, "Shard exit code");
+        }
+
+        File html = new File(directory, "merged.html");
+        File mergedEvents = new File(directory, "merged.jsonl");
+        ReportMerger.main(new String[] {html.getPath(), "--events", mergedEvents.getPath(), shardDirectory.getPath()});
+
+        String report = new String(Files.readAllBytes(html.toPath()), StandardCharsets.UTF_8);
+        Assert.assertTrue(report.contains("Tests: " + SHARDS * TESTS_PER_SHARD + " ("), "Combined test count");
+        Assert.assertTrue(report.contains("FAIL " + SHARDS + "</span>"), "Combined failures");
+        Assert.assertTrue(report.contains("PASS " + SHARDS * (TESTS_PER_SHARD - 1) + "</span>"), "Combined passes");
+        for (int shard = 0; shard < SHARDS; shard++) {
+            Assert.assertTrue(report.contains("<tr><td>shard-" + shard + "</td>"), "Shard row for shard-" + shard);
+            Assert.assertTrue(report.contains("<td>shard-" + shard + "</td><th>Worker</th><td>worker-" + shard + "</td>"),
+                    "System info of shard-" + shard);
+        }
+        Assert.assertTrue(report.contains("Failure Screenshot<br>"), "Screenshot attached after the test ended");
+
+        Assert.assertFalse(report.contains("scratch"), "Removed test rendered");
+
+        ObjectMapper mapper = new ObjectMapper();
+        Set<String> testKeys = new HashSet<>();
+        long shardLines = 0;
+        for (File shard : shardDirectory.listFiles()) {
+            List<String> lines = Files.readAllLines(shard.toPath());
+            Set<String> removed = new HashSet<>();
+            for (String line : lines) {
+                JsonNode event = mapper.readTree(line);
+                if ("remove_test".equals(event.path("type").asText())) {
+                    removed.add(event.path("test").asText());
+                }
+            }
+            Assert.assertEquals(removed.size(), 1, "Removals recorded in " + shard.getName());
+            for (String line : lines) {
+                if (!removed.contains(mapper.readTree(line).path("test").asText())) {
+                    shardLines++;
+                }
+            }
+        }
+        List<String> mergedLines = Files.readAllLines(mergedEvents.toPath());
+        Assert.assertEquals(mergedLines.size(), shardLines, "Merged event log line count, removed tests left out");
+        for (String line : mergedLines) {
+            JsonNode event = mapper.readTree(line);
+            if ("test_start".equals(event.path("type").asText())) {
+                Assert.assertTrue(testKeys.add(event.path("test").asText()), "Duplicate test id " + event.path("test"));
+            }
+        }
+        Assert.assertEquals(testKeys.size(), SHARDS * TESTS_PER_SHARD, "Unique tests in merged log");
+    }
+
+    @Test(description = "Many shards merge one after the other")
+    public void mergesManyShards() throws Exception {
+        int shards = 200;
+        List<File> files = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            File file = new File(directory, String.format("many-%03d.jsonl", shard));
+            ReportEventLog log = new ReportEventLog(file);
+            long now = System.currentTimeMillis();
+            log.append(event(now, "shard", null, "shard", "many-" + shard));
+            for (int test = 1; test <= 5; test++) {
+                log.append(event(now, "test_start", test, "name", "test" + test));
+                log.append(event(now + 1, "log", test, "status", test == 5 ? "FAIL" : "PASS"));
+                log.append(event(now + 1000, "test_end", test, null, null));
+            }
+            log.sync();
+            files.add(file);
+        }
+        File html = new File(directory, "many.html");
+        ReportMerger.merge(files, html, null);
+        String report = new String(Files.readAllBytes(html.toPath()), StandardCharsets.UTF_8);
+        Assert.assertTrue(report.contains("Tests: " + shards * 5 + " ("), "Combined test count");
+        Assert.assertTrue(report.contains("FAIL " + shards + "</span>"), "Combined failures");
+        Assert.assertTrue(report.contains("test time: " + String.format("%.1f s", shards * 5.0)), "Combined test time");
+    }
+
+    private static Map<String, Object> event(long timestamp, String type, Integer test, String key, String value) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("t", timestamp);
+        event.put("type", type);
+        if (test != null) {
+            event.put("test", test);
+        }
+        if (key != null) {
+            event.put(key, value);
+        }
+        return event;
+    }
+
+    /**
+     * One shard: runs a few tests through ExtentReportManager exactly as TestListener does, the last one failing,
+     * after a test that is removed from the report
+     */
+    public static class ShardRun {
+        public static void main(String[] args) throws Exception {
+            int tests = Integer.parseInt(args[0]);
+            String worker = "worker-" + System.getProperty("report.shard.id").replace("shard-", "");
+            ExtentReportManager.setSystemInfo("Worker", worker);
+            // Created and removed again, as a benchmark does
+            ExtentReportManager.TestContext scratch = ExtentReportManager.createTest("scratch", "Removed test");
+            ExtentReportManager.log(Status.INFO, "scratch entry");
+            ExtentReportManager.endTest();
+            ExtentReportManager.removeTest(scratch);
+            for (int i = 0; i < tests; i++) {
+                ExtentReportManager.TestContext test = ExtentReportManager.createTest("test" + i, "Shard test " + i);
+                ExtentReportManager.log(Status.INFO, "Test started: test" + i);
+                Thread.sleep(20);
+                if (i == tests - 1) {
+                    ExtentReportManager.fail(new AssertionError("Expected failure in " + worker));
+                    ExtentReportManager.endTest();
+                    ExtentReportManager.addScreenshot(test, "screenshots/failure_test" + i + ".jpg", "Failure Screenshot");
+                } else {
+                    ExtentReportManager.log(Status.PASS, "Test passed: test" + i);
+                    ExtentReportManager.endTest();
+                }
+            }
+            ExtentReportManager.flushReport();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.trustwallet.automation.utils;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.AppenderRef;
+import org.apache.logging.log4j.core.config.DefaultConfiguration;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Per-test buffering, marker routing and the buffer cap of {@link TestLogAppender}, fed events directly.
+ * No device needed.
+ */
+public class TestLogAppenderTest {
+    private File directory;
+
+    @BeforeClass
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("test-logs").toFile();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test(description = "Untagged events go straight through; a test's events are held until its end, dropped when it passes")
+    public void buffersTaggedEventsAndDropsPassingTests() {
+        Capture capture = new Capture();
+        TestLogAppender appender = start(capture, 512);
+        try {
+            appender.append(event(null, null, "outside any test"));
+            appender.append(event("passing-1", null, "step one"));
+            appender.append(event("passing-1", null, "step two"));
+            Assert.assertEquals(capture.messages, List.of("outside any test"), "Forwarded");
+            Assert.assertEquals(appender.getBufferedTests(), 1, "Buffered tests");
+
+            appender.append(event("passing-1", TestLogs.DROP, "Dropping buffered log of passing-1"));
+            Assert.assertEquals(appender.getBufferedTests(), 0, "Buffer released");
+            Assert.assertFalse(new File(directory, "passing-1.log").exists(), "Passing test's log written");
+            Assert.assertEquals(capture.messages.size(), 1, "End marker forwarded");
+        } finally {
+            appender.stop();
+        }
+    }
+
+    @Test(description = "A failed test's buffer is written to its own file, the oldest lines dropped beyond maxKb")
+    public void writesFailedTestsCappedToMaxKb() throws IOException {
+        TestLogAppender appender = start(new Capture(), 1);
+        try {
+            for (int i = 0; i < 100; i++) {
+                appender.append(event("failing-2", null, String.format("line %03d %s", i, "x".repeat(80))));
+            }
+            appender.append(event("failing-2", TestLogs.KEEP, "Saving buffered log of failing-2"));
+            Assert.assertEquals(appender.getBufferedTests(), 0, "Buffer released");
+
+            File file = new File(directory, "failing-2.log");
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            Assert.assertTrue(lines.get(0).startsWith("[") && lines.get(0).contains("earlier line(s) dropped"),
+                    "Dropped lines noted: " + lines.get(0));
+            Assert.assertTrue(lines.get(lines.size() - 1).startsWith("line 099"), "Newest line kept");
+            Assert.assertTrue(lines.stream().noneMatch(line -> line.startsWith("line 000")), "Oldest line dropped");
+            long body = lines.stream().skip(1).mapToLong(line -> line.length() + System.lineSeparator().length()).sum();
+            Assert.assertTrue(body <= 1024, "Buffered " + body + " bytes over 1 KB");
+        } finally {
+            appender.stop();
+        }
+    }
+
+    @Test(description = "maxKb=0 switches buffering off: a test's events go straight through and nothing is written")
+    public void zeroMaxKbForwardsEverything() {
+        Capture capture = new Capture();
+        TestLogAppender appender = start(capture, 0);
+        try {
+            appender.append(event("unbuffered-3", null, "step one"));
+            appender.append(event("unbuffered-3", TestLogs.KEEP, "Saving buffered log of unbuffered-3"));
+            Assert.assertEquals(capture.messages, List.of("step one"), "Forwarded");
+            Assert.assertEquals(appender.getBufferedTests(), 0, "Buffered tests");
+            Assert.assertFalse(new File(directory, "unbuffered-3.log").exists(), "Log written with buffering off");
+        } finally {
+            appender.stop();
+        }
+    }
+
+    private TestLogAppender start(Capture capture, long maxKb) {
+        DefaultConfiguration configuration = new DefaultConfiguration();
+        capture.start();
+        configuration.addAppender(capture);
+        TestLogAppender appender = TestLogAppender.createAppender("TestLog", maxKb, directory.getPath(),
+                PatternLayout.newBuilder().withPattern("%m%n").build(), null,
+                new AppenderRef[] {AppenderRef.createAppenderRef(capture.getName(), null, null)}, configuration);
+        appender.start();
+        return appender;
+    }
+
+    private static LogEvent event(String test, Marker marker, String message) {
+        SortedArrayStringMap context = new SortedArrayStringMap();
+        if (test != null) {
+            context.putValue(TestLogs.CONTEXT_KEY, test);
+        }
+        return Log4jLogEvent.newBuilder()
+                .setLoggerName(TestLogAppenderTest.class.getName())
+                .setLevel(Level.INFO)
+                .setMarker(marker)
+                .setMessage(new SimpleMessage(message))
+                .setContextData(context)
+                .build();
+    }
+
+    /**
+     * Stands in for the rolling file the appender forwards to
+     */
+    private static final class Capture extends AbstractAppender {
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+
+        Capture() {
+            super("Capture", null, null, true, Property.EMPTY_ARRAY);
+        }
+
+        @Override
+        public void append(LogEvent event) {
+            messages.add(event.getMessage().getFormattedMessage());
+        }
+    }
+}